@@ -3,8 +3,8 @@ import { createPortal } from 'react-dom'
 import { motion, AnimatePresence } from 'framer-motion'
 import SportPicker from './components/SportPicker'
 import TimelineGrid from './components/TimelineGrid'
-import { AvailabilityDto, SportType, CourtDto, LOCATION_TAGS } from './types'
-import { fetchAvailability, fetchActiveCourts, isTokenExpired, clearPlayerAuth } from './api'
+import { AvailabilityDelta, AvailabilityDto, SportType, CourtDto, LOCATION_TAGS } from './types'
+import { fetchAvailability, fetchAvailabilitySnapshot, fetchActiveCourts, isTokenExpired, clearPlayerAuth } from './api'
 import { useNavigate, useSearchParams, useLocation } from 'react-router-dom'
 import { Toaster } from 'sonner'
 import fastCat from './assets/fast-cat.svg'
@@ -593,13 +593,68 @@ export default function App() {
       fetchAvailability(date, sport).then(setData).catch(() => {})
     }
     const apiBase = (import.meta as any).env.VITE_API_BASE_URL || '/api'
-    const es = new EventSource(`${apiBase}/bookings/stream`)
+    // Doar evenimentele pentru sportul și ziua afișate; la schimbarea lor efectul se reface.
+    const es = new EventSource(`${apiBase}/bookings/stream?sportType=${sport}&from=${date}&to=${date}`)
     es.onerror = (e) => console.warn('[SSE] bookings/stream connection error', e)
-    const onBookingEvent = () => quietRefetch()
-    es.addEventListener('UPDATED', onBookingEvent)
-    es.addEventListener('CANCELLED', onBookingEvent)
+    // Fiecare eveniment aduce rândul terenului/zilei deja recalculat: îl înlocuim local
+    // în loc să recerem toată grila. La reconectare serverul retrimite ce am pierdut
+    // (Last-Event-ID); dacă nu mai poate, trimite BULK_REFRESH și luăm grila completă
+    // de la /availability/resync, cu secvența ei.
+    // Secvența e numerotată per instanță de server; alta (load balancer, restart) o ia de la capăt.
+    let lastSeq = 0
+    let lastInstance: string | undefined
+    function seen(instance: string | undefined, seq: number) {
+      if (instance !== lastInstance) {
+        lastInstance = instance
+        lastSeq = seq
+        return true
+      }
+      if (seq <= lastSeq) return false
+      lastSeq = seq
+      return true
+    }
+    function resync() {
+      fetchAvailabilitySnapshot(date, sport).then(snap => {
+        seen(snap.instance, snap.seq)
+        setData(snap.courts)
+      }).catch(() => {})
+    }
+    // Delta-ul e construit pentru un vizitator anonim (nume scurtate). Adminul și jucătorul
+    // logat văd mai mult din fetch, așa că după patch luăm grila lor din nou, în liniște;
+    // mai multe evenimente apropiate se strâng într-un singur fetch.
+    function seesFullNames() {
+      try { return !!localStorage.getItem('playerToken') || !!sessionStorage.getItem('adminAuth') } catch { return false }
+    }
+    let namesRefetch: ReturnType<typeof setTimeout> | undefined
+    function refetchNamesSoon() {
+      if (namesRefetch) clearTimeout(namesRefetch)
+      namesRefetch = setTimeout(quietRefetch, 300)
+    }
+    function applyDelta(ev: MessageEvent) {
+      let delta: AvailabilityDelta
+      try { delta = JSON.parse(ev.data) } catch { quietRefetch(); return }
+      if (!seen(delta.instance, delta.seq)) return
+      if (!delta.court || delta.bookingDate !== date) { resync(); return }
+      const row = delta.court
+      setData(prev => prev.map(r => {
+        if (r.court.id !== row.court.id) return r
+        // Numele complete (admin / rezervarea proprie) vin doar din fetch: le păstrăm pe intervalele neatinse.
+        const booked = row.booked.map(b => {
+          const same = r.booked.find(o => o.start === b.start && o.end === b.end)
+          return same && delta.booked?.start !== b.start ? same : b
+        })
+        return { ...r, booked, free: row.free }
+      }))
+      if (seesFullNames()) refetchNamesSoon()
+    }
+    es.addEventListener('UPDATED', applyDelta)
+    es.addEventListener('CANCELLED', applyDelta)
+    es.addEventListener('BULK_REFRESH', (ev: MessageEvent) => {
+      try { const d = JSON.parse(ev.data); seen(d.instance, d.seq) } catch {}
+      resync()
+    })
     es.addEventListener('CREATED', (ev: MessageEvent) => {
-      quietRefetch()
+      applyDelta(ev)
       try {
         const info = JSON.parse(ev.data)
         const court = courtsByIdRef.current.get(info.courtId)
@@ -625,6 +680,7 @@ export default function App() {
       window.removeEventListener('storage', onStorage)
       try { ch?.close() } catch {}
       clearInterval(fallbackPoll)
+      if (namesRefetch) clearTimeout(namesRefetch)
       es.close()
     }
   }, [date, sport])
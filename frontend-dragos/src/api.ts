@@ -1,4 +1,4 @@
-import { AvailabilityDto, BookingDto, CourtDto, PlayerUser, SubscriptionSummaryDto } from './types'
+import { AvailabilityDto, AvailabilitySnapshot, BookingDto, CourtDto, PlayerUser, SubscriptionSummaryDto } from './types'
 
 const BASE_URL = import.meta.env.VITE_API_BASE_URL || '/api'
 
@@ -67,6 +67,23 @@ export async function fetchAvailability(date: string, sportType?: string): Promi
   return data
 }
 
+// Grila completă plus secvența SSE cu care e consistentă (după evenimente pierdute).
+export async function fetchAvailabilitySnapshot(date: string, sportType?: string): Promise<AvailabilitySnapshot> {
+  const url = new URL(`${BASE_URL}/availability/resync`, window.location.origin)
+  url.searchParams.set('date', date)
+  if (sportType) url.searchParams.set('sportType', sportType)
+
+  const token = localStorage.getItem('playerToken')
+  const headers: Record<string, string> = {}
+  if (token) {
+    headers['Authorization'] = `Bearer ${token}`
+  }
+
+  const res = await fetch(url, { headers })
+  if (!res.ok) throw new Error(await parseError(res))
+  return await res.json()
+}
+
 export async function createBooking(payload: {
   courtId: number
   date: string
@@ -42,6 +42,29 @@ export interface AvailabilityDto {
   free: AvailabilityTimeRange[]
 }
 
+// Ce trimite /api/bookings/stream la fiecare modificare: rândul terenului/zilei după schimbare.
+export interface AvailabilityDelta {
+  seq: number
+  instance?: string
+  type: string
+  bookingId?: number
+  courtId?: number
+  bookingDate?: string
+  startTime?: string
+  endTime?: string
+  status?: string
+  booked?: AvailabilityTimeRange
+  freed?: AvailabilityTimeRange
+  court?: AvailabilityDto
+}
+
+export interface AvailabilitySnapshot {
+  seq: number
+  instance?: string
+  date: string
+  courts: AvailabilityDto[]
+}
+
 export interface BookingDto {
   id: number
   court: CourtDto
@@ -3,35 +3,103 @@ package com.toptennis.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Component
 @ConfigurationProperties(prefix = "sms")
 public class SmsProperties {
     private String mode = "production";
     private String port = "/dev/ttyUSB0";
+    // Several modems: all of them are used (ModemPool). Empty = just `port`.
+    private List<String> ports = new ArrayList<>();
     private int baud = 115200;
     private long commandTimeoutMs = 4000;
     private long sendTimeoutMs = 20000;
-    private long interCommandDelayMs = 100;
+    // pdu = AT+CMGF=0, GSM-7 / UCS-2 with concatenated parts (SmsPdu); text = AT+CMGF=1 as before.
+    private String encoding = "pdu";
+    // Ask the network for a delivery report per SMS (see DeliveryReportTracker).
+    private boolean deliveryReports = true;
     private String clubNumber;
     private String adminNotificationNumber;
     private String padelIndoorSupervisorNumber;
+    private Emulator emulator = new Emulator();
+    private AdminDigest adminDigest = new AdminDigest();
+
+    // Admin SMS (new booking, approval needed, new open match) wait up to windowSeconds in
+    // the outbox and go out as one summary per number; maxMessages pending sends right away.
+    // windowSeconds 0 = every message on its own, as before.
+    public static class AdminDigest {
+        private long windowSeconds = 300;
+        private int maxMessages = 6;
+
+        public long getWindowSeconds() { return windowSeconds; }
+        public void setWindowSeconds(long windowSeconds) { this.windowSeconds = windowSeconds; }
+        public int getMaxMessages() { return maxMessages; }
+        public void setMaxMessages(int maxMessages) { this.maxMessages = maxMessages; }
+
+        public boolean isEnabled() {
+            return windowSeconds > 0;
+        }
+    }
+
+    // Settings for the in-process modem (mode: emulator); see ModemEmulator.
+    public static class Emulator {
+        private long commandLatencyMs = 20;
+        private long submitLatencyMs = 800;
+        private double cmsErrorRate = 0.0;
+        private double timeoutRate = 0.0;
+        private double disconnectRate = 0.0;
+        private int maxPerMinute = 0;
+        // Delivery report (+CDS) this long after a message is accepted, when one was asked for.
+        private long deliveryLatencyMs = 3000;
+        private double deliveryFailureRate = 0.0;
+        private long seed = 0;
+
+        public long getCommandLatencyMs() { return commandLatencyMs; }
+        public void setCommandLatencyMs(long commandLatencyMs) { this.commandLatencyMs = commandLatencyMs; }
+        public long getSubmitLatencyMs() { return submitLatencyMs; }
+        public void setSubmitLatencyMs(long submitLatencyMs) { this.submitLatencyMs = submitLatencyMs; }
+        public double getCmsErrorRate() { return cmsErrorRate; }
+        public void setCmsErrorRate(double cmsErrorRate) { this.cmsErrorRate = cmsErrorRate; }
+        public double getTimeoutRate() { return timeoutRate; }
+        public void setTimeoutRate(double timeoutRate) { this.timeoutRate = timeoutRate; }
+        public double getDisconnectRate() { return disconnectRate; }
+        public void setDisconnectRate(double disconnectRate) { this.disconnectRate = disconnectRate; }
+        public int getMaxPerMinute() { return maxPerMinute; }
+        public void setMaxPerMinute(int maxPerMinute) { this.maxPerMinute = maxPerMinute; }
+        public long getDeliveryLatencyMs() { return deliveryLatencyMs; }
+        public void setDeliveryLatencyMs(long deliveryLatencyMs) { this.deliveryLatencyMs = deliveryLatencyMs; }
+        public double getDeliveryFailureRate() { return deliveryFailureRate; }
+        public void setDeliveryFailureRate(double deliveryFailureRate) { this.deliveryFailureRate = deliveryFailureRate; }
+        public long getSeed() { return seed; }
+        public void setSeed(long seed) { this.seed = seed; }
+    }
 
     public String getMode() { return mode; }
     public void setMode(String mode) { this.mode = mode; }
     public String getPort() { return port; }
     public void setPort(String port) { this.port = port; }
+    public List<String> getPorts() { return ports; }
+    public void setPorts(List<String> ports) { this.ports = ports; }
     public int getBaud() { return baud; }
     public void setBaud(int baud) { this.baud = baud; }
     public long getCommandTimeoutMs() { return commandTimeoutMs; }
     public void setCommandTimeoutMs(long commandTimeoutMs) { this.commandTimeoutMs = commandTimeoutMs; }
     public long getSendTimeoutMs() { return sendTimeoutMs; }
     public void setSendTimeoutMs(long sendTimeoutMs) { this.sendTimeoutMs = sendTimeoutMs; }
-    public long getInterCommandDelayMs() { return interCommandDelayMs; }
-    public void setInterCommandDelayMs(long interCommandDelayMs) { this.interCommandDelayMs = interCommandDelayMs; }
+    public String getEncoding() { return encoding; }
+    public void setEncoding(String encoding) { this.encoding = encoding; }
+    public boolean isDeliveryReports() { return deliveryReports; }
+    public void setDeliveryReports(boolean deliveryReports) { this.deliveryReports = deliveryReports; }
     public String getClubNumber() { return clubNumber; }
     public void setClubNumber(String clubNumber) { this.clubNumber = clubNumber; }
     public String getAdminNotificationNumber() { return adminNotificationNumber; }
     public void setAdminNotificationNumber(String adminNotificationNumber) { this.adminNotificationNumber = adminNotificationNumber; }
     public String getPadelIndoorSupervisorNumber() { return padelIndoorSupervisorNumber; }
     public void setPadelIndoorSupervisorNumber(String padelIndoorSupervisorNumber) { this.padelIndoorSupervisorNumber = padelIndoorSupervisorNumber; }
+    public AdminDigest getAdminDigest() { return adminDigest; }
+    public void setAdminDigest(AdminDigest adminDigest) { this.adminDigest = adminDigest; }
+    public Emulator getEmulator() { return emulator; }
+    public void setEmulator(Emulator emulator) { this.emulator = emulator; }
 }
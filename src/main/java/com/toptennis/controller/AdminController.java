@@ -28,14 +28,7 @@ public class AdminController {
             @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE)
             @org.springframework.web.bind.annotation.RequestParam java.time.LocalDate date,
             @org.springframework.web.bind.annotation.RequestParam(required = false) com.toptennis.model.SportType sportType) {
-        return bookingService.findByDateAndSport(date, sportType).stream()
-                .map(b -> {
-                    com.toptennis.dto.BookingDto dto = com.toptennis.mapper.BookingMapper.toDto(b);
-                    dto.playerCancellationsCount = bookingService.calculateOriginalCancelCount(b);
-                    dto.playerNoShowCount = bookingService.calculateNoShowCount(b);
-                    return dto;
-                })
-                .toList();
+        return bookingService.listAdminDay(date, sportType);
     }
 
     @PatchMapping("/bookings/{id}/approve")
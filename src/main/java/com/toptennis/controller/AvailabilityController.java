@@ -1,10 +1,20 @@
 package com.toptennis.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.toptennis.dto.AvailabilityDto;
+import com.toptennis.dto.AvailabilitySnapshotDto;
 import com.toptennis.model.SportType;
 import com.toptennis.service.AvailabilityService;
+import com.toptennis.service.AvailabilityVersions;
+import com.toptennis.service.BookingSseBroadcaster;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -13,15 +23,80 @@ import java.util.List;
 @RequestMapping("/api/availability")
 public class AvailabilityController {
     private final AvailabilityService availabilityService;
+    private final AvailabilityVersions availabilityVersions;
+    private final BookingSseBroadcaster bookingSseBroadcaster;
+    private final ObjectMapper objectMapper;
 
-    public AvailabilityController(AvailabilityService availabilityService) {
+    public AvailabilityController(AvailabilityService availabilityService, AvailabilityVersions availabilityVersions,
+                                  BookingSseBroadcaster bookingSseBroadcaster, ObjectMapper objectMapper) {
         this.availabilityService = availabilityService;
+        this.availabilityVersions = availabilityVersions;
+        this.bookingSseBroadcaster = bookingSseBroadcaster;
+        this.objectMapper = objectMapper;
     }
 
+    // Conditional GET: the version is read before the grid is built, so a change landing
+    // in between at worst costs the client one extra download, never a stale 304.
+    // no-cache + private: the browser keeps its copy but revalidates on every poll, and
+    // shared caches never see a grid with unmasked names.
     @GetMapping
-    public List<AvailabilityDto> availability(@RequestParam(required = false) SportType sportType,
-                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
-        return availabilityService.getAvailability(sportType, date);
+    public ResponseEntity<List<AvailabilityDto>> availability(@RequestParam(required = false) SportType sportType,
+                                                              @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                                              WebRequest webRequest) {
+        AvailabilityService.Viewer viewer = availabilityService.resolveViewer();
+        long version = availabilityVersions.current(date, sportType);
+        String etag = availabilityVersions.etag(date, sportType, version, viewer);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        List<AvailabilityDto> body = availabilityService.getAvailability(sportType, date, viewer);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(body);
+    }
+
+    // Pentru clientii SSE care au pierdut evenimente (reconectare, BULK_REFRESH): grila
+    // completa plus secventa de la care deltele sunt noi. Secventa e citita inaintea
+    // grilei, deci orice delta cu seq <= cea intoarsa e deja inclusa.
+    @GetMapping("/resync")
+    public ResponseEntity<AvailabilitySnapshotDto> resync(@RequestParam(required = false) SportType sportType,
+                                                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        AvailabilityService.Viewer viewer = availabilityService.resolveViewer();
+        AvailabilitySnapshotDto body = new AvailabilitySnapshotDto();
+        body.instance = bookingSseBroadcaster.instanceId();
+        body.seq = bookingSseBroadcaster.currentSeq();
+        body.date = date.toString();
+        body.courts = availabilityService.getAvailability(sportType, date, viewer);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(body);
     }
-}
 
+    // [{"date": "...", "courts": [...]}, ...] written day by day, so the first day reaches
+    // the browser while the rest are still being built and the whole range is never held
+    // in memory as one list.
+    @GetMapping("/range")
+    public ResponseEntity<StreamingResponseBody> range(@RequestParam(required = false) SportType sportType,
+                                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        // Validated and resolved here, on the request thread: a bad range still maps to 400
+        // and the viewer (admin / logged-in player) is known before the body is streamed.
+        availabilityService.validateRange(from, to);
+        AvailabilityService.Viewer viewer = availabilityService.resolveViewer();
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+                gen.writeStartArray();
+                availabilityService.writeRange(sportType, from, to, viewer, (date, courts) -> {
+                    gen.writeStartObject();
+                    gen.writeStringField("date", date.toString());
+                    gen.writeFieldName("courts");
+                    objectMapper.writeValue(gen, courts);
+                    gen.writeEndObject();
+                    gen.flush();
+                });
+                gen.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+}
@@ -33,11 +33,20 @@ public class BookingController {
     // events instead of forwarding them as they're written — X-Accel-Buffering
     // tells it to stream this response through untouched. Cache-Control keeps any
     // intermediary from caching the (never-ending) response body.
+    // Filtrele (sport, terenuri, interval de date) sunt optionale: fara ele clientul
+    // primeste toate evenimentele, ca inainte. La reconectare EventSource trimite singur
+    // Last-Event-ID si primeste doar evenimentele pierdute.
     @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter stream(HttpServletResponse response) {
+    public SseEmitter stream(HttpServletResponse response,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                             @RequestParam(required = false) com.toptennis.model.SportType sportType,
+                             @RequestParam(required = false) java.util.List<Long> courtIds,
+                             @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) LocalDate from,
+                             @RequestParam(required = false) @org.springframework.format.annotation.DateTimeFormat(iso = org.springframework.format.annotation.DateTimeFormat.ISO.DATE) LocalDate to) {
+        BookingSseBroadcaster.Filter filter = bookingSseBroadcaster.filter(sportType, courtIds, from, to);
         response.setHeader("X-Accel-Buffering", "no");
         response.setHeader("Cache-Control", "no-cache");
-        return bookingSseBroadcaster.subscribe();
+        return bookingSseBroadcaster.subscribe(filter, lastEventId);
     }
 
     @PostMapping
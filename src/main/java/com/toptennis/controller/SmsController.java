@@ -1,22 +1,62 @@
 package com.toptennis.controller;
 
+import com.toptennis.dto.ModemStatsDto;
+import com.toptennis.dto.SmsDeliveryStatsDto;
 import com.toptennis.dto.SmsSendRequest;
+import com.toptennis.dto.SmsLaneStatsDto;
+import com.toptennis.dto.SmsMessageDto;
 import com.toptennis.dto.SmsSendResult;
+import com.toptennis.sms.DeliveryReportTracker;
+import com.toptennis.sms.ModemPool;
+import com.toptennis.sms.SmsLane;
 import com.toptennis.sms.SmsService;
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/admin/sms")
 public class SmsController {
     private final SmsService smsService;
+    private final ModemPool modemPool;
+    private final DeliveryReportTracker deliveryReports;
 
-    public SmsController(SmsService smsService) {
+    public SmsController(SmsService smsService, ModemPool modemPool, DeliveryReportTracker deliveryReports) {
         this.smsService = smsService;
+        this.modemPool = modemPool;
+        this.deliveryReports = deliveryReports;
     }
 
     @PostMapping
     public SmsSendResult send(@RequestBody @Valid SmsSendRequest request) {
-        return smsService.sendSms(request.to, request.text);
+        return smsService.sendSms(request.to, request.text, SmsLane.ADMIN);
+    }
+
+    // Starea si debitul fiecarui modem din pool.
+    @GetMapping("/modems")
+    public List<ModemStatsDto> modems() {
+        return modemPool.stats();
+    }
+
+    // Cozile de asteptare pe prioritati (OTP, clienti, admin, remindere).
+    @GetMapping("/lanes")
+    public List<SmsLaneStatsDto> lanes() {
+        return modemPool.laneStats();
+    }
+
+    // Ultimele SMS-uri trimise si ce a raportat reteaua pentru fiecare.
+    @GetMapping("/messages")
+    public List<SmsMessageDto> messages(@RequestParam(defaultValue = "100") int limit) {
+        return deliveryReports.recent(limit);
+    }
+
+    // Livrate / esuate / fara raport si latenta de livrare pe ultimele `hours` ore.
+    @GetMapping("/delivery")
+    public SmsDeliveryStatsDto delivery(@RequestParam(defaultValue = "24") int hours) {
+        if (hours < 1 || hours > 24 * 30) {
+            throw new IllegalArgumentException("Interval invalid (1 - 720 ore).");
+        }
+        return deliveryReports.stats(hours);
     }
 }
@@ -0,0 +1,23 @@
+package com.toptennis.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// What /api/bookings/stream pushes for a booking change: the event itself plus the
+// affected court/day as the grid shows it after the change, so a client patches that
+// one row instead of refetching the whole grid. Names are masked as for an anonymous
+// viewer. `seq` grows with every event of one `instance`; see /api/availability/resync.
+public class AvailabilityDeltaDto {
+    public long seq;
+    public String instance;
+    public String type;
+    public Long bookingId;
+    public Long courtId;
+    public LocalDate bookingDate;
+    public LocalTime startTime;
+    public LocalTime endTime;
+    public String status;
+    public AvailabilityDto.TimeRangeDto booked; // range taken by this booking, null if it was freed
+    public AvailabilityDto.TimeRangeDto freed;  // range released by a cancellation
+    public AvailabilityDto court;               // the whole court/day row after the change
+}
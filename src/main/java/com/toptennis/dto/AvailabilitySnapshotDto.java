@@ -0,0 +1,12 @@
+package com.toptennis.dto;
+
+import java.util.List;
+
+// Full grid for a day plus the stream sequence it is consistent with: deltas with a
+// seq up to this one (from the same instance) are already included.
+public class AvailabilitySnapshotDto {
+    public long seq;
+    public String instance;
+    public String date;
+    public List<AvailabilityDto> courts;
+}
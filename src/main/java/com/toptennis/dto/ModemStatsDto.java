@@ -0,0 +1,21 @@
+package com.toptennis.dto;
+
+public class ModemStatsDto {
+    public String port;
+    // IDLE | BUSY | OPEN (circuit open, skipped) | HALF_OPEN (next send is the trial)
+    public String state;
+    public String session;
+    public long sent;
+    public long failed;
+    public long segments;
+    public long sentLastMinute;
+    public long avgSendMs;
+    public int consecutiveFailures;
+    // Adaptive pacing (SendPacer): current spacing between messages, the rate it allows,
+    // the learned floor, how often it backed off and how long senders were held back.
+    public long pacingIntervalMs;
+    public long pacingRatePerMinute;
+    public long pacingFloorMs;
+    public long pacingBackoffs;
+    public long pacingWaitedMs;
+}
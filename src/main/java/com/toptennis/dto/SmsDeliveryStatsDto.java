@@ -0,0 +1,15 @@
+package com.toptennis.dto;
+
+public class SmsDeliveryStatsDto {
+    public int hours;
+    public long sent;
+    public long delivered;
+    public long failed;
+    // Still without a final report.
+    public long pending;
+    // SMSC acceptance -> handset, delivered parts only.
+    public long avgLatencyMs;
+    public long p95LatencyMs;
+    // Our submit -> final report received, end to end.
+    public long avgReportMs;
+}
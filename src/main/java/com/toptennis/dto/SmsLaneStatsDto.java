@@ -0,0 +1,14 @@
+package com.toptennis.dto;
+
+public class SmsLaneStatsDto {
+    public String lane;
+    public int weight;
+    // Senders waiting for a modem right now, and how long the oldest one has been waiting.
+    public int queued;
+    public long oldestWaitMs;
+    public long granted;
+    // Gave up without a modem (every modem busy for the whole wait, or none usable).
+    public long timedOut;
+    public long avgWaitMs;
+    public long maxWaitMs;
+}
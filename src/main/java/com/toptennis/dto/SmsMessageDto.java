@@ -0,0 +1,20 @@
+package com.toptennis.dto;
+
+import java.time.LocalDateTime;
+
+public class SmsMessageDto {
+    public Long id;
+    public String modem;
+    public int reference;
+    public String recipient;
+    public String lane;
+    public int part;
+    public int parts;
+    // SENT | DELIVERED | FAILED
+    public String status;
+    public Integer statusCode;
+    public LocalDateTime submittedAt;
+    public LocalDateTime reportAt;
+    public LocalDateTime deliveredAt;
+    public Long latencyMs;
+}
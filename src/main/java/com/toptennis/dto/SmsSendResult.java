@@ -4,4 +4,10 @@ public class SmsSendResult {
     public boolean success;
     public String messageId;
     public String transcript;
+    // Number of SMS the text took (concatenated parts); 0 if nothing was attempted.
+    public int segments;
+    // No answer after the body was written: the message may be out, so it is not resent.
+    public boolean possiblySent;
+    // Port of the modem that handled the message (null in mock mode).
+    public String modem;
 }
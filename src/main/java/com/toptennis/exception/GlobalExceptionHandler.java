@@ -99,7 +99,9 @@ public class GlobalExceptionHandler {
         err.path = req.getRequestURI();
 
         String cause = ex.getMessage() != null ? ex.getMessage().toUpperCase() : "";
-        if (cause.contains("PHONE_NUMBER")) {
+        if (cause.contains("UQ_BOOKING_SLOT_CELL")) {
+            err.message = "Intervalul selectat se suprapune cu o rezervare existentă.";
+        } else if (cause.contains("PHONE_NUMBER")) {
             err.message = "Acest număr de telefon aparține deja unui alt cont. Dacă vă aparține, apăsați pe butonul 'Revendică' pentru a-l transfera prin validare SMS.";
         } else if (cause.contains("EMAIL")) {
             err.message = "Această adresă de email este deja asociată altui cont.";
@@ -0,0 +1,47 @@
+package com.toptennis.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+// One 30-minute cell held by an active booking. The unique (court, day, cell) constraint
+// is what finally rules out two overlapping bookings; see BookingSlotClaims.
+@Entity
+@Table(name = "booking_slot",
+       uniqueConstraints = @UniqueConstraint(name = "uq_booking_slot_cell", columnNames = {"court_id", "slot_date", "slot_index"}))
+public class BookingSlot {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Column(name = "court_id", nullable = false)
+    private Long courtId;
+
+    @Column(name = "slot_date", nullable = false)
+    private LocalDate slotDate;
+
+    @Column(name = "slot_index", nullable = false)
+    private int slotIndex;
+
+    public BookingSlot() {}
+
+    public BookingSlot(Long bookingId, Long courtId, LocalDate slotDate, int slotIndex) {
+        this.bookingId = bookingId;
+        this.courtId = courtId;
+        this.slotDate = slotDate;
+        this.slotIndex = slotIndex;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getBookingId() { return bookingId; }
+    public void setBookingId(Long bookingId) { this.bookingId = bookingId; }
+    public Long getCourtId() { return courtId; }
+    public void setCourtId(Long courtId) { this.courtId = courtId; }
+    public LocalDate getSlotDate() { return slotDate; }
+    public void setSlotDate(LocalDate slotDate) { this.slotDate = slotDate; }
+    public int getSlotIndex() { return slotIndex; }
+    public void setSlotIndex(int slotIndex) { this.slotIndex = slotIndex; }
+}
@@ -0,0 +1,6 @@
+package com.toptennis.model;
+
+public enum NotificationChannel {
+    SMS,
+    EMAIL
+}
@@ -0,0 +1,26 @@
+package com.toptennis.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Lease on a scheduled job that must run on one instance only; see ScheduledJobLocks.
+@Entity
+@Table(name = "scheduled_job_lock")
+public class ScheduledJobLock {
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(name = "locked_by", length = 64)
+    private String lockedBy;
+
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getLockedBy() { return lockedBy; }
+    public void setLockedBy(String lockedBy) { this.lockedBy = lockedBy; }
+    public LocalDateTime getLockedUntil() { return lockedUntil; }
+    public void setLockedUntil(LocalDateTime lockedUntil) { this.lockedUntil = lockedUntil; }
+}
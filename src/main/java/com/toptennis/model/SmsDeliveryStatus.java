@@ -0,0 +1,7 @@
+package com.toptennis.model;
+
+public enum SmsDeliveryStatus {
+    SENT,
+    DELIVERED,
+    FAILED
+}
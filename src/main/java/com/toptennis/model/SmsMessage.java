@@ -0,0 +1,86 @@
+package com.toptennis.model;
+
+import com.toptennis.sms.SmsLane;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One SMS part handed to the network, found again by (modem, reference) when its delivery
+// report comes in. See DeliveryReportTracker.
+@Entity
+@Table(name = "sms_message")
+public class SmsMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Port of the modem that sent it; TP-MR references are per modem.
+    @Column(nullable = false, length = 128)
+    private String modem;
+
+    // TP-MR from +CMGS (0-255, wraps around).
+    @Column(nullable = false)
+    private int reference;
+
+    @Column(nullable = false, length = 32)
+    private String recipient;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private SmsLane lane;
+
+    @Column(nullable = false)
+    private int part;
+
+    @Column(nullable = false)
+    private int parts;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private SmsDeliveryStatus status;
+
+    // TP-ST of the last report (0 = delivered).
+    @Column(name = "status_code")
+    private Integer statusCode;
+
+    @Column(name = "submitted_at", nullable = false)
+    private LocalDateTime submittedAt;
+
+    // When the final report reached us.
+    @Column(name = "report_at")
+    private LocalDateTime reportAt;
+
+    // Discharge time as stated by the SMSC.
+    @Column(name = "delivered_at")
+    private LocalDateTime deliveredAt;
+
+    // SMSC acceptance -> handset (or -> giving up), both by the SMSC clock.
+    @Column(name = "latency_ms")
+    private Long latencyMs;
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getModem() { return modem; }
+    public void setModem(String modem) { this.modem = modem; }
+    public int getReference() { return reference; }
+    public void setReference(int reference) { this.reference = reference; }
+    public String getRecipient() { return recipient; }
+    public void setRecipient(String recipient) { this.recipient = recipient; }
+    public SmsLane getLane() { return lane; }
+    public void setLane(SmsLane lane) { this.lane = lane; }
+    public int getPart() { return part; }
+    public void setPart(int part) { this.part = part; }
+    public int getParts() { return parts; }
+    public void setParts(int parts) { this.parts = parts; }
+    public SmsDeliveryStatus getStatus() { return status; }
+    public void setStatus(SmsDeliveryStatus status) { this.status = status; }
+    public Integer getStatusCode() { return statusCode; }
+    public void setStatusCode(Integer statusCode) { this.statusCode = statusCode; }
+    public LocalDateTime getSubmittedAt() { return submittedAt; }
+    public void setSubmittedAt(LocalDateTime submittedAt) { this.submittedAt = submittedAt; }
+    public LocalDateTime getReportAt() { return reportAt; }
+    public void setReportAt(LocalDateTime reportAt) { this.reportAt = reportAt; }
+    public LocalDateTime getDeliveredAt() { return deliveredAt; }
+    public void setDeliveredAt(LocalDateTime deliveredAt) { this.deliveredAt = deliveredAt; }
+    public Long getLatencyMs() { return latencyMs; }
+    public void setLatencyMs(Long latencyMs) { this.latencyMs = latencyMs; }
+}
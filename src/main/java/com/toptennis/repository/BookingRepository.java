@@ -3,7 +3,9 @@ package com.toptennis.repository;
 import com.toptennis.model.Booking;
 import com.toptennis.model.BookingStatus;
 import com.toptennis.model.SportType;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -17,6 +19,11 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     Optional<Booking> findByCancelToken(String cancelToken);
 
+    // SELECT ... FOR UPDATE: two approvals of the same booking see each other's status change.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from Booking b where b.id = :id")
+    Optional<Booking> findWithLockById(@Param("id") Long id);
+
     @Query("select b from Booking b where b.court.id = :courtId and b.bookingDate = :date and b.status in :activeStatuses and not (b.endTime <= :start or b.startTime >= :end)")
     List<Booking> findOverlapping(@Param("courtId") Long courtId,
                                   @Param("date") LocalDate date,
@@ -35,6 +42,20 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     @Query("select distinct b from Booking b join fetch b.court c left join fetch b.playerUser pu where b.bookingDate = :date and (:sportType is null or c.sportType = :sportType)")
     List<Booking> findByDateAndSportType(@Param("date") LocalDate date, @Param("sportType") SportType sportType);
 
+    // Whole availability grid for one day in a single statement: every non-cancelled booking
+    // of the sport (all sports when null), court and player already joined.
+    @Query("select b from Booking b join fetch b.court c left join fetch b.playerUser pu where b.bookingDate = :date and b.status <> com.toptennis.model.BookingStatus.CANCELLED and (:sportType is null or c.sportType = :sportType) order by c.id asc, b.startTime asc")
+    List<Booking> findActiveByDateAndSportType(@Param("date") LocalDate date, @Param("sportType") SportType sportType);
+
+    // Same as above for a run of days (/api/availability/range) in one round trip.
+    @Query("select b from Booking b join fetch b.court c left join fetch b.playerUser pu " +
+           "where b.bookingDate between :from and :to " +
+           "and b.status <> com.toptennis.model.BookingStatus.CANCELLED " +
+           "and (:sportType is null or c.sportType = :sportType) " +
+           "order by b.bookingDate asc, c.id asc, b.startTime asc")
+    List<Booking> findActiveBetweenDatesAndSportType(@Param("from") LocalDate from, @Param("to") LocalDate to,
+                                                     @Param("sportType") SportType sportType);
+
     @Query("select b from Booking b join fetch b.court c where b.bookingDate = :date and b.status = :status and b.startTime between :start and :end and b.weeklyUser = false and LOWER(b.customerName) not like '%abonament%'")
     List<Booking> findForReminder(@Param("date") LocalDate date,
                                   @Param("status") BookingStatus status,
@@ -62,6 +83,19 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     long countPastConfirmedByUserId(@Param("userId") Long userId,
                                     @Param("today") LocalDate today,
                                     @Param("now") LocalTime now);
+
+    // countPastConfirmedByUserId for many players at once (admin day view).
+    @Query("select b.playerUser.id as playerUserId, count(b) as total from Booking b " +
+           "where b.playerUser.id in :userIds and b.status = com.toptennis.model.BookingStatus.CONFIRMED " +
+           "and (b.bookingDate < :today or (b.bookingDate = :today and b.endTime <= :now)) group by b.playerUser.id")
+    List<PlayerCount> countPastConfirmedByUserIds(@Param("userIds") java.util.Collection<Long> userIds,
+                                                  @Param("today") LocalDate today,
+                                                  @Param("now") LocalTime now);
+
+    interface PlayerCount {
+        Long getPlayerUserId();
+        long getTotal();
+    }
     long countByPlayerUserIdAndStatus(Long playerUserId, BookingStatus status);
 
     long countByCustomerPhoneAndStatus(String customerPhone, BookingStatus status);
@@ -71,6 +105,41 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
 
     long countByCustomerPhoneAndStatusAndPenaltyExemptFalse(String customerPhone, BookingStatus status);
 
+    // Both penalty counts of one customer in a single grouped query (see PenaltyScores).
+    @Query("select b.status as status, count(b) as total from Booking b " +
+           "where b.customerPhone = :phone and b.penaltyExempt = false and b.status in :statuses group by b.status")
+    List<StatusCount> countPenaltiesByPhone(@Param("phone") String phone, @Param("statuses") List<BookingStatus> statuses);
+
+    @Query("select b.status as status, count(b) as total from Booking b " +
+           "where b.playerUser.id = :playerUserId and b.penaltyExempt = false and b.status in :statuses group by b.status")
+    List<StatusCount> countPenaltiesByPlayer(@Param("playerUserId") Long playerUserId, @Param("statuses") List<BookingStatus> statuses);
+
+    interface StatusCount {
+        BookingStatus getStatus();
+        long getTotal();
+    }
+
+    // Grouped variants for a whole set of customers (PenaltyScores.forPhones / forPlayers).
+    @Query("select b.customerPhone as customerPhone, b.status as status, count(b) as total from Booking b " +
+           "where b.customerPhone in :phones and b.penaltyExempt = false and b.status in :statuses " +
+           "group by b.customerPhone, b.status")
+    List<PhoneStatusCount> countPenaltiesByPhones(@Param("phones") java.util.Collection<String> phones,
+                                                  @Param("statuses") List<BookingStatus> statuses);
+
+    @Query("select b.playerUser.id as playerUserId, b.status as status, count(b) as total from Booking b " +
+           "where b.playerUser.id in :playerUserIds and b.penaltyExempt = false and b.status in :statuses " +
+           "group by b.playerUser.id, b.status")
+    List<PlayerStatusCount> countPenaltiesByPlayers(@Param("playerUserIds") java.util.Collection<Long> playerUserIds,
+                                                    @Param("statuses") List<BookingStatus> statuses);
+
+    interface PhoneStatusCount extends StatusCount {
+        String getCustomerPhone();
+    }
+
+    interface PlayerStatusCount extends StatusCount {
+        Long getPlayerUserId();
+    }
+
     List<Booking> findByStatusAndCreatedAtBefore(BookingStatus status, java.time.LocalDateTime createdAt);
     List<Booking> findByStatus(BookingStatus status);
 
@@ -0,0 +1,12 @@
+package com.toptennis.repository;
+
+import com.toptennis.model.BookingSlotLegacyOverlap;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BookingSlotLegacyOverlapRepository extends JpaRepository<BookingSlotLegacyOverlap, Long> {
+
+    List<BookingSlotLegacyOverlap> findByBookingIdAndCourtIdAndSlotDate(Long bookingId, Long courtId, LocalDate slotDate);
+}
@@ -0,0 +1,45 @@
+package com.toptennis.repository;
+
+import com.toptennis.model.BookingSlot;
+import com.toptennis.model.BookingStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface BookingSlotRepository extends JpaRepository<BookingSlot, Long> {
+
+    List<BookingSlot> findByBookingIdOrderBySlotIndexAsc(Long bookingId);
+
+    boolean existsByCourtIdAndSlotDateAndSlotIndexAndBookingIdNot(Long courtId, LocalDate slotDate, int slotIndex, Long bookingId);
+
+    // Bulk deletes run straight against the table, before the inserts of the same flush,
+    // so a booking can give up and re-take the same cell in one transaction.
+    @Transactional
+    @Modifying
+    @Query("delete from BookingSlot s where s.bookingId = :bookingId")
+    int deleteByBookingId(@Param("bookingId") Long bookingId);
+
+    // Cells still held by bookings that no longer claim any (after bulk status changes).
+    @Transactional
+    @Modifying
+    @Query("delete from BookingSlot s where s.bookingId in " +
+           "(select b.id from Booking b where b.status not in :claimingStatuses)")
+    int deleteReleased(@Param("claimingStatuses") Collection<BookingStatus> claimingStatuses);
+
+    // Same, limited to one court and day: run before a booking takes cells there, so a
+    // cancellation earlier in the same transaction (e.g. an open-match takeover) has
+    // already given its cells back.
+    @Transactional
+    @Modifying
+    @Query("delete from BookingSlot s where s.courtId = :courtId and s.slotDate = :date and s.bookingId in " +
+           "(select b.id from Booking b where b.status not in :claimingStatuses)")
+    int deleteReleasedOnDay(@Param("courtId") Long courtId,
+                            @Param("date") LocalDate date,
+                            @Param("claimingStatuses") Collection<BookingStatus> claimingStatuses);
+}
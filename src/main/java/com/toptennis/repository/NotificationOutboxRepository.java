@@ -0,0 +1,59 @@
+package com.toptennis.repository;
+
+import com.toptennis.model.NotificationOutbox;
+import com.toptennis.model.NotificationStatus;
+import org.springframework.data.domain.Pageable;
+import com.toptennis.sms.SmsLane;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    // Oldest first, so messages for one booking go out in the order they were queued.
+    // Rows claimed by a dispatcher that is still within its lease are left out.
+    @Query("select n from NotificationOutbox n where n.status = :status and n.nextAttemptAt <= :now " +
+           "and (n.claimedUntil is null or n.claimedUntil < :now) order by n.id")
+    List<NotificationOutbox> findDue(@Param("status") NotificationStatus status,
+                                     @Param("now") LocalDateTime now,
+                                     Pageable page);
+
+    long countByStatus(NotificationStatus status);
+
+    // Admin digest: everything still waiting for one number, due or not.
+    List<NotificationOutbox> findByStatusAndLaneAndRecipientOrderByIdAsc(NotificationStatus status, SmsLane lane,
+                                                                         String recipient, Pageable page);
+
+    long countByStatusAndLaneAndRecipient(NotificationStatus status, SmsLane lane, String recipient);
+
+    @Modifying
+    @Query("update NotificationOutbox n set n.nextAttemptAt = :now where n.status = :status " +
+           "and n.lane = :lane and n.recipient = :recipient and n.nextAttemptAt > :now")
+    int makeDueNow(@Param("status") NotificationStatus status,
+                   @Param("lane") SmsLane lane,
+                   @Param("recipient") String recipient,
+                   @Param("now") LocalDateTime now);
+
+    // Claims a row for one sender until `leaseUntil`, unless another one holds a live claim.
+    // 1 = ours to send, 0 = another instance has it (or it is no longer pending).
+    @Transactional
+    @Modifying
+    @Query("update NotificationOutbox n set n.claimedUntil = :leaseUntil where n.id = :id " +
+           "and n.status = :status and (n.claimedUntil is null or n.claimedUntil < :now)")
+    int claim(@Param("id") Long id,
+              @Param("status") NotificationStatus status,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Nightly cleanup: rows already sent are only kept for a while, for support questions.
+    @Transactional
+    @Modifying
+    @Query("delete from NotificationOutbox n where n.status = :status and n.sentAt < :before")
+    int deleteSentBefore(@Param("status") NotificationStatus status,
+                         @Param("before") LocalDateTime before);
+}
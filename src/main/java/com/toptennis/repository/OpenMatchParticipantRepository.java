@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.Collection;
 import java.util.List;
 
@@ -12,6 +14,30 @@ public interface OpenMatchParticipantRepository extends JpaRepository<OpenMatchP
 
     long countByOpenMatchId(Long openMatchId);
 
+    /**
+     * Meciurile cu statusul dat dintr-un interval de zile (inclusiv capetele), fiecare cu numarul de jucatori alaturati,
+     * intr-un singur query grupat (in loc de cate un countByOpenMatchId pe meci).
+     */
+    @Query("select m.id as openMatchId, b.id as bookingId, b.bookingDate as bookingDate, b.startTime as startTime, " +
+           "m.totalSlots as totalSlots, m.groupSize as groupSize, count(p.id) as joined " +
+           "from OpenMatch m join m.booking b " +
+           "left join OpenMatchParticipant p on p.openMatch = m " +
+           "where m.status = :status and b.bookingDate between :from and :to " +
+           "group by m.id, b.id, b.bookingDate, b.startTime, m.totalSlots, m.groupSize")
+    List<MatchJoinCount> countJoinedByStatusAndDateRange(@Param("status") com.toptennis.model.OpenMatchStatus status,
+                                                        @Param("from") LocalDate from,
+                                                        @Param("to") LocalDate to);
+
+    interface MatchJoinCount {
+        Long getOpenMatchId();
+        Long getBookingId();
+        LocalDate getBookingDate();
+        LocalTime getStartTime();
+        int getTotalSlots();
+        int getGroupSize();
+        long getJoined();
+    }
+
     boolean existsByOpenMatchIdAndPlayerUserId(Long openMatchId, Long playerUserId);
 
     @Query("select p from OpenMatchParticipant p " +
@@ -0,0 +1,21 @@
+package com.toptennis.repository;
+
+import com.toptennis.model.ScheduledJobLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface ScheduledJobLockRepository extends JpaRepository<ScheduledJobLock, String> {
+
+    // Takes the lease if it ran out or is already ours; 1 = acquired, 0 = another instance holds it.
+    @Modifying
+    @Query("update ScheduledJobLock l set l.lockedBy = :owner, l.lockedUntil = :until " +
+           "where l.name = :name and (l.lockedUntil < :now or l.lockedBy = :owner)")
+    int tryLock(@Param("name") String name,
+                @Param("owner") String owner,
+                @Param("now") LocalDateTime now,
+                @Param("until") LocalDateTime until);
+}
@@ -0,0 +1,35 @@
+package com.toptennis.repository;
+
+import com.toptennis.model.SmsDeliveryStatus;
+import com.toptennis.model.SmsMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SmsMessageRepository extends JpaRepository<SmsMessage, Long> {
+
+    // References wrap at 256, so only the newest parts still waiting for a report count.
+    @Query("select m from SmsMessage m where m.modem = :modem and m.reference = :reference " +
+           "and m.status = :status and m.submittedAt >= :since order by m.id desc")
+    List<SmsMessage> findAwaitingReport(@Param("modem") String modem,
+                                        @Param("reference") int reference,
+                                        @Param("status") SmsDeliveryStatus status,
+                                        @Param("since") LocalDateTime since,
+                                        Pageable page);
+
+    List<SmsMessage> findBySubmittedAtGreaterThanEqual(LocalDateTime since);
+
+    @Query("select m from SmsMessage m order by m.id desc")
+    List<SmsMessage> findRecent(Pageable page);
+
+    @Transactional
+    @Modifying
+    @Query("delete from SmsMessage m where m.submittedAt < :before")
+    int deleteSubmittedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,98 @@
+package com.toptennis.service;
+
+import com.toptennis.model.Court;
+import com.toptennis.model.OpenMatchStatus;
+import com.toptennis.model.SportType;
+import com.toptennis.repository.OpenMatchParticipantRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// The rest of what a day grid reads besides the occupancy (CourtOccupancyIndex): the active
+// courts of a sport and the open matches of a day with their joined counts. With all three
+// warm, /api/availability answers without touching the database.
+//
+// Dropped by the same booking events as the occupancy index: every open-match change
+// (create, join, takeover, auto-release) publishes one for its booking, and court edits
+// (CourtService.updateHours) publish BULK_REFRESH. Open matches are kept as the raw counts;
+// spots left and the takeover window are worked out from them on each request, since the
+// window depends on the time of the request.
+@Component
+public class AvailabilityCache {
+    private static final ZoneId ZONE = ZoneId.of("Europe/Bucharest");
+
+    private final CourtService courtService;
+    private final OpenMatchParticipantRepository openMatchParticipantRepository;
+    // Keyed by SportType name, "" for all sports (ConcurrentHashMap takes no null keys).
+    private final Map<String, List<Court>> activeCourts = new ConcurrentHashMap<>();
+    private final Map<LocalDate, List<OpenMatchParticipantRepository.MatchJoinCount>> openMatches = new ConcurrentHashMap<>();
+
+    // Same guard as CourtOccupancyIndex: a load that started before an invalidation
+    // may have read pre-commit rows and is not kept.
+    private final AtomicLong epoch = new AtomicLong();
+
+    public AvailabilityCache(CourtService courtService, OpenMatchParticipantRepository openMatchParticipantRepository) {
+        this.courtService = courtService;
+        this.openMatchParticipantRepository = openMatchParticipantRepository;
+    }
+
+    public List<Court> activeCourts(SportType sportType) {
+        return cached(activeCourts, sportType == null ? "" : sportType.name(), () -> List.copyOf(courtService.listActive(sportType)));
+    }
+
+    public List<OpenMatchParticipantRepository.MatchJoinCount> openMatches(LocalDate date) {
+        return cached(openMatches, date, () -> List.copyOf(
+                openMatchParticipantRepository.countJoinedByStatusAndDateRange(OpenMatchStatus.OPEN, date, date)));
+    }
+
+    private <K, V> V cached(Map<K, V> map, K key, Supplier<V> loader) {
+        V hit = map.get(key);
+        if (hit != null) {
+            return hit;
+        }
+        long seen = epoch.get();
+        V loaded = loader.get();
+        map.putIfAbsent(key, loaded);
+        if (epoch.get() != seen) {
+            map.remove(key, loaded);
+        }
+        return loaded;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onRemoteBookingChanged(RemoteBookingChangedEvent remote) {
+        onBookingChanged(remote.event());
+    }
+
+    // Before AvailabilityVersions bumps the ETag, like CourtOccupancyIndex.
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        epoch.incrementAndGet();
+        if (event.type() == BookingChangedEvent.Type.BULK_REFRESH || event.bookingDate() == null) {
+            activeCourts.clear();
+            openMatches.clear();
+            return;
+        }
+        openMatches.remove(event.bookingDate());
+    }
+
+    @Scheduled(cron = "0 5 0 * * *", zone = "Europe/Bucharest")
+    public void purgePastDays() {
+        LocalDate today = LocalDate.now(ZONE);
+        openMatches.keySet().removeIf(d -> d.isBefore(today));
+    }
+}
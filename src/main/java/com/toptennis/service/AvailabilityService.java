@@ -1,40 +1,56 @@
 package com.toptennis.service;
 
 import com.toptennis.dto.AvailabilityDto;
-import com.toptennis.model.Booking;
 import com.toptennis.model.Court;
 import com.toptennis.model.SportType;
-import com.toptennis.repository.BookingRepository;
 import com.toptennis.model.PlayerUser;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class AvailabilityService {
+    // Upper bound for /api/availability/range — a month view is the widest the UI asks for.
+    public static final int MAX_RANGE_DAYS = 31;
+
     private final CourtService courtService;
-    private final BookingRepository bookingRepository;
+    private final CourtOccupancyIndex occupancyIndex;
+    private final AvailabilityCache availabilityCache;
     private final PlayerAuthService playerAuthService;
-    private final com.toptennis.repository.OpenMatchRepository openMatchRepository;
     private final com.toptennis.repository.OpenMatchParticipantRepository openMatchParticipantRepository;
 
-    public AvailabilityService(CourtService courtService, BookingRepository bookingRepository, PlayerAuthService playerAuthService,
-                               com.toptennis.repository.OpenMatchRepository openMatchRepository,
+    public AvailabilityService(CourtService courtService, CourtOccupancyIndex occupancyIndex, AvailabilityCache availabilityCache,
+                               PlayerAuthService playerAuthService,
                                com.toptennis.repository.OpenMatchParticipantRepository openMatchParticipantRepository) {
         this.courtService = courtService;
-        this.bookingRepository = bookingRepository;
+        this.occupancyIndex = occupancyIndex;
+        this.availabilityCache = availabilityCache;
         this.playerAuthService = playerAuthService;
-        this.openMatchRepository = openMatchRepository;
         this.openMatchParticipantRepository = openMatchParticipantRepository;
     }
 
-    public List<AvailabilityDto> getAvailability(SportType sportType, LocalDate date) {
+    // Who is looking at the grid decides how much of each customer name is shown.
+    // Resolved once on the request thread: the streaming range endpoint builds its
+    // days on an async thread where neither the request nor the security context exist.
+    public record Viewer(boolean admin, Long playerUserId) {
+        // Nobody logged in: what the SSE deltas carry, names masked to the first name.
+        public static final Viewer ANONYMOUS = new Viewer(false, null);
+    }
+
+    @FunctionalInterface
+    public interface DayWriter {
+        void write(LocalDate date, List<AvailabilityDto> courts) throws IOException;
+    }
+
+    public Viewer resolveViewer() {
         boolean isAdmin = false;
         PlayerUser currentUser = null;
         try {
@@ -52,60 +68,122 @@ public class AvailabilityService {
                 }
             }
         } catch (Exception e) {}
+        return new Viewer(isAdmin, currentUser != null ? currentUser.getId() : null);
+    }
+
+    public List<AvailabilityDto> getAvailability(SportType sportType, LocalDate date) {
+        return getAvailability(sportType, date, resolveViewer());
+    }
+
+    // Warm, this reads nothing from the database: courts and open matches come from
+    // AvailabilityCache, the bookings from the occupancy index.
+    public List<AvailabilityDto> getAvailability(SportType sportType, LocalDate date, Viewer viewer) {
+        List<Court> courts = availabilityCache.activeCourts(sportType);
+        Map<Long, AvailabilityDto.TimeRangeDto> openMatchInfo = openMatchInfoByBookingId(date);
+        Map<Long, CourtOccupancyIndex.DayOccupancy> occupancyByCourt = occupancyIndex.getAll(courts, date, sportType);
+        return buildDay(courts, date, occupancyByCourt::get, openMatchInfo, viewer);
+    }
+
+    // One court on one day, as it appears in the grid; the payload of a live delta.
+    // Transactional because it runs on the SSE fan-out thread, where nothing else opens
+    // a session for the lazy player user behind playerMatchesCount.
+    @Transactional(readOnly = true)
+    public AvailabilityDto getCourtDay(Long courtId, LocalDate date, Viewer viewer) {
+        Court court = courtService.get(courtId);
+        CourtOccupancyIndex.DayOccupancy occupancy = occupancyIndex.get(courtId, date);
+        return buildDay(List.of(court), date, id -> occupancy, openMatchInfoByBookingId(date), viewer).get(0);
+    }
 
-        // Meciurile deschise (OPEN) din ziua ceruta, indexate dupa rezervare —
-        // grila le afiseaza distinct („Cauta jucatori") si, in ultimele 6 ore,
-        // permite preluarea intervalului de catre o echipa completa.
-        java.util.Map<Long, AvailabilityDto.TimeRangeDto> openMatchInfoByBookingId = new java.util.HashMap<>();
+    public void validateRange(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Data de început trebuie să fie înainte de data de sfârșit.");
+        }
+        if (java.time.temporal.ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Intervalul poate acoperi cel mult " + MAX_RANGE_DAYS + " de zile.");
+        }
+    }
+
+    /**
+     * Several consecutive days in one pass: one booking query for the days the occupancy
+     * index doesn't already hold and one open-match query, then each day is built and
+     * handed to the writer as soon as it is ready. The occupancy is kept per court and day
+     * by the index anyway, so only the built rows are produced one day at a time.
+     */
+    public void writeRange(SportType sportType, LocalDate from, LocalDate to, Viewer viewer, DayWriter writer) throws IOException {
+        validateRange(from, to);
+        List<Court> courts = availabilityCache.activeCourts(sportType);
+        Map<Long, AvailabilityDto.TimeRangeDto> openMatchInfo = openMatchInfoByBookingId(from, to);
+        Map<CourtOccupancyIndex.Key, CourtOccupancyIndex.DayOccupancy> occupancy = occupancyIndex.getRange(courts, from, to, sportType);
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            final LocalDate day = date;
+            writer.write(day, buildDay(courts, day, courtId -> occupancy.get(new CourtOccupancyIndex.Key(courtId, day)), openMatchInfo, viewer));
+        }
+    }
+
+    // Meciurile deschise (OPEN) din intervalul cerut, indexate dupa rezervare —
+    // grila le afiseaza distinct („Cauta jucatori") si, in ultimele 6 ore,
+    // permite preluarea intervalului de catre o echipa completa.
+    private Map<Long, AvailabilityDto.TimeRangeDto> openMatchInfoByBookingId(LocalDate from, LocalDate to) {
+        return openMatchInfo(() -> openMatchParticipantRepository.countJoinedByStatusAndDateRange(
+                com.toptennis.model.OpenMatchStatus.OPEN, from, to));
+    }
+
+    // O singura zi: din AvailabilityCache.
+    private Map<Long, AvailabilityDto.TimeRangeDto> openMatchInfoByBookingId(LocalDate date) {
+        return openMatchInfo(() -> availabilityCache.openMatches(date));
+    }
+
+    private Map<Long, AvailabilityDto.TimeRangeDto> openMatchInfo(
+            java.util.function.Supplier<List<com.toptennis.repository.OpenMatchParticipantRepository.MatchJoinCount>> matches) {
+        Map<Long, AvailabilityDto.TimeRangeDto> openMatchInfoByBookingId = new java.util.HashMap<>();
         try {
             java.time.LocalDateTime now = java.time.LocalDateTime.now();
-            for (com.toptennis.model.OpenMatch om : openMatchRepository.findByStatusFetchBooking(com.toptennis.model.OpenMatchStatus.OPEN)) {
-                Booking omb = om.getBooking();
-                if (!date.equals(omb.getBookingDate())) continue;
-                long joined = openMatchParticipantRepository.countByOpenMatchId(om.getId());
-                int spotsLeft = Math.max(0, om.getTotalSlots() - om.getGroupSize() - (int) joined);
+            for (var om : matches.get()) {
+                int spotsLeft = Math.max(0, om.getTotalSlots() - om.getGroupSize() - (int) om.getJoined());
                 if (spotsLeft == 0) continue;
-                java.time.LocalDateTime startDT = java.time.LocalDateTime.of(omb.getBookingDate(), omb.getStartTime());
+                java.time.LocalDateTime startDT = java.time.LocalDateTime.of(om.getBookingDate(), om.getStartTime());
                 AvailabilityDto.TimeRangeDto info = new AvailabilityDto.TimeRangeDto();
-                info.openMatchId = om.getId();
+                info.openMatchId = om.getOpenMatchId();
                 info.openMatchSpotsLeft = spotsLeft;
                 info.openMatchTakeover = startDT.isAfter(now) && now.isAfter(startDT.minusHours(6));
-                openMatchInfoByBookingId.put(omb.getId(), info);
+                openMatchInfoByBookingId.put(om.getBookingId(), info);
             }
         } catch (Exception ignored) {
             // grila nu pica niciodata din cauza meciurilor deschise
         }
+        return openMatchInfoByBookingId;
+    }
 
-        List<Court> courts = courtService.listActive(sportType);
+    private List<AvailabilityDto> buildDay(List<Court> courts, LocalDate date,
+                                           java.util.function.Function<Long, CourtOccupancyIndex.DayOccupancy> occupancyByCourt,
+                                           Map<Long, AvailabilityDto.TimeRangeDto> openMatchInfoByBookingId, Viewer viewer) {
         List<AvailabilityDto> result = new ArrayList<>();
         for (Court court : courts) {
-            List<Booking> bookings = bookingRepository
-                    .findByCourtIdAndBookingDateOrderByStartTimeAsc(court.getId(), date)
-                    .stream()
-                    .filter(b -> b.getStatus() != com.toptennis.model.BookingStatus.CANCELLED)
-                    .toList();
+            CourtOccupancyIndex.DayOccupancy occupancy = occupancyByCourt.apply(court.getId());
             AvailabilityDto dto = new AvailabilityDto();
             dto.court = com.toptennis.mapper.CourtMapper.toDto(court);
             dto.booked = new ArrayList<>();
-            for (Booking b : bookings) {
+            for (int i = 0; i < occupancy.size(); i++) {
+                com.toptennis.model.BookingStatus status = occupancy.status(i);
                 AvailabilityDto.TimeRangeDto tr = new AvailabilityDto.TimeRangeDto();
-                tr.start = b.getStartTime().toString();
-                tr.end = b.getEndTime().toString();
-                tr.status = b.getStatus().name();
-                boolean isOwner = currentUser != null && b.getPlayerUser() != null && b.getPlayerUser().getId().equals(currentUser.getId());
-                boolean canViewPii = isAdmin || isOwner || b.getStatus() == com.toptennis.model.BookingStatus.BLOCKED;
+                tr.start = CourtOccupancyIndex.DayOccupancy.formatMinutes(occupancy.startMinute(i));
+                tr.end = CourtOccupancyIndex.DayOccupancy.formatMinutes(occupancy.endMinute(i));
+                tr.status = status.name();
+                Long playerUserId = occupancy.playerUserId(i);
+                boolean isOwner = viewer.playerUserId() != null && playerUserId != null && playerUserId.equals(viewer.playerUserId());
+                boolean canViewPii = viewer.admin() || isOwner || status == com.toptennis.model.BookingStatus.BLOCKED;
                 if (canViewPii) {
-                    tr.customerName = b.getCustomerName();
+                    tr.customerName = occupancy.customerName(i);
                 } else {
-                    String fullName = b.getCustomerName();
+                    String fullName = occupancy.customerName(i);
                     tr.customerName = (fullName != null && !fullName.isBlank())
                         ? fullName.trim().split("\\s+")[0]
                         : "Rezervat";
                 }
-                if (b.getPlayerUser() != null) {
-                    tr.playerMatchesCount = b.getPlayerUser().getMatchesPlayed();
+                if (playerUserId != null) {
+                    tr.playerMatchesCount = occupancy.playerMatchesCount(i);
                 }
-                AvailabilityDto.TimeRangeDto omInfo = openMatchInfoByBookingId.get(b.getId());
+                AvailabilityDto.TimeRangeDto omInfo = openMatchInfoByBookingId.get(occupancy.bookingId(i));
                 if (omInfo != null) {
                     tr.openMatchId = omInfo.openMatchId;
                     tr.openMatchSpotsLeft = omInfo.openMatchSpotsLeft;
@@ -113,33 +191,42 @@ public class AvailabilityService {
                 }
                 dto.booked.add(tr);
             }
-            dto.free = computeFreeSlots(java.time.LocalTime.MIN, java.time.LocalTime.of(23,59), bookings);
+            dto.free = computeFreeSlots(0, 23 * 60 + 59, occupancy);
             result.add(dto);
         }
         return result;
     }
 
-    private List<AvailabilityDto.TimeRangeDto> computeFreeSlots(LocalTime open, LocalTime close, List<Booking> bookings) {
+    // Free runs straight off the day's SlotBitmap; a day holding legacy off-grid rows
+    // keeps the minute walk so its output doesn't change.
+    private List<AvailabilityDto.TimeRangeDto> computeFreeSlots(int open, int close, CourtOccupancyIndex.DayOccupancy occupancy) {
         List<AvailabilityDto.TimeRangeDto> free = new ArrayList<>();
-        LocalTime cursor = open;
-        for (Booking b : bookings) {
-            if (cursor.isBefore(b.getStartTime())) {
-                addRange(free, cursor, b.getStartTime());
+        if (occupancy.isAligned()) {
+            SlotBitmap.forEachFreeRun(occupancy.occupiedMask(), SlotBitmap.startSlot(open), SlotBitmap.endSlot(close),
+                    (from, to) -> addRange(free, SlotBitmap.slotToStartMinute(from), SlotBitmap.slotToEndMinute(to)));
+            return free;
+        }
+        int cursor = open;
+        for (int i = 0; i < occupancy.size(); i++) {
+            int start = occupancy.startMinute(i);
+            int end = occupancy.endMinute(i);
+            if (cursor < start) {
+                addRange(free, cursor, start);
             }
-            if (cursor.isBefore(b.getEndTime())) {
-                cursor = b.getEndTime();
+            if (cursor < end) {
+                cursor = end;
             }
         }
-        if (cursor.isBefore(close)) {
+        if (cursor < close) {
             addRange(free, cursor, close);
         }
         return free;
     }
 
-    private void addRange(List<AvailabilityDto.TimeRangeDto> list, LocalTime start, LocalTime end) {
+    private void addRange(List<AvailabilityDto.TimeRangeDto> list, int start, int end) {
         AvailabilityDto.TimeRangeDto tr = new AvailabilityDto.TimeRangeDto();
-        tr.start = start.toString();
-        tr.end = end.toString();
+        tr.start = CourtOccupancyIndex.DayOccupancy.formatMinutes(start);
+        tr.end = CourtOccupancyIndex.DayOccupancy.formatMinutes(end);
         tr.status = "FREE";
         list.add(tr);
     }
@@ -0,0 +1,116 @@
+package com.toptennis.service;
+
+import com.toptennis.model.Court;
+import com.toptennis.model.SportType;
+import com.toptennis.repository.CourtRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Version of the availability grid per (day, sport), driven by the same
+// BookingChangedEvent stream as the SSE broadcaster. The grid endpoint turns it into an
+// ETag so a poll that finds nothing new is answered with 304 before any grid is built.
+@Component
+public class AvailabilityVersions {
+    private static final ZoneId ZONE = ZoneId.of("Europe/Bucharest");
+
+    private record Key(LocalDate date, SportType sportType) {}
+
+    // Counters restart with the process; the boot stamp keeps an ETag issued by a
+    // previous run from matching a fresh counter that happens to have the same value.
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    // One sequence for everything, so a key's version only ever grows — also across a
+    // bulk refresh, which moves every key to the current sequence value at once.
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile long bulkVersion;
+    private final Map<Key, Long> versions = new ConcurrentHashMap<>();
+    private final Map<Long, SportType> courtSports = new ConcurrentHashMap<>();
+
+    private final CourtRepository courtRepository;
+
+    public AvailabilityVersions(CourtRepository courtRepository) {
+        this.courtRepository = courtRepository;
+    }
+
+    public long current(LocalDate date, SportType sportType) {
+        return Math.max(bulkVersion, versions.getOrDefault(new Key(date, sportType), 0L));
+    }
+
+    /**
+     * Strong ETag for the grid of one day as seen by one viewer. Besides the version it
+     * carries who is asking (customer names are masked differently for admin, the booking
+     * owner and everyone else) and, for today and tomorrow, the current half hour: the
+     * open-match takeover flag flips on the 30-minute grid without any booking changing.
+     */
+    public String etag(LocalDate date, SportType sportType, long version, AvailabilityService.Viewer viewer) {
+        StringBuilder sb = new StringBuilder("\"")
+                .append(bootId).append('-')
+                .append(sportType == null ? "ALL" : sportType.name()).append('-')
+                .append(date).append('-')
+                .append(version).append('-');
+        if (viewer.admin()) {
+            sb.append('a');
+        } else if (viewer.playerUserId() != null) {
+            sb.append('u').append(viewer.playerUserId());
+        } else {
+            sb.append('x');
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (!date.isBefore(now.toLocalDate()) && !date.isAfter(now.toLocalDate().plusDays(1))) {
+            sb.append('-').append(now.toEpochSecond(ZoneOffset.UTC) / 1800);
+        }
+        return sb.append('"').toString();
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener
+    public void onRemoteBookingChanged(RemoteBookingChangedEvent remote) {
+        onBookingChanged(remote.event());
+    }
+
+    // Runs after CourtOccupancyIndex has dropped the entry (it listens with the highest
+    // precedence), so a request that sees the new version never reads the old occupancy.
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.type() == BookingChangedEvent.Type.BULK_REFRESH || event.courtId() == null || event.bookingDate() == null) {
+            bulkVersion = sequence.incrementAndGet();
+            return;
+        }
+        SportType sport = sportOf(event.courtId());
+        if (sport == null) {
+            bulkVersion = sequence.incrementAndGet();
+            return;
+        }
+        long next = sequence.incrementAndGet();
+        versions.put(new Key(event.bookingDate(), sport), next);
+        // Grids requested without a sport show every court.
+        versions.put(new Key(event.bookingDate(), null), next);
+    }
+
+    private SportType sportOf(Long courtId) {
+        return courtSports.computeIfAbsent(courtId,
+                id -> courtRepository.findById(id).map(Court::getSportType).orElse(null));
+    }
+
+    // Dropping a key would let its version fall back to an older value, so the purge
+    // also moves the floor up: every ETag changes once a night.
+    @Scheduled(cron = "0 5 0 * * *", zone = "Europe/Bucharest")
+    public void purgePastDays() {
+        LocalDate today = LocalDate.now(ZONE);
+        bulkVersion = sequence.incrementAndGet();
+        versions.keySet().removeIf(k -> k.date().isBefore(today));
+    }
+}
@@ -28,4 +28,10 @@ public record BookingChangedEvent(
                 b.getStatus()
         );
     }
+
+    // For admin bulk operations that touch many courts/days at once; listeners
+    // treat it as "everything may have changed".
+    public static BookingChangedEvent bulkRefresh() {
+        return new BookingChangedEvent(Type.BULK_REFRESH, null, null, null, null, null, null);
+    }
 }
@@ -0,0 +1,16 @@
+package com.toptennis.service;
+
+import java.util.function.Consumer;
+
+// How a booking change committed on one app instance reaches the others: SSE clients,
+// the occupancy index, grid versions and penalty scores all live in each instance's
+// memory. Picked with booking.event-bus — local (default, one instance) or postgres
+// (LISTEN/NOTIFY on the shared database). BookingEventRelay is the only user.
+public interface BookingEventBus {
+
+    /** Hands an event committed on this instance to the other instances. */
+    void publish(BookingChangedEvent event);
+
+    /** Where events coming from other instances are delivered; never the ones published here. */
+    void subscribe(Consumer<BookingChangedEvent> listener);
+}
@@ -0,0 +1,35 @@
+package com.toptennis.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Bridges the in-process BookingChangedEvent stream and the BookingEventBus: what commits
+// here goes out to the other instances, what they commit comes back in as a
+// RemoteBookingChangedEvent. Remote events are a separate type so they are never
+// forwarded again and never reach the listeners that write to the database.
+@Component
+public class BookingEventRelay {
+    private static final Logger log = LoggerFactory.getLogger(BookingEventRelay.class);
+
+    private final BookingEventBus bus;
+
+    public BookingEventRelay(BookingEventBus bus, ApplicationEventPublisher eventPublisher) {
+        this.bus = bus;
+        bus.subscribe(event -> eventPublisher.publishEvent(new RemoteBookingChangedEvent(event)));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        try {
+            bus.publish(event);
+        } catch (Exception e) {
+            // The change is committed; other instances catch up on their next cache miss.
+            log.warn("Could not publish booking event {} #{} to the other instances: {}",
+                    event.type(), event.bookingId(), e.getMessage());
+        }
+    }
+}
@@ -2,14 +2,9 @@ package com.toptennis.service;
 
 import com.toptennis.model.*;
 import com.toptennis.sms.SmsService;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
- 
 import com.toptennis.repository.BookingRepository;
 import com.toptennis.repository.CourtRepository;
 import com.toptennis.repository.PlayerUserRepository;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,19 +28,25 @@ public class BookingService {
     private final PlayerUserRepository playerUserRepository;
     private final PlayerAuthService playerAuthService;
     private final EmailService emailService;
-    private final ThreadPoolTaskExecutor taskExecutor;
+    private final NotificationQueue notificationQueue;
     private final ApplicationEventPublisher eventPublisher;
+    private final BookingSlotLocks slotLocks;
+    private final BookingSlotClaims slotClaims;
+    private final PenaltyScores penaltyScores;
 
 
-    public BookingService(BookingRepository bookingRepository, CourtRepository courtRepository, SmsService smsService, PlayerUserRepository playerUserRepository, EmailService emailService, PlayerAuthService playerAuthService, @Qualifier("smsTaskExecutor") ThreadPoolTaskExecutor taskExecutor, ApplicationEventPublisher eventPublisher) {
+    public BookingService(BookingRepository bookingRepository, CourtRepository courtRepository, SmsService smsService, PlayerUserRepository playerUserRepository, EmailService emailService, PlayerAuthService playerAuthService, NotificationQueue notificationQueue, ApplicationEventPublisher eventPublisher, BookingSlotLocks slotLocks, BookingSlotClaims slotClaims, PenaltyScores penaltyScores) {
         this.bookingRepository = bookingRepository;
         this.courtRepository = courtRepository;
         this.smsService = smsService;
         this.playerUserRepository = playerUserRepository;
         this.emailService = emailService;
         this.playerAuthService = playerAuthService;
-        this.taskExecutor = taskExecutor;
+        this.notificationQueue = notificationQueue;
         this.eventPublisher = eventPublisher;
+        this.slotLocks = slotLocks;
+        this.slotClaims = slotClaims;
+        this.penaltyScores = penaltyScores;
     }
 
     public BookingRepository getBookingRepository() {
@@ -79,7 +80,11 @@ public class BookingService {
             throw new org.springframework.web.server.ResponseStatusException(org.springframework.http.HttpStatus.BAD_REQUEST, "Rezervările pot fi făcute cu cel mult 13 luni în avans.");
         }
 
-        Court court = courtRepository.findWithLockById(courtId).orElseThrow(() -> new IllegalArgumentException("Terenul nu a fost găsit: " + courtId));
+        // court mode: the court row stays locked for the whole transaction. slot mode: plain
+        // read here, and only the requested slots are claimed right before the overlap check.
+        // none: booking_slot alone (see BookingSlotClaims).
+        Court court = (slotLocks.locksCourtRow() ? courtRepository.findWithLockById(courtId) : courtRepository.findById(courtId))
+                .orElseThrow(() -> new IllegalArgumentException("Terenul nu a fost găsit: " + courtId));
         boolean isTennis = court.getSportType() == SportType.TENNIS;
         validateTime(court, date, start, end, isTennis, effectiveAdmin);
         List<BookingStatus> activeStatuses = Arrays.asList(BookingStatus.CONFIRMED, BookingStatus.BLOCKED, BookingStatus.PENDING_APPROVAL);
@@ -149,17 +154,9 @@ public class BookingService {
         
         // PENALTY SYSTEM: Require manual approval if the user has > 5 cancellations
         // Only counts non-exempt cancellations (exempt = amnesty reset applied)
-        long cancelCount = 0;
-        if (normPhone != null && !normPhone.isBlank()) {
-            long standardCancels = bookingRepository.countByCustomerPhoneAndStatusAndPenaltyExemptFalse(normPhone, BookingStatus.CANCELLED);
-            long noShows = bookingRepository.countByCustomerPhoneAndStatusAndPenaltyExemptFalse(normPhone, BookingStatus.NO_SHOW);
-            cancelCount = standardCancels + (10 * noShows);
-        }
+        long cancelCount = penaltyScores.forPhone(normPhone).score();
         if (playerFromToken != null) {
-            long playerStandardCancels = bookingRepository.countByPlayerUserIdAndStatusAndPenaltyExemptFalse(playerFromToken.getId(), BookingStatus.CANCELLED);
-            long playerNoShows = bookingRepository.countByPlayerUserIdAndStatusAndPenaltyExemptFalse(playerFromToken.getId(), BookingStatus.NO_SHOW);
-            long playerCancelCount = playerStandardCancels + (10 * playerNoShows);
-            cancelCount = Math.max(cancelCount, playerCancelCount);
+            cancelCount = Math.max(cancelCount, penaltyScores.forPlayer(playerFromToken.getId()).score());
         }
         
         if (!effectiveAdmin && cancelCount > 5) {
@@ -168,6 +165,9 @@ public class BookingService {
         }
 
             if (!crossesMidnight) {
+                if (slotLocks.isSlotMode()) {
+                    slotLocks.claim(courtId, date, start, end);
+                }
                 if (!bookingRepository.findOverlapping(courtId, date, start, end, activeStatuses).isEmpty()) {
                     throw new IllegalArgumentException("Intervalul selectat se suprapune cu o rezervare existentă.");
                 }
@@ -211,23 +211,25 @@ public class BookingService {
                 }
 
                 Booking saved = bookingRepository.save(b);
+                // Cells taken now, so a lost race fails here, before any SMS/email is queued.
+                slotClaims.sync(saved);
                 eventPublisher.publishEvent(BookingChangedEvent.of(BookingChangedEvent.Type.CREATED, saved));
                 if (initialStatus == BookingStatus.CONFIRMED && !effectiveAdmin) {
-                    taskExecutor.execute(() -> {
-                        smsService.sendReservationNotifications(saved);
-                        smsService.sendAdminNewBookingNotification(saved);
-                        emailService.sendBookingConfirmation(saved);
-                    });
+                    queueConfirmationNotifications(saved);
                 }
                 if (initialStatus == BookingStatus.PENDING_APPROVAL && !effectiveAdmin) {
-                    final long finalCancelCount = cancelCount;
-                    taskExecutor.execute(() -> smsService.sendAdminApprovalNotification(saved, finalCancelCount));
+                    notificationQueue.enqueueSms(smsService.composeAdminApprovalNotification(saved, cancelCount),
+                            saved.getId(), "admin-approval");
                 }
                 return saved;
             } else {
                 LocalTime part1End = LocalTime.of(23, 59);
                 LocalDate nextDate = date.plusDays(1);
 
+                if (slotLocks.isSlotMode()) {
+                    slotLocks.claim(courtId, date, start, part1End);
+                    slotLocks.claim(courtId, nextDate, LocalTime.MIN, end);
+                }
                 if (!bookingRepository.findOverlapping(courtId, date, start, part1End, activeStatuses).isEmpty()) {
                     throw new IllegalArgumentException("Intervalul selectat se suprapune cu o rezervare existenta (ziua curenta).");
                 }
@@ -296,19 +298,22 @@ public class BookingService {
 
                 Booking saved1 = bookingRepository.save(b1);
                 Booking saved2 = bookingRepository.save(b2);
+                slotClaims.sync(saved1);
+                slotClaims.sync(saved2);
                 eventPublisher.publishEvent(BookingChangedEvent.of(BookingChangedEvent.Type.CREATED, saved1));
                 eventPublisher.publishEvent(BookingChangedEvent.of(BookingChangedEvent.Type.CREATED, saved2));
 
                 if (initialStatus == BookingStatus.CONFIRMED && !effectiveAdmin) {
-                    taskExecutor.execute(() -> {
-                        smsService.sendReservationNotificationsCrossMidnight(saved1, saved2);
-                        smsService.sendAdminNewBookingNotificationCrossMidnight(saved1, saved2);
-                        emailService.sendBookingConfirmation(saved1);
-                    });
+                    notificationQueue.enqueueSms(smsService.composeReservationNotificationsCrossMidnight(saved1, saved2),
+                            saved1.getId(), "customer-confirmation");
+                    notificationQueue.enqueueSms(smsService.composeAdminNewBookingNotificationCrossMidnight(saved1, saved2),
+                            saved1.getId(), "admin-new-booking");
+                    notificationQueue.enqueueEmail(emailService.composeBookingConfirmation(saved1),
+                            saved1.getId(), "customer-confirmation");
                 }
                 if (initialStatus == BookingStatus.PENDING_APPROVAL && !effectiveAdmin) {
-                    final long finalCancelCount = cancelCount;
-                    taskExecutor.execute(() -> smsService.sendAdminApprovalNotification(saved1, finalCancelCount));
+                    notificationQueue.enqueueSms(smsService.composeAdminApprovalNotification(saved1, cancelCount),
+                            saved1.getId(), "admin-approval");
                 }
                 return saved1;
             }
@@ -352,13 +357,64 @@ public class BookingService {
     @Transactional(readOnly = true)
     public java.util.List<Booking> findByDateAndSport(java.time.LocalDate date, com.toptennis.model.SportType sportType) {
         List<Booking> list = bookingRepository.findByDateAndSportType(date, sportType);
+        fillMatchesPlayed(list);
+        return list;
+    }
+
+    // Admin day view: bookings, matches played and both penalty counts for every row from a
+    // fixed number of queries (day list + one grouped count each for matches, phones and
+    // players — fewer when PenaltyScores already holds them), joined here in memory.
+    @Transactional(readOnly = true)
+    public List<com.toptennis.dto.BookingDto> listAdminDay(LocalDate date, SportType sportType) {
+        List<Booking> list = findByDateAndSport(date, sportType);
+        java.util.Set<String> phones = new java.util.HashSet<>();
+        java.util.Set<Long> playerIds = new java.util.HashSet<>();
         for (Booking b : list) {
+            String normPhone = normalizePhone(b.getCustomerPhone());
+            if (normPhone != null) {
+                phones.add(normPhone);
+            }
             if (b.getPlayerUser() != null) {
-                long count = countMatchesPlayed(b.getPlayerUser().getId());
-                b.getPlayerUser().setMatchesPlayed((int)count);
+                playerIds.add(b.getPlayerUser().getId());
+            }
+        }
+        java.util.Map<String, PenaltyScores.Penalty> byPhone = penaltyScores.forPhones(phones);
+        java.util.Map<Long, PenaltyScores.Penalty> byPlayer = penaltyScores.forPlayers(playerIds);
+
+        List<com.toptennis.dto.BookingDto> result = new java.util.ArrayList<>(list.size());
+        for (Booking b : list) {
+            PenaltyScores.Penalty phonePenalty = byPhone.getOrDefault(normalizePhone(b.getCustomerPhone()), PenaltyScores.Penalty.NONE);
+            PenaltyScores.Penalty playerPenalty = b.getPlayerUser() != null
+                    ? byPlayer.getOrDefault(b.getPlayerUser().getId(), PenaltyScores.Penalty.NONE)
+                    : PenaltyScores.Penalty.NONE;
+            com.toptennis.dto.BookingDto dto = com.toptennis.mapper.BookingMapper.toDto(b);
+            dto.playerCancellationsCount = (int) Math.max(phonePenalty.cancellations(), playerPenalty.cancellations());
+            dto.playerNoShowCount = (int) Math.max(phonePenalty.noShows(), playerPenalty.noShows());
+            result.add(dto);
+        }
+        return result;
+    }
+
+    // One grouped COUNT for all players of the list instead of countMatchesPlayed per row.
+    private void fillMatchesPlayed(List<Booking> list) {
+        java.util.Set<Long> playerIds = new java.util.HashSet<>();
+        for (Booking b : list) {
+            if (b.getPlayerUser() != null) {
+                playerIds.add(b.getPlayerUser().getId());
+            }
+        }
+        if (playerIds.isEmpty()) {
+            return;
+        }
+        java.util.Map<Long, Long> played = new java.util.HashMap<>();
+        for (BookingRepository.PlayerCount c : bookingRepository.countPastConfirmedByUserIds(playerIds, LocalDate.now(), LocalTime.now())) {
+            played.put(c.getPlayerUserId(), c.getTotal());
+        }
+        for (Booking b : list) {
+            if (b.getPlayerUser() != null) {
+                b.getPlayerUser().setMatchesPlayed(played.getOrDefault(b.getPlayerUser().getId(), 0L).intValue());
             }
         }
-        return list;
     }
 
     // Computes matches played dynamically: past bookings that are still CONFIRMED
@@ -369,51 +425,87 @@ public class BookingService {
     }
 
     private void applyToSiblingIfExists(Booking b, java.util.function.Consumer<Booking> action) {
+        findSibling(b).ifPresent(sibling -> {
+            action.accept(sibling);
+            bookingRepository.save(sibling);
+            BookingChangedEvent.Type type = sibling.getStatus() == BookingStatus.CANCELLED
+                    ? BookingChangedEvent.Type.CANCELLED : BookingChangedEvent.Type.UPDATED;
+            eventPublisher.publishEvent(BookingChangedEvent.of(type, sibling));
+        });
+    }
+
+    // The other half of a cross-midnight booking (cancel tokens "<uuid>-1" / "<uuid>-2").
+    private java.util.Optional<Booking> findSibling(Booking b) {
         if (b.isMidnightBooking() && b.getCancelToken() != null && b.getCancelToken().length() > 2) {
             String token = b.getCancelToken();
             String siblingToken = token.endsWith("-1") ? token.substring(0, token.length() - 2) + "-2" :
                                   token.endsWith("-2") ? token.substring(0, token.length() - 2) + "-1" : null;
             if (siblingToken != null) {
-                bookingRepository.findByCancelToken(siblingToken).ifPresent(sibling -> {
-                    action.accept(sibling);
-                    bookingRepository.save(sibling);
-                });
+                return bookingRepository.findByCancelToken(siblingToken);
             }
         }
+        return java.util.Optional.empty();
+    }
+
+    /**
+     * The guard createPublicAdmin takes before its overlap check, for the other paths that
+     * make an interval active (restore, block, open-match takeover): the court row in
+     * court mode, the interval's slots in slot mode, nothing in none (booking_slot alone).
+     * Must run inside a transaction; slot claims are re-entrant within it.
+     */
+    public void guardInterval(Long courtId, LocalDate date, LocalTime start, LocalTime end) {
+        if (slotLocks.locksCourtRow()) {
+            courtRepository.findWithLockById(courtId);
+        } else if (slotLocks.isSlotMode()) {
+            slotLocks.claim(courtId, date, start, end);
+        }
     }
 
     @Transactional
     public Booking confirm(Long id) {
         Booking b = get(id);
         if (b.getStatus() == BookingStatus.PENDING_APPROVAL) {
-            b.setStatus(BookingStatus.CONFIRMED);
-            b.setUpdatedAt(LocalDateTime.now());
-            Booking saved = bookingRepository.save(b);
-            eventPublisher.publishEvent(BookingChangedEvent.of(BookingChangedEvent.Type.UPDATED, saved));
-
-            applyToSiblingIfExists(b, sibling -> {
-                sibling.setStatus(BookingStatus.CONFIRMED);
-                sibling.setUpdatedAt(LocalDateTime.now());
-            });
+            return approve(b);
+        }
+        b.setStatus(BookingStatus.CONFIRMED);
+        b.setUpdatedAt(LocalDateTime.now());
+        Booking saved = bookingRepository.save(b);
+        eventPublisher.publishEvent(BookingChangedEvent.of(BookingChangedEvent.Type.UPDATED, saved));
+        applyToSiblingIfExists(b, sibling -> {
+            sibling.setStatus(BookingStatus.CONFIRMED);
+            sibling.setUpdatedAt(LocalDateTime.now());
+        });
+        return saved;
+    }
 
-            // Trigger notifications upon manual approval, but ONLY if NOT a weekly booking
-            if (!b.isWeeklyUser()) {
-                taskExecutor.execute(() -> {
-                    smsService.sendReservationNotifications(saved);
-                    smsService.sendAdminNewBookingNotification(saved);
-                    emailService.sendBookingConfirmation(saved);
-                });
-            }
-            return saved;
+    // Approval from outside the admin UI (the "DA" SMS): only a booking still waiting for it
+    // is confirmed, so a late answer cannot bring back one cancelled in the meantime.
+    @Transactional
+    public boolean approvePending(Long id) {
+        Booking b = bookingRepository.findWithLockById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Rezervarea nu a fost găsită: " + id));
+        if (b.getStatus() != BookingStatus.PENDING_APPROVAL) {
+            return false;
         }
+        approve(b);
+        return true;
+    }
+
+    private Booking approve(Booking b) {
         b.setStatus(BookingStatus.CONFIRMED);
         b.setUpdatedAt(LocalDateTime.now());
         Booking saved = bookingRepository.save(b);
         eventPublisher.publishEvent(BookingChangedEvent.of(BookingChangedEvent.Type.UPDATED, saved));
+
         applyToSiblingIfExists(b, sibling -> {
             sibling.setStatus(BookingStatus.CONFIRMED);
             sibling.setUpdatedAt(LocalDateTime.now());
         });
+
+        // Trigger notifications upon manual approval, but ONLY if NOT a weekly booking
+        if (!b.isWeeklyUser()) {
+            queueConfirmationNotifications(saved);
+        }
         return saved;
     }
 
@@ -430,6 +522,7 @@ public class BookingService {
             b.setStatus(BookingStatus.CONFIRMED);
             b.setUpdatedAt(LocalDateTime.now());
             bookingRepository.save(b);
+            eventPublisher.publishEvent(BookingChangedEvent.of(BookingChangedEvent.Type.UPDATED, b));
         }
         return pending.size();
     }
@@ -447,6 +540,7 @@ public class BookingService {
             b.setUpdatedAt(LocalDateTime.now());
         });
         bookingRepository.saveAll(toCancel);
+        eventPublisher.publishEvent(BookingChangedEvent.bulkRefresh());
         return toCancel.size();
     }
 
@@ -464,6 +558,7 @@ public class BookingService {
             b.setUpdatedAt(LocalDateTime.now());
         });
         bookingRepository.saveAll(toCancel);
+        toCancel.forEach(b -> eventPublisher.publishEvent(BookingChangedEvent.of(BookingChangedEvent.Type.CANCELLED, b)));
         return toCancel.size();
     }
 
@@ -594,27 +689,17 @@ public class BookingService {
     }
 
     public int calculateOriginalCancelCount(Booking b) {
-        long cancels = 0;
-        String normPhone = normalizePhone(b.getCustomerPhone());
-        if (normPhone != null && !normPhone.isBlank()) {
-            cancels = bookingRepository.countByCustomerPhoneAndStatusAndPenaltyExemptFalse(normPhone, BookingStatus.CANCELLED);
-        }
+        long cancels = penaltyScores.forPhone(normalizePhone(b.getCustomerPhone())).cancellations();
         if (b.getPlayerUser() != null) {
-            long playerCancels = bookingRepository.countByPlayerUserIdAndStatusAndPenaltyExemptFalse(b.getPlayerUser().getId(), BookingStatus.CANCELLED);
-            cancels = Math.max(cancels, playerCancels);
+            cancels = Math.max(cancels, penaltyScores.forPlayer(b.getPlayerUser().getId()).cancellations());
         }
         return (int) cancels;
     }
 
     public int calculateNoShowCount(Booking b) {
-        long noShows = 0;
-        String normPhone = normalizePhone(b.getCustomerPhone());
-        if (normPhone != null && !normPhone.isBlank()) {
-            noShows = bookingRepository.countByCustomerPhoneAndStatusAndPenaltyExemptFalse(normPhone, BookingStatus.NO_SHOW);
-        }
+        long noShows = penaltyScores.forPhone(normalizePhone(b.getCustomerPhone())).noShows();
         if (b.getPlayerUser() != null) {
-            long playerNoShows = bookingRepository.countByPlayerUserIdAndStatusAndPenaltyExemptFalse(b.getPlayerUser().getId(), BookingStatus.NO_SHOW);
-            noShows = Math.max(noShows, playerNoShows);
+            noShows = Math.max(noShows, penaltyScores.forPlayer(b.getPlayerUser().getId()).noShows());
         }
         return (int) noShows;
     }
@@ -629,6 +714,13 @@ public class BookingService {
         if (!startDateTime.isAfter(LocalDateTime.now())) {
             throw new IllegalStateException("Intervalul este în trecut și nu mai poate fi restabilit.");
         }
+        // Both halves of a cross-midnight booking come back, so both are guarded, in date order.
+        List<Booking> parts = new java.util.ArrayList<>(List.of(b));
+        findSibling(b).ifPresent(parts::add);
+        parts.sort(java.util.Comparator.comparing(Booking::getBookingDate));
+        for (Booking part : parts) {
+            guardInterval(part.getCourt().getId(), part.getBookingDate(), part.getStartTime(), part.getEndTime());
+        }
         List<BookingStatus> activeStatuses = Arrays.asList(BookingStatus.CONFIRMED, BookingStatus.BLOCKED, BookingStatus.PENDING_APPROVAL);
         boolean overlaps = !bookingRepository.findOverlappingExcludingId(
                 b.getId(),
@@ -659,6 +751,7 @@ public class BookingService {
         Court court = courtRepository.findById(courtId).orElseThrow(() -> new IllegalArgumentException("Terenul nu a fost găsit: " + courtId));
         boolean isTennis = court.getSportType() == SportType.TENNIS;
         validateTime(court, date, start, end, isTennis, true);
+        guardInterval(courtId, date, start, end);
 
         // Cancel all CONFIRMED and PENDING_APPROVAL bookings in the interval — no penalty
         List<Booking> toCancel = bookingRepository.findOverlapping(courtId, date, start, end,
@@ -707,17 +800,22 @@ public class BookingService {
 
         if (!toNotify.isEmpty()) {
             final String blockNote = (note != null && !note.trim().isEmpty()) ? note : "Blocat de Administrator";
-            final java.util.List<Booking> notifyList = toNotify;
-            taskExecutor.execute(() -> {
-                for (Booking nb : notifyList) {
-                    smsService.sendBlockCancellationNotification(nb, blockNote);
-                }
-            });
+            for (Booking nb : toNotify) {
+                notificationQueue.enqueueSms(smsService.composeBlockCancellationNotification(nb, blockNote),
+                        nb.getId(), "block-cancellation");
+            }
         }
 
         return new BlockResult(saved, toCancel.size(), toNotify.size());
     }
 
+    // Client SMS + admin SMS + email de confirmare, in outbox, in tranzactia rezervarii.
+    private void queueConfirmationNotifications(Booking saved) {
+        notificationQueue.enqueueSms(smsService.composeReservationNotifications(saved), saved.getId(), "customer-confirmation");
+        notificationQueue.enqueueSms(smsService.composeAdminNewBookingNotification(saved), saved.getId(), "admin-new-booking");
+        notificationQueue.enqueueEmail(emailService.composeBookingConfirmation(saved), saved.getId(), "customer-confirmation");
+    }
+
     private void validateTime(Court court, LocalDate date, LocalTime start, LocalTime end, boolean isTennis, boolean adminOverride) {
         if (date == null || start == null || end == null) {
             throw new IllegalArgumentException("Data și intervalul sunt obligatorii.");
@@ -831,6 +929,43 @@ public class BookingService {
         });
     }
 
+    // What an SMS reply needs to know about a booking, resolved inside the transaction
+    // (the inbound SMS handlers run on a background thread, outside any session).
+    public record SmsBooking(Long id, String cancelToken, LocalDate date, LocalTime start, LocalTime end,
+                             String courtName, BookingStatus status, String customerName, String customerPhone) {}
+
+    // Upcoming bookings of one phone number, soonest first. The second half of a
+    // cross-midnight booking is left out: it follows the first one.
+    @Transactional(readOnly = true)
+    public List<SmsBooking> upcomingForPhone(String phone) {
+        LocalDateTime now = LocalDateTime.now();
+        return bookingRepository.findByCustomerPhoneOrderByBookingDateDesc(normalizePhone(phone)).stream()
+                .filter(b -> b.getStatus() == BookingStatus.CONFIRMED || b.getStatus() == BookingStatus.PENDING_APPROVAL)
+                .filter(b -> LocalDateTime.of(b.getBookingDate(), b.getStartTime()).isAfter(now))
+                .filter(b -> b.getCancelToken() == null || !b.getCancelToken().endsWith("-2"))
+                .sorted(java.util.Comparator.comparing(Booking::getBookingDate).thenComparing(Booking::getStartTime))
+                .map(this::toSmsBooking)
+                .toList();
+    }
+
+    // Bookings waiting for the admin's approval, oldest request first.
+    @Transactional(readOnly = true)
+    public List<SmsBooking> pendingApprovals() {
+        LocalDate today = LocalDate.now();
+        return bookingRepository.findByStatus(BookingStatus.PENDING_APPROVAL).stream()
+                .filter(b -> !b.getBookingDate().isBefore(today))
+                .filter(b -> b.getCancelToken() == null || !b.getCancelToken().endsWith("-2"))
+                .sorted(java.util.Comparator.comparing(Booking::getCreatedAt,
+                        java.util.Comparator.nullsFirst(java.util.Comparator.naturalOrder())))
+                .map(this::toSmsBooking)
+                .toList();
+    }
+
+    private SmsBooking toSmsBooking(Booking b) {
+        return new SmsBooking(b.getId(), b.getCancelToken(), b.getBookingDate(), b.getStartTime(), b.getEndTime(),
+                b.getCourt() != null ? b.getCourt().getName() : null, b.getStatus(), b.getCustomerName(), b.getCustomerPhone());
+    }
+
     private String normalizePhone(String phone) {
         if (phone == null) {
             return null;
@@ -1027,6 +1162,7 @@ public class BookingService {
             b.setUpdatedAt(java.time.LocalDateTime.now());
             bookingRepository.save(b);
         });
+        eventPublisher.publishEvent(BookingChangedEvent.bulkRefresh());
     }
 
     @Transactional
@@ -1041,6 +1177,7 @@ public class BookingService {
                 })
                 .collect(java.util.stream.Collectors.toList());
         bookingRepository.deleteAll(toDelete);
+        eventPublisher.publishEvent(BookingChangedEvent.bulkRefresh());
         log.info("[HARD RESET] Deleted {} records for phone={}", toDelete.size(), norm);
     }
 
@@ -1051,21 +1188,8 @@ public class BookingService {
                 .filter(b -> penaltyStatuses.contains(b.getStatus()))
                 .collect(java.util.stream.Collectors.toList());
         bookingRepository.deleteAll(toDelete);
+        eventPublisher.publishEvent(BookingChangedEvent.bulkRefresh());
         log.info("[HARD RESET] Deleted all {} penalty records globally.", toDelete.size());
     }
 
 }
-
-@Configuration
-class SmsTaskConfig {
-    @Bean
-    public org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor smsTaskExecutor() {
-        var exec = new org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor();
-        exec.setCorePoolSize(1);
-        exec.setMaxPoolSize(1);
-        exec.setQueueCapacity(100);
-        exec.setThreadNamePrefix("sms-queue-");
-        exec.initialize();
-        return exec;
-    }
-}
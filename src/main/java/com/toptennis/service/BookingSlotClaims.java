@@ -0,0 +1,146 @@
+package com.toptennis.service;
+
+import com.toptennis.model.Booking;
+import com.toptennis.model.BookingSlot;
+import com.toptennis.model.BookingSlotLegacyOverlap;
+import com.toptennis.model.BookingStatus;
+import com.toptennis.repository.BookingRepository;
+import com.toptennis.repository.BookingSlotLegacyOverlapRepository;
+import com.toptennis.repository.BookingSlotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Keeps booking_slot in step with bookings: an active booking holds one row per 30-minute
+// cell it covers, anything else holds none. Runs before commit for every
+// BookingChangedEvent, so cancellations, restores, no-shows and cross-midnight siblings
+// (each sibling publishes its own event) release or re-take their cells in the same
+// transaction as the status change. A cell already held by another booking fails on
+// uq_booking_slot_cell and the whole transaction rolls back with a
+// DataIntegrityViolationException.
+//
+// The one exception are bookings that already overlapped before V52: the cells the
+// backfill gave to the other booking are listed in booking_slot_legacy_overlap (V59) and
+// are skipped for as long as someone else holds them, so those bookings stay editable.
+@Component
+public class BookingSlotClaims {
+    private static final Logger log = LoggerFactory.getLogger(BookingSlotClaims.class);
+    static final List<BookingStatus> CLAIMING_STATUSES =
+            List.of(BookingStatus.CONFIRMED, BookingStatus.BLOCKED, BookingStatus.PENDING_APPROVAL);
+
+    private final BookingRepository bookingRepository;
+    private final BookingSlotRepository bookingSlotRepository;
+    private final BookingSlotLegacyOverlapRepository legacyOverlapRepository;
+
+    public BookingSlotClaims(BookingRepository bookingRepository, BookingSlotRepository bookingSlotRepository,
+                             BookingSlotLegacyOverlapRepository legacyOverlapRepository) {
+        this.bookingRepository = bookingRepository;
+        this.bookingSlotRepository = bookingSlotRepository;
+        this.legacyOverlapRepository = legacyOverlapRepository;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        if (event.type() == BookingChangedEvent.Type.BULK_REFRESH || event.bookingId() == null) {
+            // Bulk operations only ever cancel or delete bookings.
+            bookingSlotRepository.deleteReleased(CLAIMING_STATUSES);
+            return;
+        }
+        bookingRepository.findById(event.bookingId()).ifPresentOrElse(
+                this::sync,
+                () -> bookingSlotRepository.deleteByBookingId(event.bookingId()));
+    }
+
+    /**
+     * Brings the booking's cells in line with its current status and interval. Also called
+     * directly right after a booking is inserted, so a conflict surfaces before any
+     * confirmation is sent rather than at commit.
+     */
+    public void sync(Booking b) {
+        List<BookingSlot> held = bookingSlotRepository.findByBookingIdOrderBySlotIndexAsc(b.getId());
+        if (!CLAIMING_STATUSES.contains(b.getStatus())) {
+            if (!held.isEmpty()) {
+                bookingSlotRepository.deleteByBookingId(b.getId());
+            }
+            return;
+        }
+        Long courtId = b.getCourt().getId();
+        int from = firstCell(b);
+        int to = endCell(b);
+        Set<Integer> ceded = cededCells(b, courtId);
+        List<Integer> wanted = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            if (!ceded.contains(i)) {
+                wanted.add(i);
+            }
+        }
+        if (holdsExactly(held, courtId, b, wanted)) {
+            return;
+        }
+        if (!held.isEmpty()) {
+            bookingSlotRepository.deleteByBookingId(b.getId());
+        }
+        bookingSlotRepository.deleteReleasedOnDay(courtId, b.getBookingDate(), CLAIMING_STATUSES);
+        List<BookingSlot> cells = new ArrayList<>(wanted.size());
+        for (int i : wanted) {
+            cells.add(new BookingSlot(b.getId(), courtId, b.getBookingDate(), i));
+        }
+        bookingSlotRepository.saveAllAndFlush(cells);
+    }
+
+    // Cells of a pre-V52 overlap that another active booking still holds. Once that one is
+    // cancelled or moved the cell is free and this booking claims it like any other.
+    private Set<Integer> cededCells(Booking b, Long courtId) {
+        List<BookingSlotLegacyOverlap> legacy =
+                legacyOverlapRepository.findByBookingIdAndCourtIdAndSlotDate(b.getId(), courtId, b.getBookingDate());
+        if (legacy.isEmpty()) {
+            return Set.of();
+        }
+        bookingSlotRepository.deleteReleasedOnDay(courtId, b.getBookingDate(), CLAIMING_STATUSES);
+        Set<Integer> ceded = new HashSet<>();
+        for (BookingSlotLegacyOverlap cell : legacy) {
+            if (bookingSlotRepository.existsByCourtIdAndSlotDateAndSlotIndexAndBookingIdNot(
+                    courtId, b.getBookingDate(), cell.getSlotIndex(), b.getId())) {
+                ceded.add(cell.getSlotIndex());
+            }
+        }
+        if (!ceded.isEmpty()) {
+            log.warn("Booking {} overlaps an older booking on court {} {} (cells {}); those cells stay with the other booking.",
+                    b.getId(), courtId, b.getBookingDate(), ceded);
+        }
+        return ceded;
+    }
+
+    private static boolean holdsExactly(List<BookingSlot> held, Long courtId, Booking b, List<Integer> wanted) {
+        if (held.size() != wanted.size()) {
+            return false;
+        }
+        for (int i = 0; i < held.size(); i++) {
+            BookingSlot s = held.get(i);
+            if (s.getSlotIndex() != wanted.get(i) || !s.getCourtId().equals(courtId) || !s.getSlotDate().equals(b.getBookingDate())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Legacy off-grid rows hold every cell they touch (same rule as the V52 backfill).
+    private static int firstCell(Booking b) {
+        return CourtOccupancyIndex.DayOccupancy.toMinutes(b.getStartTime()) / SlotBitmap.SLOT_MINUTES;
+    }
+
+    private static int endCell(Booking b) {
+        int endMinute = CourtOccupancyIndex.DayOccupancy.toMinutes(b.getEndTime());
+        if (SlotBitmap.isAligned(b.getStartTime(), b.getEndTime())) {
+            return SlotBitmap.endSlot(endMinute);
+        }
+        return Math.min(SlotBitmap.SLOTS_PER_DAY, (endMinute + SlotBitmap.SLOT_MINUTES - 1) / SlotBitmap.SLOT_MINUTES);
+    }
+}
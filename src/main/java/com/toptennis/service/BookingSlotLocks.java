@@ -0,0 +1,134 @@
+package com.toptennis.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+
+// In-process alternative to locking the court row (CourtRepository.findWithLockById) while
+// a booking is created. Instead of serializing every booking on a court, a transaction
+// claims only the half-hour slots it is about to book on (court, day); two claims wait
+// for each other only if their SlotBitmap masks overlap. Claims live in a fixed set of
+// stripes (monitor + map) and are released when the surrounding transaction completes,
+// so the overlap check and the insert are covered up to commit.
+//
+// booking.lock-mode: court (default) = court row lock; slot = these claims; none = no
+// lock at all, the booking_slot unique constraint (BookingSlotClaims) is the only guard
+// and a lost race ends in a 409 instead of a wait. booking_slot backs all three modes.
+@Component
+public class BookingSlotLocks {
+    private static final int STRIPES = 64;
+    private static final long CLAIM_TIMEOUT_MS = 10_000;
+
+    private record Key(Long courtId, LocalDate date) {}
+
+    private static final class Stripe {
+        private final Map<Key, Long> claimed = new HashMap<>();
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final String lockMode;
+
+    public BookingSlotLocks(@Value("${booking.lock-mode:court}") String lockMode) {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.lockMode = lockMode == null ? "court" : lockMode.trim().toLowerCase();
+    }
+
+    public boolean locksCourtRow() {
+        return !"slot".equals(lockMode) && !"none".equals(lockMode);
+    }
+
+    public boolean isSlotMode() {
+        return "slot".equals(lockMode);
+    }
+
+    /**
+     * Claims [start, end) on the court's day until the current transaction completes.
+     * Cross-midnight bookings claim the current day first and then the next one, so claims
+     * are always taken in date order and two of them can never wait on each other.
+     * Re-entrant: slots the transaction already claimed (e.g. a takeover claiming the
+     * interval and then creating the new booking through createPublicAdmin) are not
+     * claimed again.
+     */
+    public void claim(Long courtId, LocalDate date, LocalTime start, LocalTime end) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Slot claims must be taken inside a transaction.");
+        }
+        Key key = new Key(courtId, date);
+        Map<Key, Long> mine = heldByTransaction();
+        // Off-grid intervals (should not pass validateTime) conservatively claim the whole day.
+        long wanted = SlotBitmap.isAligned(start, end) ? SlotBitmap.mask(start, end) : SlotBitmap.FULL_DAY;
+        long mask = wanted & ~mine.getOrDefault(key, 0L);
+        if (mask == 0L) {
+            return;
+        }
+        Stripe stripe = stripeOf(key);
+        long deadline = System.currentTimeMillis() + CLAIM_TIMEOUT_MS;
+        synchronized (stripe) {
+            while (SlotBitmap.overlaps(stripe.claimed.getOrDefault(key, 0L), mask)) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Intervalul este în curs de rezervare. Te rugăm să încerci din nou.");
+                }
+                try {
+                    stripe.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for a booking slot.", e);
+                }
+            }
+            stripe.claimed.merge(key, mask, (a, b) -> a | b);
+        }
+        mine.merge(key, mask, (a, b) -> a | b);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                release(key, mask);
+            }
+        });
+    }
+
+    // What the current transaction holds, bound to it like any transaction resource and
+    // unbound when it completes.
+    @SuppressWarnings("unchecked")
+    private Map<Key, Long> heldByTransaction() {
+        Map<Key, Long> held = (Map<Key, Long>) TransactionSynchronizationManager.getResource(this);
+        if (held == null) {
+            Map<Key, Long> fresh = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, fresh);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(BookingSlotLocks.this);
+                }
+            });
+            held = fresh;
+        }
+        return held;
+    }
+
+    private void release(Key key, long mask) {
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            stripe.claimed.computeIfPresent(key, (k, v) -> {
+                long left = v & ~mask;
+                return left == 0L ? null : left;
+            });
+            stripe.notifyAll();
+        }
+    }
+
+    private Stripe stripeOf(Key key) {
+        return stripes[Math.floorMod(key.hashCode(), STRIPES)];
+    }
+}
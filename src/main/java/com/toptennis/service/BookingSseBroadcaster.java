@@ -1,7 +1,16 @@
 package com.toptennis.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.toptennis.dto.AvailabilityDeltaDto;
+import com.toptennis.dto.AvailabilityDto;
+import com.toptennis.model.BookingStatus;
+import com.toptennis.model.Court;
+import com.toptennis.model.SportType;
+import com.toptennis.repository.CourtRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.event.TransactionPhase;
@@ -9,48 +18,391 @@ import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 // Keeps track of open /api/bookings/stream connections and fans out booking
 // change events to all of them. Emitters are only removed here (on
 // completion/timeout/error/send-failure) — never mutated from BookingService.
+//
+// Nothing here writes to a socket on the caller's thread: each subscriber has a
+// bounded queue drained by its own writer (a virtual thread), so the committing
+// transaction only enqueues and a slow client only slows itself down. A queue that
+// overflows is coalesced into a single BULK_REFRESH (the grid refetches anyway);
+// a writer stuck in one send for longer than STALLED_MS is dropped — EventSource
+// reconnects and catches up from its Last-Event-ID.
+//
+// Subscribers say what they look at (sport and/or courts, a date window) and only get
+// events for that. Those with a known set of courts and a window of at most
+// MAX_INDEXED_DAYS sit in an index keyed by (courtId, date), so routing an event is one
+// lookup; the rest (no court list, open-ended window) are checked one by one. BULK_REFRESH
+// goes to everyone. Each event is serialized to JSON once, not once per subscriber.
+//
+// Events go out as AvailabilityDeltaDto: the change plus the court/day row rebuilt after
+// it (anonymous view), numbered by a global sequence that is also the SSE id. Building
+// the row and routing happen on one fan-out thread, in commit order, after
+// CourtOccupancyIndex has dropped the stale day. A client that lost track (reconnect,
+// BULK_REFRESH) reloads from /api/availability/resync and ignores deltas up to its seq.
+//
+// The last REPLAY_CAPACITY events stay in a ring on the fan-out thread. A reconnect
+// carrying Last-Event-ID gets the ones it missed (those matching its filter) before any
+// live event; if the id is older than the ring, or from before a restart, it gets a
+// BULK_REFRESH instead and reloads the grid.
+//
+// The sequence belongs to this instance: the SSE id is "<instanceId>-<seq>", so behind a
+// load balancer a reconnect landing on another instance gets a BULK_REFRESH rather than
+// a replay from someone else's numbering. Changes committed on other instances arrive as
+// RemoteBookingChangedEvent and are fanned out like local ones.
 @Component
 public class BookingSseBroadcaster {
     private static final Logger log = LoggerFactory.getLogger(BookingSseBroadcaster.class);
     private static final long EMITTER_TIMEOUT_MS = 30L * 60 * 1000; // EventSource reconnects natively after timeout
+    private static final int QUEUE_CAPACITY = 32;
+    private static final long STALLED_MS = 30_000;
+    private static final int MAX_INDEXED_DAYS = 31;
+    private static final int MAX_WINDOW_DAYS = 400;
+    private static final int REPLAY_CAPACITY = 1024;
 
-    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    // What a subscriber wants: courtIds null = every court, from/to null = open-ended.
+    public record Filter(Set<Long> courtIds, LocalDate from, LocalDate to) {
+        public static final Filter ALL = new Filter(null, null, null);
 
-    public SseEmitter subscribe() {
+        boolean matches(BookingChangedEvent event) {
+            if (event.courtId() == null || event.bookingDate() == null) {
+                return true;
+            }
+            return (courtIds == null || courtIds.contains(event.courtId()))
+                    && (from == null || !event.bookingDate().isBefore(from))
+                    && (to == null || !event.bookingDate().isAfter(to));
+        }
+
+        boolean indexable() {
+            return courtIds != null && from != null && to != null
+                    && ChronoUnit.DAYS.between(from, to) < MAX_INDEXED_DAYS;
+        }
+    }
+
+    private record Slot(Long courtId, LocalDate date) {}
+
+    // An event kept for replay: the event to match filters against, the frame to resend.
+    private record Sent(BookingChangedEvent event, Frame frame) {}
+
+    // One frame waiting for a subscriber's writer; HEARTBEAT is the keep-alive comment.
+    private record Frame(String name, Object data, long seq) {
+        static final Frame HEARTBEAT = new Frame(null, null, -1);
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Filter filter;
+        private final BlockingQueue<Frame> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+        private volatile long sendingSince;
+        private volatile boolean closed;
+        private Thread writer;
+
+        private Subscriber(SseEmitter emitter, Filter filter) {
+            this.emitter = emitter;
+            this.filter = filter;
+        }
+
+        private void offer(Frame frame) {
+            if (closed || queue.offer(frame)) {
+                return;
+            }
+            // Too far behind: whatever is queued collapses into "reload everything".
+            synchronized (this) {
+                queue.clear();
+                queue.offer(bulkRefreshFrame());
+            }
+            log.debug("SSE subscriber lagging; {} queued events coalesced.", QUEUE_CAPACITY);
+        }
+
+        private void write() {
+            try {
+                while (!closed) {
+                    Frame frame = queue.take();
+                    sendingSince = System.currentTimeMillis();
+                    if (frame == Frame.HEARTBEAT) {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    } else {
+                        emitter.send(SseEmitter.event().id(instanceId + "-" + frame.seq()).name(frame.name()).data(frame.data()));
+                    }
+                    sendingSince = 0;
+                }
+            } catch (InterruptedException e) {
+                // close() or shutdown
+            } catch (IOException | IllegalStateException e) {
+                close(true);
+            }
+        }
+
+        private boolean stalled(long now) {
+            long since = sendingSince;
+            return since != 0 && now - since > STALLED_MS;
+        }
+
+        private void close(boolean complete) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            unregister(this);
+            if (writer != null && Thread.currentThread() != writer) {
+                writer.interrupt();
+            }
+            if (complete) {
+                try {
+                    emitter.complete();
+                } catch (Exception ignored) {
+                    // already gone
+                }
+            }
+        }
+    }
+
+    private final CourtRepository courtRepository;
+    private final AvailabilityService availabilityService;
+    private final ObjectMapper objectMapper;
+    // Boot stamp, as in AvailabilityVersions: tells this instance's sequence from another's
+    // (or from a previous run's).
+    private final String instanceId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final ExecutorService fanOut = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("sse-fanout").factory());
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // Subscribers whose filter is not indexable; checked against every event.
+    private final List<Subscriber> broad = new CopyOnWriteArrayList<>();
+    private final Map<Slot, Set<Subscriber>> index = new ConcurrentHashMap<>();
+    // Only touched on the fan-out thread.
+    private final Deque<Sent> replay = new ArrayDeque<>();
+
+    public BookingSseBroadcaster(CourtRepository courtRepository, AvailabilityService availabilityService, ObjectMapper objectMapper) {
+        this.courtRepository = courtRepository;
+        this.availabilityService = availabilityService;
+        this.objectMapper = objectMapper;
+    }
+
+    /** Sequence of the last event handed to subscribers. */
+    public long currentSeq() {
+        return sequence.get();
+    }
+
+    public String instanceId() {
+        return instanceId;
+    }
+
+    // A sport narrows the courts to that sport's active ones (intersected with courtIds if
+    // both are given).
+    public Filter filter(SportType sportType, Collection<Long> courtIds, LocalDate from, LocalDate to) {
+        if (from != null && to != null) {
+            if (to.isBefore(from)) {
+                throw new IllegalArgumentException("Intervalul de date este invalid.");
+            }
+            if (ChronoUnit.DAYS.between(from, to) > MAX_WINDOW_DAYS) {
+                throw new IllegalArgumentException("Intervalul de date este prea mare (maxim " + MAX_WINDOW_DAYS + " zile).");
+            }
+        }
+        Set<Long> courts = courtIds == null || courtIds.isEmpty() ? null : new HashSet<>(courtIds);
+        if (sportType != null) {
+            Set<Long> ofSport = new HashSet<>();
+            for (Court c : courtRepository.findBySportTypeAndActiveTrueOrderByIdAsc(sportType)) {
+                ofSport.add(c.getId());
+            }
+            if (courts != null) {
+                ofSport.retainAll(courts);
+            }
+            courts = ofSport;
+        }
+        if (courts == null && from == null && to == null) {
+            return Filter.ALL;
+        }
+        return new Filter(courts == null ? null : Set.copyOf(courts), from, to);
+    }
+
+    /** `lastEventId`: the Last-Event-ID of a reconnecting EventSource, null for a new one. */
+    public SseEmitter subscribe(Filter filter, String lastEventId) {
         SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
-        emitters.add(emitter);
+        Subscriber subscriber = new Subscriber(emitter, filter);
+
+        emitter.onCompletion(() -> subscriber.close(false));
+        emitter.onTimeout(() -> subscriber.close(true));
+        emitter.onError(e -> subscriber.close(false));
 
-        emitter.onCompletion(() -> emitters.remove(emitter));
-        emitter.onTimeout(() -> {
-            emitter.complete();
-            emitters.remove(emitter);
+        subscriber.writer = Thread.ofVirtual().name("sse-writer").unstarted(subscriber::write);
+        subscriber.writer.start();
+        // On the fan-out thread, so nothing published in between is missed or sent twice.
+        fanOut.execute(() -> {
+            subscriber.offer(new Frame("CONNECTED", "ok", sequence.get()));
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                replayTo(subscriber, lastEventId.trim());
+            }
+            register(subscriber);
+            if (subscriber.closed) {
+                // Gone while we were replaying; close() found nothing to remove yet.
+                unregister(subscriber);
+            }
         });
-        emitter.onError(e -> emitters.remove(emitter));
+        return emitter;
+    }
 
-        try {
-            emitter.send(SseEmitter.event().name("CONNECTED").data("ok"));
-        } catch (IOException e) {
-            emitters.remove(emitter);
+    private void replayTo(Subscriber subscriber, String lastEventIdHeader) {
+        String prefix = instanceId + "-";
+        String seqPart = lastEventIdHeader.startsWith(prefix) ? lastEventIdHeader.substring(prefix.length()) : "";
+        if (!seqPart.matches("\\d{1,18}")) {
+            log.debug("SSE reconnect with Last-Event-ID {} from another instance; sending BULK_REFRESH.", lastEventIdHeader);
+            subscriber.offer(bulkRefreshFrame());
+            return;
+        }
+        long lastEventId = Long.parseLong(seqPart);
+        long current = sequence.get();
+        if (lastEventId == current) {
+            return;
+        }
+        long oldest = replay.isEmpty() ? current + 1 : replay.peekFirst().frame().seq();
+        if (lastEventId > current || lastEventId < oldest - 1) {
+            log.debug("SSE reconnect from event {} outside the replay window ({}..{}); sending BULK_REFRESH.",
+                    lastEventId, oldest, current);
+            subscriber.offer(bulkRefreshFrame());
+            return;
+        }
+        for (Sent sent : replay) {
+            if (sent.frame().seq() > lastEventId && subscriber.filter.matches(sent.event())) {
+                subscriber.offer(sent.frame());
+            }
+        }
+    }
+
+    private void register(Subscriber subscriber) {
+        subscribers.add(subscriber);
+        Filter f = subscriber.filter;
+        if (!f.indexable()) {
+            broad.add(subscriber);
+            return;
+        }
+        for (Long courtId : f.courtIds()) {
+            for (LocalDate d = f.from(); !d.isAfter(f.to()); d = d.plusDays(1)) {
+                index.computeIfAbsent(new Slot(courtId, d), k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+            }
+        }
+    }
+
+    private void unregister(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+        Filter f = subscriber.filter;
+        if (!f.indexable()) {
+            broad.remove(subscriber);
+            return;
+        }
+        for (Long courtId : f.courtIds()) {
+            for (LocalDate d = f.from(); !d.isAfter(f.to()); d = d.plusDays(1)) {
+                index.computeIfPresent(new Slot(courtId, d), (k, set) -> {
+                    set.remove(subscriber);
+                    return set.isEmpty() ? null : set;
+                });
+            }
         }
-        return emitter;
     }
 
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
     public void onBookingChanged(BookingChangedEvent event) {
-        for (SseEmitter emitter : emitters) {
-            try {
-                emitter.send(SseEmitter.event().name(event.type().name()).data(event));
-            } catch (IOException | IllegalStateException e) {
-                emitter.complete();
-                emitters.remove(emitter);
+        fanOut.execute(() -> publish(event));
+    }
+
+    @EventListener
+    public void onRemoteBookingChanged(RemoteBookingChangedEvent remote) {
+        onBookingChanged(remote.event());
+    }
+
+    private void publish(BookingChangedEvent event) {
+        long seq = sequence.incrementAndGet();
+        Frame frame = new Frame(event.type().name(), toJson(delta(event, seq)), seq);
+        replay.addLast(new Sent(event, frame));
+        if (replay.size() > REPLAY_CAPACITY) {
+            replay.pollFirst();
+        }
+        for (Subscriber subscriber : route(event)) {
+            subscriber.offer(frame);
+        }
+    }
+
+    private AvailabilityDeltaDto delta(BookingChangedEvent event, long seq) {
+        AvailabilityDeltaDto delta = new AvailabilityDeltaDto();
+        delta.seq = seq;
+        delta.instance = instanceId;
+        delta.type = event.type().name();
+        delta.bookingId = event.bookingId();
+        delta.courtId = event.courtId();
+        delta.bookingDate = event.bookingDate();
+        delta.startTime = event.startTime();
+        delta.endTime = event.endTime();
+        delta.status = event.status() != null ? event.status().name() : null;
+        if (event.courtId() == null || event.bookingDate() == null || event.startTime() == null) {
+            return delta;
+        }
+        try {
+            delta.court = availabilityService.getCourtDay(event.courtId(), event.bookingDate(), AvailabilityService.Viewer.ANONYMOUS);
+        } catch (Exception e) {
+            // No row: clients fall back to a refetch, as before deltas existed.
+            log.warn("Could not build SSE delta for court {} on {}: {}", event.courtId(), event.bookingDate(), e.getMessage());
+            return delta;
+        }
+        String start = CourtOccupancyIndex.DayOccupancy.formatMinutes(CourtOccupancyIndex.DayOccupancy.toMinutes(event.startTime()));
+        if (event.status() != BookingStatus.CANCELLED) {
+            for (AvailabilityDto.TimeRangeDto range : delta.court.booked) {
+                if (range.start.equals(start)) {
+                    delta.booked = range;
+                }
             }
         }
+        if (delta.booked == null && event.endTime() != null) {
+            AvailabilityDto.TimeRangeDto freed = new AvailabilityDto.TimeRangeDto();
+            freed.start = start;
+            freed.end = CourtOccupancyIndex.DayOccupancy.formatMinutes(CourtOccupancyIndex.DayOccupancy.toMinutes(event.endTime()));
+            freed.status = "FREE";
+            delta.freed = freed;
+        }
+        return delta;
+    }
+
+    private Frame bulkRefreshFrame() {
+        long seq = sequence.get();
+        return new Frame(BookingChangedEvent.Type.BULK_REFRESH.name(), toJson(delta(BookingChangedEvent.bulkRefresh(), seq)), seq);
+    }
+
+    private List<Subscriber> route(BookingChangedEvent event) {
+        if (event.courtId() == null || event.bookingDate() == null) {
+            return subscribers;
+        }
+        List<Subscriber> targets = new ArrayList<>(index.getOrDefault(new Slot(event.courtId(), event.bookingDate()), Set.of()));
+        for (Subscriber subscriber : broad) {
+            if (subscriber.filter.matches(event)) {
+                targets.add(subscriber);
+            }
+        }
+        return targets;
+    }
+
+    private Object toJson(AvailabilityDeltaDto delta) {
+        try {
+            return objectMapper.writeValueAsString(delta);
+        } catch (JsonProcessingException e) {
+            // Let each emitter's converter have a go instead.
+            return delta;
+        }
     }
 
     // Fara asta, o conexiune fara evenimente de rezervare o perioada lunga poate fi
@@ -58,12 +410,14 @@ public class BookingSseBroadcaster {
     // proxy_read_timeout), iar aplicatia nu ar afla decat la urmatorul send() esuat.
     @Scheduled(fixedRate = 15000)
     public void sendHeartbeat() {
-        for (SseEmitter emitter : emitters) {
-            try {
-                emitter.send(SseEmitter.event().comment("keep-alive"));
-            } catch (IOException | IllegalStateException e) {
-                emitter.complete();
-                emitters.remove(emitter);
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.stalled(now)) {
+                log.debug("SSE subscriber stuck in a send for over {} ms; dropped.", STALLED_MS);
+                // complete() could block behind the stuck write; do it off this thread.
+                Thread.ofVirtual().start(() -> subscriber.close(true));
+            } else if (subscriber.queue.isEmpty()) {
+                subscriber.offer(Frame.HEARTBEAT);
             }
         }
     }
@@ -0,0 +1,243 @@
+package com.toptennis.service;
+
+import com.toptennis.model.Booking;
+import com.toptennis.model.BookingStatus;
+import com.toptennis.model.Court;
+import com.toptennis.model.SportType;
+import com.toptennis.repository.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Resident per-(court, day) occupancy snapshot behind /api/availability. The grid is
+// polled by every open browser, so instead of one booking query per court per refresh
+// an entry is loaded once from BookingRepository and then served from memory until a
+// BookingChangedEvent for that court/day drops it. Entries hold only what the grid
+// needs, in parallel primitive arrays, never the JPA entities themselves.
+@Component
+public class CourtOccupancyIndex {
+    private static final Logger log = LoggerFactory.getLogger(CourtOccupancyIndex.class);
+    private static final ZoneId ZONE = ZoneId.of("Europe/Bucharest");
+
+    public record Key(Long courtId, LocalDate date) {}
+
+    private final BookingRepository bookingRepository;
+    private final Map<Key, DayOccupancy> entries = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation. A load that started before a bump may have read
+    // pre-commit rows, so it is not allowed to stay in the index (see get()).
+    private final AtomicLong epoch = new AtomicLong();
+
+    public CourtOccupancyIndex(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    public DayOccupancy get(Long courtId, LocalDate date) {
+        Key key = new Key(courtId, date);
+        DayOccupancy cached = entries.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = epoch.get();
+        DayOccupancy loaded = DayOccupancy.of(bookingRepository.findByCourtIdAndBookingDateOrderByStartTimeAsc(courtId, date));
+        store(key, loaded, seen);
+        return loaded;
+    }
+
+    // Grid path: whatever is missing for the given courts is filled from one batched
+    // query for the whole day/sport instead of one query per court.
+    public Map<Long, DayOccupancy> getAll(List<Court> courts, LocalDate date, SportType sportType) {
+        Map<Long, DayOccupancy> result = new HashMap<>();
+        boolean missing = false;
+        for (Court court : courts) {
+            DayOccupancy cached = entries.get(new Key(court.getId(), date));
+            if (cached != null) {
+                result.put(court.getId(), cached);
+            } else {
+                missing = true;
+            }
+        }
+        if (!missing) {
+            return result;
+        }
+        long seen = epoch.get();
+        Map<Long, List<Booking>> byCourt = bookingRepository.findActiveByDateAndSportType(date, sportType).stream()
+                .collect(Collectors.groupingBy(b -> b.getCourt().getId()));
+        for (Court court : courts) {
+            if (result.containsKey(court.getId())) {
+                continue;
+            }
+            DayOccupancy loaded = DayOccupancy.of(byCourt.getOrDefault(court.getId(), List.of()));
+            store(new Key(court.getId(), date), loaded, seen);
+            result.put(court.getId(), loaded);
+        }
+        return result;
+    }
+
+    // Range path (/api/availability/range): every (court, day) missing from the index is
+    // filled from a single query, spanning only from the first to the last missing day.
+    public Map<Key, DayOccupancy> getRange(List<Court> courts, LocalDate from, LocalDate to, SportType sportType) {
+        Map<Key, DayOccupancy> result = new HashMap<>();
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            for (Court court : courts) {
+                Key key = new Key(court.getId(), date);
+                DayOccupancy cached = entries.get(key);
+                if (cached != null) {
+                    result.put(key, cached);
+                } else {
+                    if (firstMissing == null) {
+                        firstMissing = date;
+                    }
+                    lastMissing = date;
+                }
+            }
+        }
+        if (firstMissing == null) {
+            return result;
+        }
+        long seen = epoch.get();
+        Map<Key, List<Booking>> byKey = bookingRepository.findActiveBetweenDatesAndSportType(firstMissing, lastMissing, sportType).stream()
+                .collect(Collectors.groupingBy(b -> new Key(b.getCourt().getId(), b.getBookingDate())));
+        for (LocalDate date = firstMissing; !date.isAfter(lastMissing); date = date.plusDays(1)) {
+            for (Court court : courts) {
+                Key key = new Key(court.getId(), date);
+                if (result.containsKey(key)) {
+                    continue;
+                }
+                DayOccupancy loaded = DayOccupancy.of(byKey.getOrDefault(key, List.of()));
+                store(key, loaded, seen);
+                result.put(key, loaded);
+            }
+        }
+        return result;
+    }
+
+    // Invalidation always bumps the epoch before removing, so re-checking it after the
+    // put is enough: either the removal ran after our put, or we see the new epoch here.
+    private void store(Key key, DayOccupancy loaded, long seenEpoch) {
+        entries.putIfAbsent(key, loaded);
+        if (epoch.get() != seenEpoch) {
+            entries.remove(key, loaded);
+        }
+    }
+
+    // Same invalidation for a change committed on another instance (BookingEventRelay).
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener
+    public void onRemoteBookingChanged(RemoteBookingChangedEvent remote) {
+        onBookingChanged(remote.event());
+    }
+
+    // First among the after-commit listeners: AvailabilityVersions bumps its ETag version
+    // only once the stale entry is gone.
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        epoch.incrementAndGet();
+        if (event.type() == BookingChangedEvent.Type.BULK_REFRESH || event.courtId() == null || event.bookingDate() == null) {
+            entries.clear();
+            return;
+        }
+        entries.remove(new Key(event.courtId(), event.bookingDate()));
+    }
+
+    // Past days are never polled again; drop them once a night so the index only
+    // covers today and the days people are still browsing.
+    @Scheduled(cron = "0 5 0 * * *", zone = "Europe/Bucharest")
+    public void purgePastDays() {
+        LocalDate today = LocalDate.now(ZONE);
+        int before = entries.size();
+        entries.keySet().removeIf(k -> k.date().isBefore(today));
+        log.info("Occupancy index purge: {} -> {} entries.", before, entries.size());
+    }
+
+    /**
+     * Non-cancelled bookings of one court on one day, ordered by start time. Times are
+     * minutes since midnight; the 23:59 end-of-day marker is kept as 1439 so it renders
+     * back exactly as before.
+     */
+    public static final class DayOccupancy {
+        private final int[] startMin;
+        private final int[] endMin;
+        private final long[] bookingIds;
+        private final BookingStatus[] statuses;
+        private final String[] customerNames;
+        private final Long[] playerUserIds;
+        private final Integer[] playerMatchesCounts;
+        // SlotBitmap of the whole day; only meaningful when aligned is true.
+        private long occupiedMask;
+        private boolean aligned = true;
+
+        private DayOccupancy(int size) {
+            this.startMin = new int[size];
+            this.endMin = new int[size];
+            this.bookingIds = new long[size];
+            this.statuses = new BookingStatus[size];
+            this.customerNames = new String[size];
+            this.playerUserIds = new Long[size];
+            this.playerMatchesCounts = new Integer[size];
+        }
+
+        static DayOccupancy of(List<Booking> bookings) {
+            List<Booking> active = bookings.stream()
+                    .filter(b -> b.getStatus() != BookingStatus.CANCELLED)
+                    .toList();
+            DayOccupancy d = new DayOccupancy(active.size());
+            for (int i = 0; i < active.size(); i++) {
+                Booking b = active.get(i);
+                d.startMin[i] = toMinutes(b.getStartTime());
+                d.endMin[i] = toMinutes(b.getEndTime());
+                if (SlotBitmap.isAligned(b.getStartTime(), b.getEndTime())) {
+                    d.occupiedMask |= SlotBitmap.mask(d.startMin[i], d.endMin[i]);
+                } else {
+                    d.aligned = false;
+                }
+                d.bookingIds[i] = b.getId();
+                d.statuses[i] = b.getStatus();
+                d.customerNames[i] = b.getCustomerName();
+                if (b.getPlayerUser() != null) {
+                    d.playerUserIds[i] = b.getPlayerUser().getId();
+                    d.playerMatchesCounts[i] = b.getPlayerUser().getMatchesPlayed();
+                }
+            }
+            return d;
+        }
+
+        public int size() { return startMin.length; }
+        public int startMinute(int i) { return startMin[i]; }
+        public int endMinute(int i) { return endMin[i]; }
+        public long bookingId(int i) { return bookingIds[i]; }
+        public BookingStatus status(int i) { return statuses[i]; }
+        public String customerName(int i) { return customerNames[i]; }
+        public Long playerUserId(int i) { return playerUserIds[i]; }
+        public Integer playerMatchesCount(int i) { return playerMatchesCounts[i]; }
+        public boolean isAligned() { return aligned; }
+        public long occupiedMask() { return occupiedMask; }
+
+        public static int toMinutes(LocalTime t) {
+            return t.getHour() * 60 + t.getMinute();
+        }
+
+        public static String formatMinutes(int minutes) {
+            return LocalTime.of(minutes / 60, minutes % 60).toString();
+        }
+    }
+}
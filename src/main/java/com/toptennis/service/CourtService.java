@@ -3,6 +3,7 @@ package com.toptennis.service;
 import com.toptennis.model.Court;
 import com.toptennis.model.SportType;
 import com.toptennis.repository.CourtRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -18,9 +19,11 @@ public class CourtService {
     private static final LocalTime PADEL_OUTDOOR_MORNING_END = LocalTime.of(14, 0);
 
     private final CourtRepository courtRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CourtService(CourtRepository courtRepository) {
+    public CourtService(CourtRepository courtRepository, ApplicationEventPublisher eventPublisher) {
         this.courtRepository = courtRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<Court> listActive(SportType sportType) {
@@ -87,7 +90,11 @@ public class CourtService {
         if (nightRateStartTime != null) court.setNightRateStartTime(nightRateStartTime);
         if (morningPrice != null) court.setMorningPrice(morningPrice);
         if (nightRateEndTime != null) court.setNightRateEndTime(nightRateEndTime);
-        return courtRepository.save(court);
+        Court saved = courtRepository.save(court);
+        // Hours and prices are part of every availability grid of this court, so cached
+        // grids (and their ETags) must not survive the change.
+        eventPublisher.publishEvent(BookingChangedEvent.bulkRefresh());
+        return saved;
     }
 }
 
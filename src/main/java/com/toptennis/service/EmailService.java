@@ -1,6 +1,7 @@
 package com.toptennis.service;
 
 import com.toptennis.model.Booking;
+import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,6 +9,7 @@ import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
+import java.io.UnsupportedEncodingException;
 import java.time.format.DateTimeFormatter;
 
 @Service
@@ -25,28 +27,42 @@ public class EmailService {
         this.mailSender = mailSender;
     }
 
-    public void sendBookingConfirmation(Booking booking) {
+    // A rendered HTML email, ready to be queued in the notification outbox.
+    public record OutgoingEmail(String to, String subject, String html) {}
+
+    /** Confirmarea rezervarii, gata de trimis; null daca clientul nu are email. */
+    public OutgoingEmail composeBookingConfirmation(Booking booking) {
         if (booking.getCustomerEmail() == null || booking.getCustomerEmail().isBlank()) {
-            return;
+            return null;
         }
+        return new OutgoingEmail(booking.getCustomerEmail(), "Confirmare Rezervare - Star Arena Bascov", buildBookingHtml(booking));
+    }
 
+    public void sendBookingConfirmation(Booking booking) {
+        OutgoingEmail email = composeBookingConfirmation(booking);
+        if (email == null) {
+            return;
+        }
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+            deliverHtml(email.to(), email.subject(), email.html());
+        } catch (Exception e) {
+            log.error("Eroare la trimiterea email-ului către {}: {}", email.to(), e.getMessage());
+        }
+    }
 
-            // Set personal name for a more professional look
-            helper.setFrom(FROM_EMAIL, "Star Arena");
-            helper.setTo(booking.getCustomerEmail());
-            helper.setSubject("Confirmare Rezervare - Star Arena Bascov");
+    /** Trimite un email HTML; spre deosebire de sendEmail, erorile ajung la apelant (outbox-ul reincearca). */
+    public void deliverHtml(String to, String subject, String html) throws MessagingException, UnsupportedEncodingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
 
-            String htmlContent = buildBookingHtml(booking);
-            helper.setText(htmlContent, true);
+        // Set personal name for a more professional look
+        helper.setFrom(FROM_EMAIL, "Star Arena");
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(html, true);
 
-            mailSender.send(message);
-            log.info("Email de confirmare trimis către: {}", booking.getCustomerEmail());
-        } catch (Exception e) {
-            log.error("Eroare la trimiterea email-ului către {}: {}", booking.getCustomerEmail(), e.getMessage());
-        }
+        mailSender.send(message);
+        log.info("Email trimis către: {} ({})", to, subject);
     }
 
     public void sendEmail(String to, String subject, String text) {
@@ -0,0 +1,34 @@
+package com.toptennis.service;
+
+import com.toptennis.sms.InboundSms;
+
+import java.text.Normalizer;
+
+// One link of the inbound SMS chain (InboundSmsPipeline). Handlers are asked in @Order
+// order; the first one that returns true owns the message.
+public interface InboundSmsHandler {
+
+    boolean handle(InboundSms sms);
+
+    // Upper case, no diacritics, single spaces: "  anulează  18:00" -> "ANULEAZA 18:00".
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return folded.trim().replaceAll("\\s+", " ").toUpperCase();
+    }
+
+    // Same number whatever the format (+40722..., 0722..., 40722...): last 9 digits.
+    static boolean samePhone(String a, String b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        String da = a.replaceAll("\\D", "");
+        String db = b.replaceAll("\\D", "");
+        if (da.length() < 9 || db.length() < 9) {
+            return da.equals(db);
+        }
+        return da.substring(da.length() - 9).equals(db.substring(db.length() - 9));
+    }
+}
@@ -0,0 +1,266 @@
+package com.toptennis.service;
+
+import com.toptennis.config.SmsProperties;
+import com.toptennis.sms.AtSerialClient;
+import com.toptennis.sms.InboundSms;
+import com.toptennis.sms.ModemPool;
+import com.toptennis.sms.SmsLane;
+import com.toptennis.sms.SmsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// SMS coming in on the modems. The session routes new messages to the SIM and announces
+// them with +CMTI: "SM",<index>; this worker then reads the slot (AT+CMGR), deletes it
+// (AT+CMGD) and passes the message down the InboundSmsHandler chain.
+//
+// The modem is borrowed from ModemPool like for a send (CUSTOMER lane), only for the
+// read and the delete, so inbound traffic takes its turn between outgoing messages and
+// the handlers (DB work, replies through the outbox) run with the modem already back in
+// the pool. At start, and every DRAIN_INTERVAL_MS as a safety net for a lost +CMTI,
+// everything stored on each modem is listed (AT+CMGL) and handled the same way.
+//
+// A message is deleted before it is handled: at-most-once, a crash in between loses it
+// rather than repeating a cancellation. One the modem refuses to delete is not handled at
+// all and stays on the SIM for a later drain. Long messages arrive as parts and are put back
+// together in memory; parts still missing after PARTS_TTL_MS are handled as they are.
+@Component
+public class InboundSmsPipeline implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(InboundSmsPipeline.class);
+    private static final Pattern CMTI = Pattern.compile("\\+CMTI:\\s*\"?[A-Z]*\"?,\\s*(\\d+)");
+    private static final long DRAIN_INTERVAL_MS = 10 * 60_000;
+    private static final long PARTS_TTL_MS = 30 * 60_000;
+
+    // A slot announced by +CMTI.
+    private record Work(AtSerialClient client, int index) {}
+
+    private static final class Pending {
+        private final long firstSeen = System.currentTimeMillis();
+        private final Map<Integer, InboundSms> parts = new TreeMap<>();
+    }
+
+    private final ModemPool modemPool;
+    private final SmsService smsService;
+    private final SmsProperties props;
+    private final List<InboundSmsHandler> handlers;
+    private final BlockingQueue<Work> work = new LinkedBlockingQueue<>();
+    private final Map<String, Pending> incomplete = new HashMap<>();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public InboundSmsPipeline(ModemPool modemPool, SmsService smsService, SmsProperties props, List<InboundSmsHandler> handlers) {
+        this.modemPool = modemPool;
+        this.smsService = smsService;
+        this.props = props;
+        this.handlers = handlers;
+        for (AtSerialClient client : modemPool.clients()) {
+            client.addUrcListener((line, continuation) -> onUrc(client, line));
+        }
+    }
+
+    private void onUrc(AtSerialClient client, String line) {
+        Matcher m = CMTI.matcher(line);
+        if (m.find()) {
+            work.add(new Work(client, Integer.parseInt(m.group(1))));
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running || "mock".equalsIgnoreCase(props.getMode())) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::loop, "sms-inbound");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void loop() {
+        drainAll();
+        while (running) {
+            try {
+                Work next = work.poll(DRAIN_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (next == null) {
+                    drainAll();
+                } else {
+                    readOne(next.client(), next.index());
+                }
+                flushExpiredParts();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Modem gone or DB down: the message stays on the SIM for the next drain.
+                log.warn("Inbound SMS pass failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void drainAll() {
+        for (AtSerialClient client : modemPool.clients()) {
+            try {
+                drain(client);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Could not read stored SMS on modem {}: {}", client.portName(), e.getMessage());
+            }
+        }
+    }
+
+    private void drain(AtSerialClient client) throws InterruptedException {
+        List<InboundSms> stored;
+        ModemPool.Modem modem = borrow(client);
+        if (modem == null) {
+            return;
+        }
+        try {
+            stored = smsService.listStored(client);
+        } finally {
+            modemPool.release(modem);
+        }
+        if (!stored.isEmpty()) {
+            log.info("Read {} stored SMS from modem {}.", stored.size(), client.portName());
+        }
+        // One message at a time, handled right after its own delete: a delete failing
+        // further down the list leaves the rest on the SIM, not the earlier ones unhandled.
+        for (InboundSms sms : stored) {
+            modem = borrow(client);
+            if (modem == null) {
+                return;
+            }
+            boolean deleted;
+            try {
+                deleted = smsService.deleteStored(client, sms.index());
+            } finally {
+                modemPool.release(modem);
+            }
+            if (deleted) {
+                accept(sms);
+            } else {
+                logNotDeleted(client, sms.index());
+            }
+        }
+    }
+
+    private void readOne(AtSerialClient client, int index) throws InterruptedException {
+        InboundSms sms;
+        boolean deleted = false;
+        ModemPool.Modem modem = borrow(client);
+        if (modem == null) {
+            // Modem busy or failing; the message is picked up by the next drain.
+            return;
+        }
+        try {
+            sms = smsService.readStored(client, index);
+            if (sms != null) {
+                deleted = smsService.deleteStored(client, index);
+            }
+        } finally {
+            modemPool.release(modem);
+        }
+        if (sms == null) {
+            return;
+        }
+        if (deleted) {
+            accept(sms);
+        } else {
+            logNotDeleted(client, index);
+        }
+    }
+
+    // Handling it anyway would repeat the command on every drain while it stays stored.
+    private void logNotDeleted(AtSerialClient client, int index) {
+        log.warn("Could not delete SMS in slot {} on modem {}; left for the next drain.", index, client.portName());
+    }
+
+    private ModemPool.Modem borrow(AtSerialClient client) throws InterruptedException {
+        return modemPool.acquire(client, SmsLane.CUSTOMER, Duration.ofMillis(props.getSendTimeoutMs() * 2));
+    }
+
+    private void accept(InboundSms sms) {
+        if (sms.from() == null || sms.text() == null) {
+            log.warn("Unreadable SMS removed from modem {} slot {}.", sms.modem(), sms.index());
+            return;
+        }
+        if (sms.parts() <= 1) {
+            dispatch(sms);
+            return;
+        }
+        String key = sms.from() + "#" + sms.concatRef();
+        Pending pending = incomplete.computeIfAbsent(key, k -> new Pending());
+        pending.parts.put(sms.part(), sms);
+        if (pending.parts.size() >= sms.parts()) {
+            incomplete.remove(key);
+            dispatch(join(pending.parts.values()));
+        }
+    }
+
+    private void flushExpiredParts() {
+        long cutoff = System.currentTimeMillis() - PARTS_TTL_MS;
+        for (Iterator<Pending> it = incomplete.values().iterator(); it.hasNext(); ) {
+            Pending pending = it.next();
+            if (pending.firstSeen < cutoff) {
+                it.remove();
+                log.warn("SMS parts never completed; handling the {} received.", pending.parts.size());
+                dispatch(join(pending.parts.values()));
+            }
+        }
+    }
+
+    private static InboundSms join(Collection<InboundSms> parts) {
+        List<InboundSms> ordered = new ArrayList<>(parts);
+        StringBuilder text = new StringBuilder();
+        for (InboundSms part : ordered) {
+            text.append(part.text());
+        }
+        return ordered.get(0).withText(text.toString());
+    }
+
+    private void dispatch(InboundSms sms) {
+        log.info("SMS received from {} on {}: {}", sms.from(), sms.modem(), sms.text());
+        for (InboundSmsHandler handler : handlers) {
+            try {
+                if (handler.handle(sms)) {
+                    return;
+                }
+            } catch (Exception e) {
+                log.warn("{} failed on SMS from {}: {}", handler.getClass().getSimpleName(), sms.from(), e.getMessage());
+                return;
+            }
+        }
+        log.info("SMS from {} not handled (no matching command).", sms.from());
+    }
+}
@@ -0,0 +1,51 @@
+package com.toptennis.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// In-JVM bus (booking.event-bus=local). With one application context the other
+// instances are nobody and publish() does nothing; several contexts started in the same
+// JVM (an integration test playing two nodes) see each other's events, delivered in
+// order on the receiving bus's own thread.
+@Component
+@ConditionalOnProperty(name = "booking.event-bus", havingValue = "local", matchIfMissing = true)
+public class LocalBookingEventBus implements BookingEventBus {
+    private static final List<LocalBookingEventBus> BUSES = new CopyOnWriteArrayList<>();
+
+    private final List<Consumer<BookingChangedEvent>> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService delivery = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("booking-event-bus").factory());
+
+    public LocalBookingEventBus() {
+        BUSES.add(this);
+    }
+
+    @Override
+    public void publish(BookingChangedEvent event) {
+        for (LocalBookingEventBus other : BUSES) {
+            if (other != this) {
+                other.deliver(event);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<BookingChangedEvent> listener) {
+        listeners.add(listener);
+    }
+
+    private void deliver(BookingChangedEvent event) {
+        delivery.execute(() -> listeners.forEach(l -> l.accept(event)));
+    }
+
+    @jakarta.annotation.PreDestroy
+    void close() {
+        BUSES.remove(this);
+        delivery.shutdown();
+    }
+}
@@ -0,0 +1,267 @@
+package com.toptennis.service;
+
+import com.toptennis.config.SmsProperties;
+import com.toptennis.dto.SmsSendResult;
+import com.toptennis.model.NotificationChannel;
+import com.toptennis.model.NotificationOutbox;
+import com.toptennis.model.NotificationStatus;
+import com.toptennis.repository.NotificationOutboxRepository;
+import com.toptennis.sms.OutgoingSms;
+import com.toptennis.sms.SmsLane;
+import com.toptennis.sms.SmsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Drains notification_outbox on its own thread: woken right after a transaction that
+// queued something commits, and every few seconds anyway for retries and for rows left
+// over from a previous run. A failed send is retried with exponential backoff; after
+// MAX_ATTEMPTS the row is marked DEAD and stays in the table for inspection. SENT rows
+// are removed every night once they are KEEP_DAYS old.
+//
+// Admin SMS (held back by NotificationQueue for the digest window) are folded into one
+// summary per number: when any of them is due, everything still pending for that number
+// goes out as a single message and every row shares its outcome.
+//
+// Several instances may share the database: each row is claimed (claimed_until, for
+// CLAIM_LEASE_SECONDS) before it is sent, and only if no other dispatcher holds it, so one
+// instance sends it. Delivery is at-least-once: after a crash between the send and the
+// SENT update the claim runs out and the row goes out again.
+@Component
+public class NotificationDispatcher implements SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private static final int BATCH_SIZE = 20;
+    private static final long POLL_INTERVAL_MS = 5_000;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long BASE_BACKOFF_SECONDS = 30;
+    private static final long MAX_BACKOFF_SECONDS = 30 * 60;
+    private static final int MAX_DIGEST_ROWS = 50;
+    private static final long CLAIM_LEASE_SECONDS = 10 * 60;
+    private static final int KEEP_DAYS = 30;
+
+    // One SMS to send and the outbox rows it covers (several for an admin digest).
+    private record SmsUnit(List<NotificationOutbox> rows, OutgoingSms message) {}
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final SmsService smsService;
+    private final EmailService emailService;
+    private final SmsProperties.AdminDigest adminDigest;
+    private final Semaphore wakeUp = new Semaphore(0);
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public NotificationDispatcher(NotificationOutboxRepository outboxRepository, SmsService smsService, EmailService emailService,
+                                  SmsProperties smsProperties) {
+        this.outboxRepository = outboxRepository;
+        this.smsService = smsService;
+        this.emailService = emailService;
+        this.adminDigest = smsProperties.getAdminDigest();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onQueued(NotificationQueue.Queued event) {
+        wakeUp.release();
+    }
+
+    @Scheduled(cron = "0 40 3 * * *", zone = "Europe/Bucharest")
+    public void purgeSent() {
+        int removed = outboxRepository.deleteSentBefore(NotificationStatus.SENT, LocalDateTime.now().minusDays(KEEP_DAYS));
+        if (removed > 0) {
+            log.info("Removed {} sent notifications older than {} days.", removed, KEEP_DAYS);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::loop, "notification-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void loop() {
+        while (running) {
+            try {
+                wakeUp.tryAcquire(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                wakeUp.drainPermits();
+                drain();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // DB down or similar: log and try again on the next tick.
+                log.warn("Notification dispatcher pass failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void drain() {
+        while (running) {
+            List<NotificationOutbox> due = outboxRepository.findDue(NotificationStatus.PENDING, LocalDateTime.now(),
+                    PageRequest.of(0, BATCH_SIZE));
+            if (due.isEmpty()) {
+                return;
+            }
+            int found = due.size();
+            due = due.stream().filter(this::claim).toList();
+            // All SMS of the pass go to the modem as one batch (configured once, back-to-back
+            // AT+CMGS), highest lane first; emails one by one.
+            List<NotificationOutbox> sms = new ArrayList<>();
+            for (NotificationOutbox row : due) {
+                if (row.getChannel() == NotificationChannel.SMS) {
+                    sms.add(row);
+                } else if (running) {
+                    record(row, sendEmail(row));
+                }
+            }
+            sms.sort(Comparator.comparingInt((NotificationOutbox row) -> -laneOf(row).weight()));
+            if (!sms.isEmpty() && running) {
+                sendSmsBatch(toUnits(sms));
+            }
+            if (found < BATCH_SIZE) {
+                return;
+            }
+        }
+    }
+
+    private boolean claim(NotificationOutbox row) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusSeconds(CLAIM_LEASE_SECONDS);
+        if (outboxRepository.claim(row.getId(), NotificationStatus.PENDING, now, leaseUntil) != 1) {
+            return false;
+        }
+        row.setClaimedUntil(leaseUntil);
+        return true;
+    }
+
+    // error == null means sent.
+    private void record(NotificationOutbox row, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        row.setAttempts(row.getAttempts() + 1);
+        row.setClaimedUntil(null);
+        if (error == null) {
+            row.setStatus(NotificationStatus.SENT);
+            row.setSentAt(now);
+            row.setLastError(null);
+            log.info("Notification #{} ({} {}) sent to {}", row.getId(), row.getChannel(), row.getLabel(), row.getRecipient());
+        } else {
+            row.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+            if (row.getAttempts() >= MAX_ATTEMPTS) {
+                row.setStatus(NotificationStatus.DEAD);
+                log.error("Notification #{} ({} {} to {}) dropped after {} attempts: {}",
+                        row.getId(), row.getChannel(), row.getLabel(), row.getRecipient(), row.getAttempts(), error);
+            } else {
+                long delay = Math.min(MAX_BACKOFF_SECONDS, BASE_BACKOFF_SECONDS << (row.getAttempts() - 1));
+                row.setNextAttemptAt(now.plusSeconds(delay));
+                log.warn("Notification #{} ({} {}) failed, retry in {}s: {}",
+                        row.getId(), row.getChannel(), row.getLabel(), delay, error);
+            }
+        }
+        outboxRepository.save(row);
+    }
+
+    private List<SmsUnit> toUnits(List<NotificationOutbox> rows) {
+        List<SmsUnit> units = new ArrayList<>();
+        Set<String> digested = new HashSet<>();
+        Set<Long> claimedIds = rows.stream().map(NotificationOutbox::getId).collect(Collectors.toSet());
+        for (NotificationOutbox row : rows) {
+            if (laneOf(row) != SmsLane.ADMIN || !adminDigest.isEnabled()) {
+                units.add(new SmsUnit(List.of(row), new OutgoingSms(row.getRecipient(), row.getBody(), laneOf(row))));
+                continue;
+            }
+            if (!digested.add(row.getRecipient())) {
+                continue;
+            }
+            List<NotificationOutbox> pending = outboxRepository.findByStatusAndLaneAndRecipientOrderByIdAsc(
+                    NotificationStatus.PENDING, SmsLane.ADMIN, row.getRecipient(), PageRequest.of(0, MAX_DIGEST_ROWS));
+            if (pending.size() <= 1) {
+                units.add(new SmsUnit(List.of(row), new OutgoingSms(row.getRecipient(), row.getBody(), SmsLane.ADMIN)));
+                continue;
+            }
+            // Rows of this pass are claimed already; the others only if no other instance has them.
+            pending = pending.stream().filter(p -> claimedIds.contains(p.getId()) || claim(p)).toList();
+            if (pending.size() <= 1) {
+                units.add(new SmsUnit(List.of(row), new OutgoingSms(row.getRecipient(), row.getBody(), SmsLane.ADMIN)));
+                continue;
+            }
+            String digest = smsService.composeAdminDigest(pending.stream().map(NotificationOutbox::getBody).toList());
+            units.add(new SmsUnit(pending, new OutgoingSms(row.getRecipient(), digest, SmsLane.ADMIN)));
+            log.info("Admin digest to {}: {} notifications in one SMS", row.getRecipient(), pending.size());
+        }
+        return units;
+    }
+
+    private void sendSmsBatch(List<SmsUnit> units) {
+        List<OutgoingSms> messages = units.stream().map(SmsUnit::message).toList();
+        List<SmsSendResult> results;
+        try {
+            results = smsService.sendBatch(messages);
+        } catch (Exception e) {
+            String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            units.forEach(unit -> unit.rows().forEach(row -> record(row, error)));
+            return;
+        }
+        for (int i = 0; i < units.size(); i++) {
+            SmsUnit unit = units.get(i);
+            SmsSendResult result = results.get(i);
+            // Partly sent or unanswered after the body: a retry would repeat what is already
+            // out, so the row is closed as sent.
+            boolean reachedNetwork = result.success || result.messageId != null || result.possiblySent;
+            for (NotificationOutbox row : unit.rows()) {
+                if (!result.success) {
+                    log.warn("SMS #{} ({}) {}. Transcript: {}", row.getId(), row.getLabel(),
+                            reachedNetwork ? "possibly incomplete, not retried" : "failed", result.transcript);
+                }
+                record(row, reachedNetwork ? null : "SMS send failed");
+            }
+        }
+    }
+
+    private static SmsLane laneOf(NotificationOutbox row) {
+        return row.getLane() != null ? row.getLane() : SmsLane.CUSTOMER;
+    }
+
+    // Returns null on success, otherwise what went wrong.
+    private String sendEmail(NotificationOutbox row) {
+        try {
+            emailService.deliverHtml(row.getRecipient(), row.getSubject(), row.getBody());
+            return null;
+        } catch (Exception e) {
+            return e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.toptennis.service;
+
+import com.toptennis.config.SmsProperties;
+import com.toptennis.model.NotificationChannel;
+import com.toptennis.model.NotificationOutbox;
+import com.toptennis.model.NotificationStatus;
+import com.toptennis.repository.NotificationOutboxRepository;
+import com.toptennis.sms.OutgoingSms;
+import com.toptennis.sms.SmsLane;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Write side of the notification outbox. Rows are inserted in the caller's transaction,
+// so a rolled-back booking never sends anything and a committed one is never lost, even
+// if the process stops before the message goes out. NotificationDispatcher is woken up
+// once the transaction commits.
+//
+// Admin SMS are held back for the digest window (sms.adminDigest) so that the dispatcher
+// can fold them into one summary per number; reaching maxMessages releases them at once.
+@Component
+public class NotificationQueue {
+    private static final int MAX_RECIPIENT = 255;
+
+    // Published after every enqueue; NotificationDispatcher listens AFTER_COMMIT.
+    public record Queued() {}
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SmsProperties.AdminDigest adminDigest;
+
+    public NotificationQueue(NotificationOutboxRepository outboxRepository, ApplicationEventPublisher eventPublisher,
+                             SmsProperties smsProperties) {
+        this.outboxRepository = outboxRepository;
+        this.eventPublisher = eventPublisher;
+        this.adminDigest = smsProperties.getAdminDigest();
+    }
+
+    @Transactional
+    public void enqueueSms(List<OutgoingSms> messages, Long bookingId, String label) {
+        boolean any = false;
+        Set<String> digestRecipients = new LinkedHashSet<>();
+        for (OutgoingSms sms : messages) {
+            if (sms.to() == null || sms.to().isBlank()) {
+                continue;
+            }
+            NotificationOutbox row = insert(NotificationChannel.SMS, sms.to(), null, sms.text(), bookingId, label, sms.lane());
+            if (sms.lane() == SmsLane.ADMIN && adminDigest.isEnabled()) {
+                row.setNextAttemptAt(row.getCreatedAt().plusSeconds(adminDigest.getWindowSeconds()));
+                digestRecipients.add(row.getRecipient());
+            }
+            any = true;
+        }
+        for (String recipient : digestRecipients) {
+            if (outboxRepository.countByStatusAndLaneAndRecipient(NotificationStatus.PENDING, SmsLane.ADMIN, recipient)
+                    >= adminDigest.getMaxMessages()) {
+                outboxRepository.makeDueNow(NotificationStatus.PENDING, SmsLane.ADMIN, recipient, LocalDateTime.now());
+            }
+        }
+        if (any) {
+            eventPublisher.publishEvent(new Queued());
+        }
+    }
+
+    @Transactional
+    public void enqueueSms(String to, String text, Long bookingId, String label) {
+        enqueueSms(List.of(new OutgoingSms(to, text)), bookingId, label);
+    }
+
+    @Transactional
+    public void enqueueEmail(EmailService.OutgoingEmail email, Long bookingId, String label) {
+        if (email == null || email.to() == null || email.to().isBlank()) {
+            return;
+        }
+        insert(NotificationChannel.EMAIL, email.to(), email.subject(), email.html(), bookingId, label, null);
+        eventPublisher.publishEvent(new Queued());
+    }
+
+    private NotificationOutbox insert(NotificationChannel channel, String to, String subject, String body, Long bookingId, String label,
+                        SmsLane lane) {
+        LocalDateTime now = LocalDateTime.now();
+        NotificationOutbox row = new NotificationOutbox();
+        row.setChannel(channel);
+        row.setRecipient(to.length() > MAX_RECIPIENT ? to.substring(0, MAX_RECIPIENT) : to);
+        row.setSubject(subject);
+        row.setBody(body);
+        row.setBookingId(bookingId);
+        row.setLabel(label);
+        row.setLane(lane);
+        row.setStatus(NotificationStatus.PENDING);
+        row.setAttempts(0);
+        row.setNextAttemptAt(now);
+        row.setCreatedAt(now);
+        return outboxRepository.save(row);
+    }
+}
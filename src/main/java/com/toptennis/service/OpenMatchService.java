@@ -3,19 +3,20 @@ package com.toptennis.service;
 import com.toptennis.dto.OpenMatchDto;
 import com.toptennis.model.*;
 import com.toptennis.repository.*;
+import com.toptennis.sms.OutgoingSms;
+import com.toptennis.sms.SmsLane;
 import com.toptennis.sms.SmsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.scheduling.annotation.Scheduled;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -55,9 +56,9 @@ public class OpenMatchService {
     private final CourtRepository courtRepository;
     private final BookingService bookingService;
     private final PlayerAuthService playerAuthService;
-    private final SmsService smsService;
-    private final ThreadPoolTaskExecutor taskExecutor;
+    private final NotificationQueue notificationQueue;
     private final ApplicationEventPublisher eventPublisher;
+    private final ScheduledJobLocks jobLocks;
 
     @Value("${app.base-url:https://star-arena.ro}")
     private String baseUrl;
@@ -72,9 +73,9 @@ public class OpenMatchService {
                             CourtRepository courtRepository,
                             BookingService bookingService,
                             PlayerAuthService playerAuthService,
-                            SmsService smsService,
-                            @Qualifier("smsTaskExecutor") ThreadPoolTaskExecutor taskExecutor,
-                            ApplicationEventPublisher eventPublisher) {
+                            NotificationQueue notificationQueue,
+                            ApplicationEventPublisher eventPublisher,
+                            ScheduledJobLocks jobLocks) {
         this.openMatchRepository = openMatchRepository;
         this.participantRepository = participantRepository;
         this.skillLevelRepository = skillLevelRepository;
@@ -82,9 +83,9 @@ public class OpenMatchService {
         this.courtRepository = courtRepository;
         this.bookingService = bookingService;
         this.playerAuthService = playerAuthService;
-        this.smsService = smsService;
-        this.taskExecutor = taskExecutor;
+        this.notificationQueue = notificationQueue;
         this.eventPublisher = eventPublisher;
+        this.jobLocks = jobLocks;
     }
 
     // ─── Nivel de joc ────────────────────────────────────────────────────────
@@ -185,15 +186,8 @@ public class OpenMatchService {
 
         // SMS catre admin cu textul gata de dat forward in grupul clubului.
         if (adminNotificationNumber != null && !adminNotificationNumber.isBlank()) {
-            final String adminText = "MECI DESCHIS NOU!\n" + whatsappText;
-            final String adminNo = adminNotificationNumber;
-            taskExecutor.execute(() -> {
-                sleepQuietly();
-                var result = smsService.sendSms(adminNo, adminText);
-                if (!result.success) {
-                    log.warn("Open match admin SMS failed. Transcript: {}", result.transcript);
-                }
-            });
+            notificationQueue.enqueueSms(List.of(new OutgoingSms(adminNotificationNumber,
+                    "MECI DESCHIS NOU!\n" + whatsappText, SmsLane.ADMIN)), booking.getId(), "open-match-created");
         }
 
         log.info("Open match #{} created by player {} (booking #{}), releaseAt={}",
@@ -252,6 +246,9 @@ public class OpenMatchService {
         }
         match.setUpdatedAt(LocalDateTime.now());
         OpenMatch saved = openMatchRepository.save(match);
+        // Locurile libere apar in grila de disponibilitate: fara eveniment, ETag-ul
+        // grilei ar ramane neschimbat si clientii ar primi 304 cu datele vechi.
+        eventPublisher.publishEvent(BookingChangedEvent.of(BookingChangedEvent.Type.UPDATED, booking));
 
         // Notificari SMS (async, in coada single-thread a modemului).
         final String organizerPhone = match.getOrganizer().getPhoneNumber();
@@ -275,26 +272,18 @@ public class OpenMatchService {
             fullNotifyPhones = null;
         }
 
-        taskExecutor.execute(() -> {
-            if (nowFull && fullNotifyPhones != null) {
-                String text = "Echipa e completa! Meci padel " + dateRo + " " + startHm + "-" + endHm
-                        + ", Teren " + courtName + ". Ne vedem pe teren!"
-                        + SmsService.AUTOMAT_FOOTER;
-                for (String phone : fullNotifyPhones) {
-                    sleepQuietly();
-                    var r = smsService.sendSms(phone, text);
-                    if (!r.success) log.warn("Open match FULL SMS failed for {}", phone);
-                }
-            } else if (organizerPhone != null && !organizerPhone.isBlank()) {
-                String text = joinerName + (joinerPhone.isBlank() ? "" : " (" + joinerPhone + ")")
-                        + " s-a alaturat meciului tau de padel din " + dateRo + " " + startHm
-                        + ". Mai cautati " + remaining + "."
-                        + SmsService.AUTOMAT_FOOTER;
-                sleepQuietly();
-                var r = smsService.sendSms(organizerPhone, text);
-                if (!r.success) log.warn("Open match JOIN SMS failed for organizer {}", organizerPhone);
-            }
-        });
+        if (nowFull && fullNotifyPhones != null) {
+            String text = "Echipa e completa! Meci padel " + dateRo + " " + startHm + "-" + endHm
+                    + ", Teren " + courtName + ". Ne vedem pe teren!"
+                    + SmsService.AUTOMAT_FOOTER;
+            notificationQueue.enqueueSms(toAll(fullNotifyPhones, text), booking.getId(), "open-match-full");
+        } else if (organizerPhone != null && !organizerPhone.isBlank()) {
+            String text = joinerName + (joinerPhone.isBlank() ? "" : " (" + joinerPhone + ")")
+                    + " s-a alaturat meciului tau de padel din " + dateRo + " " + startHm
+                    + ". Mai cautati " + remaining + "."
+                    + SmsService.AUTOMAT_FOOTER;
+            notificationQueue.enqueueSms(organizerPhone, text, booking.getId(), "open-match-join");
+        }
 
         log.info("Player {} joined open match #{} ({} spots left{})",
                 player.getId(), matchId, remaining, nowFull ? ", now FULL" : "");
@@ -402,6 +391,10 @@ public class OpenMatchService {
                             + " ore inainte de meci. Pana atunci te poti alatura meciului.");
         }
 
+        // Intervalul ramane al nostru intre anularea rezervarii vechi si crearea celei noi.
+        bookingService.guardInterval(oldBooking.getCourt().getId(), oldBooking.getBookingDate(),
+                oldBooking.getStartTime(), oldBooking.getEndTime());
+
         // Inchidem meciul si eliberam rezervarea organizatorului, fara penalizare.
         match.setStatus(OpenMatchStatus.CANCELLED);
         match.setUpdatedAt(now);
@@ -429,24 +422,18 @@ public class OpenMatchService {
                 .filter(p -> p != null && !p.isBlank())
                 .distinct()
                 .toList();
-        taskExecutor.execute(() -> {
-            if (organizerPhone != null && !organizerPhone.isBlank()) {
-                sleepQuietly();
-                var r = smsService.sendSms(organizerPhone,
-                        "Intervalul tau de padel din " + dateRo + " ora " + startHm
-                                + " a fost rezervat de o echipa completa. Meciul s-a inchis, nu ai nicio penalizare."
-                                + SmsService.AUTOMAT_FOOTER);
-                if (!r.success) log.warn("Takeover SMS failed for organizer {}", organizerPhone);
-            }
-            for (String phone : participantPhones) {
-                sleepQuietly();
-                var r = smsService.sendSms(phone,
-                        "Meciul de padel din " + dateRo + " ora " + startHm
-                                + " s-a anulat: intervalul a fost preluat de o echipa completa. Ne pare rau!"
-                                + SmsService.AUTOMAT_FOOTER);
-                if (!r.success) log.warn("Takeover SMS failed for participant {}", phone);
-            }
-        });
+        if (organizerPhone != null && !organizerPhone.isBlank()) {
+            notificationQueue.enqueueSms(organizerPhone,
+                    "Intervalul tau de padel din " + dateRo + " ora " + startHm
+                            + " a fost rezervat de o echipa completa. Meciul s-a inchis, nu ai nicio penalizare."
+                            + SmsService.AUTOMAT_FOOTER,
+                    oldBooking.getId(), "open-match-takeover");
+        }
+        notificationQueue.enqueueSms(toAll(participantPhones,
+                "Meciul de padel din " + dateRo + " ora " + startHm
+                        + " s-a anulat: intervalul a fost preluat de o echipa completa. Ne pare rau!"
+                        + SmsService.AUTOMAT_FOOTER),
+                oldBooking.getId(), "open-match-takeover");
 
         log.info("Open match #{} taken over: old booking #{} cancelled (no penalty), new booking #{} created.",
                 matchId, oldBooking.getId(), newBooking.getId());
@@ -459,11 +446,15 @@ public class OpenMatchService {
      * La fiecare 5 minute: partidele OPEN care au trecut de release_at si nu
      * s-au umplut se anuleaza, iar terenul se elibereaza FARA penalizare.
      * Tot aici sincronizam partidele ale caror rezervari au fost anulate
-     * separat (de admin sau de organizator).
+     * separat (de admin sau de organizator). Cu mai multe instante ruleaza
+     * doar pe cea care tine lease-ul (ScheduledJobLocks).
      */
     @Scheduled(fixedDelay = 300_000, initialDelay = 60_000)
     @Transactional
     public void autoReleaseUnfilledMatches() {
+        if (!jobLocks.tryAcquire("open-match-release", Duration.ofMinutes(15))) {
+            return;
+        }
         LocalDateTime now = LocalDateTime.now();
         List<OpenMatch> openMatches = openMatchRepository.findByStatusFetchBooking(OpenMatchStatus.OPEN);
 
@@ -481,6 +472,8 @@ public class OpenMatchService {
                 match.setStatus(OpenMatchStatus.CANCELLED);
                 match.setUpdatedAt(now);
                 openMatchRepository.save(match);
+                // Locurile libere dispar din grila (vezi joinMatch).
+                eventPublisher.publishEvent(BookingChangedEvent.of(BookingChangedEvent.Type.UPDATED, booking));
                 notifyParticipantsMatchCancelled(match, booking);
                 log.info("Open match #{} closed: its booking #{} was cancelled elsewhere.",
                         match.getId(), booking.getId());
@@ -507,6 +500,7 @@ public class OpenMatchService {
                 match.setStatus(OpenMatchStatus.CANCELLED);
                 match.setUpdatedAt(now);
                 openMatchRepository.save(match);
+                eventPublisher.publishEvent(BookingChangedEvent.of(BookingChangedEvent.Type.UPDATED, booking));
                 log.info("Open match #{} closed: start time passed.", match.getId());
             }
         }
@@ -520,11 +514,7 @@ public class OpenMatchService {
         String text = "Meciul tau de padel din " + dateRo + " ora " + startHm
                 + " nu s-a completat si s-a anulat automat. Terenul e liber, nu ai nicio penalizare."
                 + SmsService.AUTOMAT_FOOTER;
-        taskExecutor.execute(() -> {
-            sleepQuietly();
-            var r = smsService.sendSms(phone, text);
-            if (!r.success) log.warn("Auto-release SMS failed for organizer {}", phone);
-        });
+        notificationQueue.enqueueSms(phone, text, booking.getId(), "open-match-released");
     }
 
     private void notifyParticipantsMatchCancelled(OpenMatch match, Booking booking) {
@@ -542,13 +532,7 @@ public class OpenMatchService {
         String text = "Meciul de padel din " + dateRo + " ora " + startHm
                 + " la care te-ai alaturat a fost anulat. Ne pare rau!"
                 + SmsService.AUTOMAT_FOOTER;
-        taskExecutor.execute(() -> {
-            for (String phone : phones) {
-                sleepQuietly();
-                var r = smsService.sendSms(phone, text);
-                if (!r.success) log.warn("Match-cancelled SMS failed for participant {}", phone);
-            }
-        });
+        notificationQueue.enqueueSms(toAll(phones, text), booking.getId(), "open-match-cancelled");
     }
 
     // ─── Utilitare ───────────────────────────────────────────────────────────
@@ -580,7 +564,7 @@ public class OpenMatchService {
         return name.length() > 18 ? name.substring(0, 16) + ".." : name;
     }
 
-    private void sleepQuietly() {
-        try { Thread.sleep(2000L); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+    private static List<OutgoingSms> toAll(List<String> phones, String text) {
+        return phones.stream().map(phone -> new OutgoingSms(phone, text)).toList();
     }
 }
@@ -0,0 +1,217 @@
+package com.toptennis.service;
+
+import com.toptennis.model.Booking;
+import com.toptennis.model.BookingStatus;
+import com.toptennis.repository.BookingRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+// Non-exempt cancellations and no-shows per customer, kept in memory and keyed both by
+// normalized phone and by player id — the two identities the penalty rule looks at.
+// Booking creation and the admin day list read from here instead of running the COUNT
+// queries every time. A BookingChangedEvent refreshes only the phone and player of the
+// booking that changed (the event doesn't say what the status was before, so the entry
+// is reloaded rather than patched); bulk operations such as the hard resets drop
+// everything.
+@Component
+public class PenaltyScores {
+    private static final List<BookingStatus> PENALTY_STATUSES = List.of(BookingStatus.CANCELLED, BookingStatus.NO_SHOW);
+
+    public record Penalty(long cancellations, long noShows) {
+        public static final Penalty NONE = new Penalty(0, 0);
+
+        // Regula de penalizare: o neprezentare cantareste cat 10 anulari.
+        public long score() {
+            return cancellations + 10 * noShows;
+        }
+    }
+
+    private final BookingRepository bookingRepository;
+    private final Map<String, Penalty> byPhone = new ConcurrentHashMap<>();
+    private final Map<Long, Penalty> byPlayer = new ConcurrentHashMap<>();
+    // Same guard as CourtOccupancyIndex: a load that raced with an invalidation is not kept.
+    private final AtomicLong epoch = new AtomicLong();
+
+    public PenaltyScores(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    public Penalty forPhone(String normalizedPhone) {
+        if (normalizedPhone == null || normalizedPhone.isBlank()) {
+            return Penalty.NONE;
+        }
+        Penalty cached = byPhone.get(normalizedPhone);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = epoch.get();
+        Penalty loaded = toPenalty(bookingRepository.countPenaltiesByPhone(normalizedPhone, PENALTY_STATUSES));
+        store(byPhone, normalizedPhone, loaded, seen);
+        return loaded;
+    }
+
+    public Penalty forPlayer(Long playerUserId) {
+        if (playerUserId == null) {
+            return Penalty.NONE;
+        }
+        Penalty cached = byPlayer.get(playerUserId);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = epoch.get();
+        Penalty loaded = toPenalty(bookingRepository.countPenaltiesByPlayer(playerUserId, PENALTY_STATUSES));
+        store(byPlayer, playerUserId, loaded, seen);
+        return loaded;
+    }
+
+    /**
+     * Penalties for a whole set of phones (normalized) — cached ones straight from memory,
+     * the rest from one grouped query. Phones without any penalty map to Penalty.NONE.
+     */
+    public Map<String, Penalty> forPhones(Collection<String> normalizedPhones) {
+        Map<String, Penalty> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String phone : normalizedPhones) {
+            if (phone == null || phone.isBlank()) {
+                continue;
+            }
+            Penalty cached = byPhone.get(phone);
+            if (cached != null) {
+                result.put(phone, cached);
+            } else {
+                missing.add(phone);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        long seen = epoch.get();
+        Map<String, List<BookingRepository.PhoneStatusCount>> grouped = bookingRepository
+                .countPenaltiesByPhones(missing, PENALTY_STATUSES).stream()
+                .collect(Collectors.groupingBy(BookingRepository.PhoneStatusCount::getCustomerPhone));
+        for (String phone : missing) {
+            Penalty loaded = toPenalty(grouped.getOrDefault(phone, List.of()));
+            store(byPhone, phone, loaded, seen);
+            result.put(phone, loaded);
+        }
+        return result;
+    }
+
+    public Map<Long, Penalty> forPlayers(Collection<Long> playerUserIds) {
+        Map<Long, Penalty> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : playerUserIds) {
+            if (id == null) {
+                continue;
+            }
+            Penalty cached = byPlayer.get(id);
+            if (cached != null) {
+                result.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+        long seen = epoch.get();
+        Map<Long, List<BookingRepository.PlayerStatusCount>> grouped = bookingRepository
+                .countPenaltiesByPlayers(missing, PENALTY_STATUSES).stream()
+                .collect(Collectors.groupingBy(BookingRepository.PlayerStatusCount::getPlayerUserId));
+        for (Long id : missing) {
+            Penalty loaded = toPenalty(grouped.getOrDefault(id, List.of()));
+            store(byPlayer, id, loaded, seen);
+            result.put(id, loaded);
+        }
+        return result;
+    }
+
+    private <K> void store(Map<K, Penalty> map, K key, Penalty loaded, long seenEpoch) {
+        map.putIfAbsent(key, loaded);
+        if (epoch.get() != seenEpoch) {
+            map.remove(key, loaded);
+        }
+    }
+
+    private static Penalty toPenalty(List<? extends BookingRepository.StatusCount> counts) {
+        long cancellations = 0;
+        long noShows = 0;
+        for (BookingRepository.StatusCount c : counts) {
+            if (c.getStatus() == BookingStatus.CANCELLED) {
+                cancellations = c.getTotal();
+            } else if (c.getStatus() == BookingStatus.NO_SHOW) {
+                noShows = c.getTotal();
+            }
+        }
+        return new Penalty(cancellations, noShows);
+    }
+
+    /**
+     * Drops the phone and players whose penalties changed without a status change — bookings
+     * moved from one account to another. Runs after the surrounding transaction commits,
+     * like the event listener, so a load in between cannot keep the old counts.
+     */
+    public void forgetAfterCommit(String normalizedPhone, Long... playerUserIds) {
+        Runnable forget = () -> {
+            epoch.incrementAndGet();
+            if (normalizedPhone != null) {
+                byPhone.remove(normalizedPhone);
+            }
+            for (Long id : playerUserIds) {
+                if (id != null) {
+                    byPlayer.remove(id);
+                }
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            forget.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                forget.run();
+            }
+        });
+    }
+
+    @EventListener
+    public void onRemoteBookingChanged(RemoteBookingChangedEvent remote) {
+        onBookingChanged(remote.event());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookingChanged(BookingChangedEvent event) {
+        epoch.incrementAndGet();
+        if (event.type() == BookingChangedEvent.Type.BULK_REFRESH || event.bookingId() == null) {
+            byPhone.clear();
+            byPlayer.clear();
+            return;
+        }
+        Booking b = bookingRepository.findById(event.bookingId()).orElse(null);
+        if (b == null) {
+            byPhone.clear();
+            byPlayer.clear();
+            return;
+        }
+        if (b.getCustomerPhone() != null) {
+            byPhone.remove(b.getCustomerPhone());
+        }
+        if (b.getPlayerUser() != null) {
+            byPlayer.remove(b.getPlayerUser().getId());
+        }
+    }
+}
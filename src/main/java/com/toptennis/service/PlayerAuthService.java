@@ -12,6 +12,7 @@ import com.toptennis.security.JwtService;
 import com.toptennis.service.EmailService;
 import com.toptennis.sms.SmsService;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
@@ -36,6 +37,8 @@ public class PlayerAuthService {
     private final JwtService jwtService;
     private final EmailService emailService;
     private final SmsService smsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PenaltyScores penaltyScores;
     private static final Logger log = LoggerFactory.getLogger(PlayerAuthService.class);
     
     @Value("${google.auth.client-id}")
@@ -44,13 +47,15 @@ public class PlayerAuthService {
     private final Map<String, String> phoneToOtp = new ConcurrentHashMap<>();
     private final Map<String, LocalDateTime> otpExpiry = new ConcurrentHashMap<>();
 
-    public PlayerAuthService(PlayerUserRepository playerUserRepository, BookingRepository bookingRepository, PasswordEncoder passwordEncoder, JwtService jwtService, EmailService emailService, SmsService smsService) {
+    public PlayerAuthService(PlayerUserRepository playerUserRepository, BookingRepository bookingRepository, PasswordEncoder passwordEncoder, JwtService jwtService, EmailService emailService, SmsService smsService, ApplicationEventPublisher eventPublisher, PenaltyScores penaltyScores) {
         this.playerUserRepository = playerUserRepository;
         this.bookingRepository = bookingRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.emailService = emailService;
         this.smsService = smsService;
+        this.eventPublisher = eventPublisher;
+        this.penaltyScores = penaltyScores;
     }
 
     public enum OtpPurpose { LOGIN, LINK_PHONE, VERIFY_PHONE }
@@ -67,7 +72,7 @@ public class PlayerAuthService {
         String toE164 = "+40" + normalized.replaceFirst("^0", "");
         String text = buildOtpText(otp, purpose);
         log.info("Sending {} OTP SMS to: {}", purpose, toE164);
-        var result = smsService.sendSms(toE164, text);
+        var result = smsService.sendSms(toE164, text, com.toptennis.sms.SmsLane.OTP);
         if (!result.success) {
             log.error("Failed to send OTP SMS to {}. Transcript: {}", toE164, result.transcript);
             throw new RuntimeException("Eroare la trimiterea SMS-ului. Te rugăm să încerci din nou mai târziu.");
@@ -367,8 +372,13 @@ public class PlayerAuthService {
                 for (Booking b : oldBookings) {
                     b.setPlayerUser(currentUser);
                     bookingRepository.save(b);
+                    // The grid entry shows the owner of the booking; cached per court/day, it must reload.
+                    eventPublisher.publishEvent(BookingChangedEvent.of(BookingChangedEvent.Type.UPDATED, b));
                 }
                 bookingRepository.flush();
+                // The booking events only reach the new owner; the old account's counts and
+                // the phone's are dropped here as well.
+                penaltyScores.forgetAfterCommit(normPhone, currentPlayerId, otherUser.getId());
                 
                 // Soft-Unlink: Instead of deleting (which might fail due to FKs), 
                 // we set a unique dummy phone number or null to free the constraint.
@@ -454,7 +464,7 @@ public class PlayerAuthService {
             String text = "Codul de resetare parola Star Arena: " + otp + ". Valabil 15 min." +
                     com.toptennis.sms.SmsService.AUTOMAT_FOOTER;
             log.info("Sending password reset SMS to: {}", toE164);
-            var result = smsService.sendSms(toE164, text);
+            var result = smsService.sendSms(toE164, text, com.toptennis.sms.SmsLane.OTP);
             if (!result.success) {
                 log.error("Failed to send reset SMS to {}. Transcript: {}", toE164, result.transcript);
                 throw new RuntimeException("Eroare la trimiterea SMS-ului de recuperare. Te rugăm să încerci mai târziu.");
@@ -0,0 +1,166 @@
+package com.toptennis.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Bus over the shared PostgreSQL database (booking.event-bus=postgres). publish() is a
+// pg_notify on CHANNEL with the event as JSON, tagged with this instance's id; a listener
+// thread holds one connection from the pool with LISTEN CHANNEL and hands every
+// notification from another instance to the subscribers.
+//
+// NOTIFY is not durable: whatever is sent while the listening connection is down is
+// lost, so after a reconnect the subscribers get a BULK_REFRESH (every cache dropped,
+// every grid reloaded) instead of a gap.
+@Component
+@ConditionalOnProperty(name = "booking.event-bus", havingValue = "postgres")
+public class PostgresBookingEventBus implements BookingEventBus, SmartLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(PostgresBookingEventBus.class);
+    private static final String CHANNEL = "booking_events";
+    private static final int POLL_TIMEOUT_MS = 5_000;
+    private static final long BASE_RECONNECT_MS = 1_000;
+    private static final long MAX_RECONNECT_MS = 30_000;
+
+    // What travels in the NOTIFY payload.
+    record Message(String origin, BookingChangedEvent event) {}
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final List<Consumer<BookingChangedEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public PostgresBookingEventBus(DataSource dataSource, ObjectMapper objectMapper) {
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void publish(BookingChangedEvent event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(new Message(instanceId, event));
+        } catch (Exception e) {
+            throw new IllegalStateException("Booking event not serializable", e);
+        }
+        try (Connection c = dataSource.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT pg_notify(?, ?)")) {
+            ps.setString(1, CHANNEL);
+            ps.setString(2, payload);
+            ps.execute();
+        } catch (SQLException e) {
+            throw new IllegalStateException("pg_notify failed: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<BookingChangedEvent> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::loop, "booking-event-listener");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void loop() {
+        long backoff = BASE_RECONNECT_MS;
+        boolean listenedBefore = false;
+        while (running) {
+            try (Connection c = dataSource.getConnection()) {
+                try (Statement st = c.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pg = c.unwrap(PGConnection.class);
+                if (listenedBefore) {
+                    log.info("Listening on {} again; refreshing everything that may have been missed.", CHANNEL);
+                    deliver(BookingChangedEvent.bulkRefresh());
+                }
+                listenedBefore = true;
+                backoff = BASE_RECONNECT_MS;
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification n : notifications) {
+                        receive(n.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Booking event listener lost its connection ({}); retrying in {} ms.", e.getMessage(), backoff);
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(MAX_RECONNECT_MS, backoff * 2);
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        Message message;
+        try {
+            message = objectMapper.readValue(payload, Message.class);
+        } catch (Exception e) {
+            log.warn("Unreadable booking event on {}: {}", CHANNEL, payload);
+            return;
+        }
+        if (instanceId.equals(message.origin()) || message.event() == null) {
+            return;
+        }
+        deliver(message.event());
+    }
+
+    private void deliver(BookingChangedEvent event) {
+        for (Consumer<BookingChangedEvent> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (Exception e) {
+                log.warn("Booking event listener failed on {} #{}: {}", event.type(), event.bookingId(), e.getMessage());
+            }
+        }
+    }
+}
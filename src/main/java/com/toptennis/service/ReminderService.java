@@ -12,6 +12,7 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
@@ -27,19 +28,25 @@ public class ReminderService {
     private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("HH:mm");
     private static final LocalTime LATE_BOOKING_THRESHOLD = LocalTime.of(10, 0);
     private static final LocalTime MAX_EARLY_REMINDER = LocalTime.of(8, 0);
+    // Cu mai multe instante, reminderele pleaca doar de pe cea care tine lease-ul; il
+    // reinnoieste la fiecare rulare, asa ca setul de mai jos ramane pe acelasi nod.
+    private static final String JOB = "reminders";
+    private static final Duration LEASE = Duration.ofMinutes(15);
 
     private final BookingRepository bookingRepository;
     private final SmsService smsService;
     private final ReminderProperties reminderProperties;
+    private final ScheduledJobLocks jobLocks;
 
     // Tracks booking IDs that already received a reminder today — resets at midnight
     private final Set<Long> sentReminderIds = ConcurrentHashMap.newKeySet();
 
     public ReminderService(BookingRepository bookingRepository, SmsService smsService,
-                           ReminderProperties reminderProperties) {
+                           ReminderProperties reminderProperties, ScheduledJobLocks jobLocks) {
         this.bookingRepository = bookingRepository;
         this.smsService = smsService;
         this.reminderProperties = reminderProperties;
+        this.jobLocks = jobLocks;
     }
 
     /**
@@ -48,6 +55,9 @@ public class ReminderService {
      */
     @Scheduled(cron = "0 0 9 * * *", zone = "Europe/Bucharest")
     public void sendLateBookingReminders() {
+        if (!jobLocks.tryAcquire(JOB, LEASE)) {
+            return;
+        }
         LocalDate today = LocalDate.now(ZONE);
         List<Booking> bookings = bookingRepository.findForReminder(
                 today, BookingStatus.CONFIRMED, LATE_BOOKING_THRESHOLD, LocalTime.of(23, 59));
@@ -64,6 +74,9 @@ public class ReminderService {
      */
     @Scheduled(cron = "0 */5 0-8 * * *", zone = "Europe/Bucharest")
     public void sendEarlyBookingReminders() {
+        if (!jobLocks.tryAcquire(JOB, LEASE)) {
+            return;
+        }
         LocalDate today = LocalDate.now(ZONE);
         LocalTime now = LocalTime.now(ZONE).withSecond(0).withNano(0);
         List<Booking> bookings = bookingRepository.findForReminder(
@@ -117,7 +130,7 @@ public class ReminderService {
         if (reminderProperties.isMockSms()) {
             log.info("REMINDER MOCK: {}", message);
         } else {
-            smsService.sendSms(phone, message);
+            smsService.sendSms(phone, message, com.toptennis.sms.SmsLane.REMINDER);
         }
     }
 
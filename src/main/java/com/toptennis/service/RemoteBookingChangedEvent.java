@@ -0,0 +1,6 @@
+package com.toptennis.service;
+
+// A BookingChangedEvent committed on another instance, republished here by
+// BookingEventRelay. Only the in-memory views listen to it (caches, SSE): the database
+// side of the change already happened where it was committed.
+public record RemoteBookingChangedEvent(BookingChangedEvent event) {}
@@ -0,0 +1,44 @@
+package com.toptennis.service;
+
+import com.toptennis.repository.ScheduledJobLockRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Scheduled jobs that send SMS or change bookings (reminders, open-match release) must not
+// run on every instance sharing the database. Each one takes a lease row in
+// scheduled_job_lock before it starts: the instance that holds it renews it on every run
+// and keeps the job while it is alive, so in-memory state such as the reminders already
+// sent today stays on one node; the others skip until the lease runs out.
+//
+// Leases are compared with each instance's clock, so the lease must stay well above the
+// clock skew between the machines. Caches and purges that are local to an instance do not
+// take a lease.
+@Component
+public class ScheduledJobLocks {
+    private static final Logger log = LoggerFactory.getLogger(ScheduledJobLocks.class);
+
+    private final ScheduledJobLockRepository repository;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public ScheduledJobLocks(ScheduledJobLockRepository repository) {
+        this.repository = repository;
+    }
+
+    /** True if this instance holds (or just took) the lease on `job` for the next `lease`. */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean tryAcquire(String job, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        boolean acquired = repository.tryLock(job, instanceId, now, now.plus(lease)) == 1;
+        if (!acquired) {
+            log.debug("Scheduled job {} skipped: another instance holds the lease.", job);
+        }
+        return acquired;
+    }
+}
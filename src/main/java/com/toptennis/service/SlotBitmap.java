@@ -0,0 +1,112 @@
+package com.toptennis.service;
+
+import java.time.LocalTime;
+
+// A court's day on the 30-minute booking grid as a 48-bit long: bit i set means the
+// half hour starting at i*30 minutes is taken. Every booking passes
+// BookingService.validateTime (start on :00/:30, end on :00/:30 or the 23:59
+// end-of-day marker), so free ranges, overlap checks and "first free run of N slots"
+// reduce to a handful of bit operations instead of walking LocalTime objects.
+public final class SlotBitmap {
+    public static final int SLOT_MINUTES = 30;
+    public static final int SLOTS_PER_DAY = 48;
+    public static final long FULL_DAY = (1L << SLOTS_PER_DAY) - 1;
+    private static final int END_OF_DAY_MARKER = 23 * 60 + 59;
+
+    private SlotBitmap() {}
+
+    @FunctionalInterface
+    public interface RunConsumer {
+        void accept(int fromSlot, int toSlot);
+    }
+
+    // Legacy rows from before the 30-minute rule can sit off the grid; callers fall
+    // back to a minute-based walk when this is false.
+    public static boolean isAligned(int startMinute, int endMinute) {
+        return startMinute % SLOT_MINUTES == 0
+                && (endMinute % SLOT_MINUTES == 0 || endMinute == END_OF_DAY_MARKER);
+    }
+
+    public static boolean isAligned(LocalTime start, LocalTime end) {
+        return start.getSecond() == 0 && start.getNano() == 0 && end.getSecond() == 0 && end.getNano() == 0
+                && isAligned(minutesOf(start), minutesOf(end));
+    }
+
+    public static int startSlot(int startMinute) {
+        return startMinute / SLOT_MINUTES;
+    }
+
+    // 23:59 stands for 24:00, i.e. the exclusive end of the last slot.
+    public static int endSlot(int endMinute) {
+        return endMinute == END_OF_DAY_MARKER ? SLOTS_PER_DAY : endMinute / SLOT_MINUTES;
+    }
+
+    // Inverse of endSlot: the end of the day renders back as 23:59.
+    public static int slotToEndMinute(int slot) {
+        return slot >= SLOTS_PER_DAY ? END_OF_DAY_MARKER : slot * SLOT_MINUTES;
+    }
+
+    public static int slotToStartMinute(int slot) {
+        return slot * SLOT_MINUTES;
+    }
+
+    /** Bits [fromSlot, toSlot). Empty when the range is empty. */
+    public static long range(int fromSlot, int toSlot) {
+        if (toSlot <= fromSlot) {
+            return 0L;
+        }
+        long upTo = toSlot >= 64 ? -1L : (1L << toSlot) - 1;
+        return upTo & ~((1L << fromSlot) - 1) & FULL_DAY;
+    }
+
+    public static long mask(int startMinute, int endMinute) {
+        return range(startSlot(startMinute), endSlot(endMinute));
+    }
+
+    public static long mask(LocalTime start, LocalTime end) {
+        return mask(minutesOf(start), minutesOf(end));
+    }
+
+    public static boolean overlaps(long occupied, long mask) {
+        return (occupied & mask) != 0;
+    }
+
+    /**
+     * First slot index s >= fromSlot such that [s, s + lengthSlots) is entirely free,
+     * or -1 when there is no such run. Shift-and folding: after the loop bit s is set
+     * only if the lengthSlots bits starting at s were all free.
+     */
+    public static int firstFree(long occupied, int lengthSlots, int fromSlot) {
+        if (lengthSlots <= 0) {
+            return fromSlot;
+        }
+        if (lengthSlots > SLOTS_PER_DAY) {
+            return -1;
+        }
+        long runs = ~occupied & FULL_DAY;
+        int covered = 1;
+        while (covered < lengthSlots) {
+            int step = Math.min(covered, lengthSlots - covered);
+            runs &= runs >>> step;
+            covered += step;
+        }
+        runs &= ~((1L << fromSlot) - 1);
+        return runs == 0 ? -1 : Long.numberOfTrailingZeros(runs);
+    }
+
+    /** Calls consumer for every maximal free run inside [fromSlot, toSlot), in order. */
+    public static void forEachFreeRun(long occupied, int fromSlot, int toSlot, RunConsumer consumer) {
+        long free = ~occupied & range(fromSlot, toSlot);
+        while (free != 0) {
+            int start = Long.numberOfTrailingZeros(free);
+            long fromStart = ~free & ~((1L << start) - 1);
+            int end = fromStart == 0 ? 64 : Long.numberOfTrailingZeros(fromStart);
+            consumer.accept(start, Math.min(end, toSlot));
+            free &= ~range(start, end);
+        }
+    }
+
+    private static int minutesOf(LocalTime t) {
+        return t.getHour() * 60 + t.getMinute();
+    }
+}
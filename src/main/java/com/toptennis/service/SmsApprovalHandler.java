@@ -0,0 +1,86 @@
+package com.toptennis.service;
+
+import com.toptennis.config.SmsProperties;
+import com.toptennis.sms.InboundSms;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// "DA <telefon client>" from the admin (or the padel indoor supervisor) approves the
+// bookings of that customer waiting in PENDING_APPROVAL — the answer to the "APROBARE
+// NECESARA!" SMS, which carries the phone. A bare "DA" approves nothing: by the time it
+// arrives another request may be waiting, so it only gets a reminder of the format.
+// Anyone else saying "DA" is not this handler's business.
+@Component
+@Order(20)
+public class SmsApprovalHandler implements InboundSmsHandler {
+    private static final Logger log = LoggerFactory.getLogger(SmsApprovalHandler.class);
+    private static final Pattern COMMAND = Pattern.compile("^DA\\b(?:\\s+(\\+?[\\d ]{9,}))?.*");
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("dd.MM");
+    private static final DateTimeFormatter HM = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final BookingService bookingService;
+    private final NotificationQueue notificationQueue;
+    private final SmsProperties smsProperties;
+
+    public SmsApprovalHandler(BookingService bookingService, NotificationQueue notificationQueue, SmsProperties smsProperties) {
+        this.bookingService = bookingService;
+        this.notificationQueue = notificationQueue;
+        this.smsProperties = smsProperties;
+    }
+
+    @Override
+    public boolean handle(InboundSms sms) {
+        Matcher m = COMMAND.matcher(InboundSmsHandler.normalize(sms.text()));
+        if (!m.matches() || !fromAdmin(sms.from())) {
+            return false;
+        }
+        if (m.group(1) == null) {
+            int waiting = bookingService.pendingApprovals().size();
+            reply(sms, null, (waiting == 0 ? "Nicio rezervare in asteptarea aprobarii. "
+                    : waiting + (waiting == 1 ? " rezervare asteapta" : " rezervari asteapta") + " aprobarea. ")
+                    + "Raspunde DA <telefon client> sau aproba din star-arena.ro/admin");
+            return true;
+        }
+        String customerPhone = m.group(1).replace(" ", "");
+        List<BookingService.SmsBooking> pending = bookingService.pendingApprovals().stream()
+                .filter(b -> InboundSmsHandler.samePhone(b.customerPhone(), customerPhone))
+                .toList();
+        // Several for the same customer (e.g. a recurring request): all of them. Each is
+        // re-checked under lock; one cancelled since the list was read is left alone.
+        List<BookingService.SmsBooking> approved = new ArrayList<>();
+        for (BookingService.SmsBooking b : pending) {
+            if (bookingService.approvePending(b.id())) {
+                log.info("Booking #{} approved by SMS from {}", b.id(), sms.from());
+                approved.add(b);
+            }
+        }
+        if (approved.isEmpty()) {
+            reply(sms, null, "Nicio rezervare in asteptarea aprobarii pentru " + customerPhone + ".");
+            return true;
+        }
+        StringBuilder text = new StringBuilder();
+        for (BookingService.SmsBooking b : approved) {
+            text.append(text.length() == 0 ? "" : "; ").append(b.customerName()).append(' ')
+                    .append(b.date().format(DAY)).append(' ').append(b.start().format(HM));
+        }
+        reply(sms, approved.size() == 1 ? approved.get(0).id() : null, "Aprobat: " + text);
+        return true;
+    }
+
+    private boolean fromAdmin(String from) {
+        return InboundSmsHandler.samePhone(from, smsProperties.getAdminNotificationNumber())
+                || InboundSmsHandler.samePhone(from, smsProperties.getPadelIndoorSupervisorNumber());
+    }
+
+    private void reply(InboundSms sms, Long bookingId, String text) {
+        notificationQueue.enqueueSms(sms.from(), text, bookingId, "sms-approval-reply");
+    }
+}
@@ -0,0 +1,82 @@
+package com.toptennis.service;
+
+import com.toptennis.sms.InboundSms;
+import com.toptennis.sms.SmsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// "ANULEAZA" from a customer's phone cancels their next booking, under the same rules as
+// the cancel link (cancelByPublicToken: not already cancelled, at least 24 h before the
+// start). With several upcoming bookings the customer names one: "ANULEAZA 18:00",
+// "ANULEAZA 25.10" or "ANULEAZA 25.10 18:00".
+@Component
+@Order(10)
+public class SmsCancelHandler implements InboundSmsHandler {
+    private static final Logger log = LoggerFactory.getLogger(SmsCancelHandler.class);
+    private static final Pattern COMMAND = Pattern.compile(
+            "^ANUL(?:EAZA|ARE)\\b(?:\\s+(\\d{1,2})[./](\\d{1,2}))?(?:\\s+(\\d{1,2})[:.](\\d{2}))?.*");
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("dd.MM");
+    private static final DateTimeFormatter HM = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final BookingService bookingService;
+    private final NotificationQueue notificationQueue;
+
+    public SmsCancelHandler(BookingService bookingService, NotificationQueue notificationQueue) {
+        this.bookingService = bookingService;
+        this.notificationQueue = notificationQueue;
+    }
+
+    @Override
+    public boolean handle(InboundSms sms) {
+        Matcher m = COMMAND.matcher(InboundSmsHandler.normalize(sms.text()));
+        if (!m.matches()) {
+            return false;
+        }
+        List<BookingService.SmsBooking> upcoming = bookingService.upcomingForPhone(sms.from()).stream()
+                .filter(b -> b.cancelToken() != null)
+                .filter(b -> m.group(1) == null || (b.date().getDayOfMonth() == Integer.parseInt(m.group(1))
+                        && b.date().getMonthValue() == Integer.parseInt(m.group(2))))
+                .filter(b -> m.group(3) == null || b.start().equals(LocalTime.of(
+                        Integer.parseInt(m.group(3)) % 24, Integer.parseInt(m.group(4)) % 60)))
+                .toList();
+        if (upcoming.isEmpty()) {
+            reply(sms, null, "Nu am gasit nicio rezervare viitoare pe acest numar" + (m.group(1) != null || m.group(3) != null
+                    ? " la data/ora indicata." : "."));
+            return true;
+        }
+        if (upcoming.size() > 1) {
+            StringBuilder sb = new StringBuilder("Ai mai multe rezervari. Raspunde cu ANULEAZA si ziua/ora, de ex.:");
+            for (BookingService.SmsBooking b : upcoming.subList(0, Math.min(3, upcoming.size()))) {
+                sb.append("\nANULEAZA ").append(b.date().format(DAY)).append(' ').append(b.start().format(HM));
+            }
+            reply(sms, null, sb.toString());
+            return true;
+        }
+        BookingService.SmsBooking booking = upcoming.get(0);
+        try {
+            bookingService.cancelByPublicToken(booking.cancelToken());
+        } catch (ResponseStatusException e) {
+            log.info("SMS cancel of booking #{} from {} refused: {}", booking.id(), sms.from(), e.getReason());
+            reply(sms, booking.id(), e.getReason());
+            return true;
+        }
+        log.info("Booking #{} cancelled by SMS from {}", booking.id(), sms.from());
+        reply(sms, booking.id(), "Rezervarea ta din " + booking.date().format(DAY) + ", " + booking.start().format(HM)
+                + "-" + booking.end().format(HM) + " a fost anulata.");
+        return true;
+    }
+
+    private void reply(InboundSms sms, Long bookingId, String text) {
+        notificationQueue.enqueueSms(sms.from(), text + SmsService.AUTOMAT_FOOTER, bookingId, "sms-cancel-reply");
+    }
+}
@@ -0,0 +1,52 @@
+package com.toptennis.sms;
+
+import java.util.function.Consumer;
+
+/**
+ * Turns the modem's byte stream into trimmed, non-empty lines, one chunk at a time:
+ * every byte is looked at once, nothing already emitted is scanned again. The SMS prompt
+ * ("> ", not followed by a line break) is emitted as a line of its own, ">".
+ *
+ * Not thread-safe; AtSerialClient feeds it from its reader thread only.
+ */
+public class AtLineParser {
+    private final StringBuilder current = new StringBuilder();
+
+    public void feed(byte[] bytes, int length, Consumer<String> out) {
+        for (int i = 0; i < length; i++) {
+            char c = (char) (bytes[i] & 0xFF);
+            if (c == '\r' || c == '\n') {
+                emit(out);
+            } else if (c == '>' && isBlank(current)) {
+                current.setLength(0);
+                out.accept(">");
+            } else {
+                current.append(c);
+            }
+        }
+    }
+
+    public void reset() {
+        current.setLength(0);
+    }
+
+    private void emit(Consumer<String> out) {
+        if (current.length() == 0) {
+            return;
+        }
+        String line = current.toString().trim();
+        current.setLength(0);
+        if (!line.isEmpty()) {
+            out.accept(line);
+        }
+    }
+
+    private static boolean isBlank(StringBuilder sb) {
+        for (int i = 0; i < sb.length(); i++) {
+            if (!Character.isWhitespace(sb.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
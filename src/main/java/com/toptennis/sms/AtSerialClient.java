@@ -1,30 +1,88 @@
 package com.toptennis.sms;
 
-import com.fazecast.jSerialComm.SerialPort;
 import com.toptennis.config.SmsProperties;
-import org.springframework.stereotype.Component;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
 
-@Component
+// AT command channel to the modem. A reader thread owns the input side of the port: it
+// splits the byte stream into lines as they arrive (AtLineParser), routes unsolicited
+// result codes (incoming SMS, delivery reports, RING, Huawei ^ status lines) to the URC
+// listeners and queues everything else as command responses. Commands then just wait on
+// that queue, and their done-condition is tested on each new line only. Each reader has
+// its own queue, so one left behind by a reconnect cannot feed the new session.
+//
+// One instance per modem; ModemPool creates them from sms.ports.
 public class AtSerialClient {
+    private static final Logger log = LoggerFactory.getLogger(AtSerialClient.class);
+    private static final long POLL_SLICE_MS = 250;
+
+    // Unsolicited result code; `continuation` is the line that follows headers such as
+    // +CMT: or a PDU-mode +CDS: <length>, null for single-line codes.
+    @FunctionalInterface
+    public interface UrcListener {
+        void onUrc(String line, String continuation);
+    }
+
+    // Where the modem session stands. The text-mode setup (CSCS/CSMP/CMGF) lives in the
+    // modem, so it is lost whenever the port is reopened or the modem is reset; SmsService
+    // configures once per session and only goes back to CONNECTED after an error.
+    public enum SessionState {
+        DISCONNECTED,   // port closed
+        CONNECTED,      // port open, text-mode setup not (or no longer) known to hold
+        READY           // setup done on this connection, AT+CMGS can be sent directly
+    }
+
     private final SmsProperties props;
+    private final String portName;
     private final ReentrantLock ioLock = new ReentrantLock(true);
-    private SerialPort port;
+    // Learned spacing between messages; kept across reconnects, the limit is the network's.
+    private final SendPacer pacer = new SendPacer();
+    private ModemTransport port;
+    private ModemEmulator emulator;
     private String lastTranscript;
+    private volatile SessionState sessionState = SessionState.DISCONNECTED;
+    private volatile Reader reader;
+    private final List<UrcListener> urcListeners = new CopyOnWriteArrayList<>();
+    // Listeners may send AT commands themselves, so they never run on the reader thread.
+    private final ExecutorService urcExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "modem-urc");
+        t.setDaemon(true);
+        return t;
+    });
 
-    public AtSerialClient(SmsProperties props) {
+    public AtSerialClient(SmsProperties props, String portName) {
         this.props = props;
+        this.portName = portName;
+    }
+
+    public String portName() {
+        return portName;
+    }
+
+    public SendPacer pacer() {
+        return pacer;
     }
 
+    public void addUrcListener(UrcListener listener) {
+        urcListeners.add(listener);
+    }
+
+    /** Sends the command and collects response lines until doneCondition accepts one of them. */
     public String execute(String command, Predicate<String> doneCondition, Duration timeout) {
         ioLock.lock();
         try {
@@ -63,6 +121,38 @@ public class AtSerialClient {
         }
     }
 
+    /** The in-process modem when sms.mode=emulator (null before the first connect or in other modes). */
+    public ModemEmulator emulator() {
+        return emulator;
+    }
+
+    public SessionState sessionState() {
+        return sessionState;
+    }
+
+    public void markSessionReady() {
+        ioLock.lock();
+        try {
+            if (port != null && port.isOpen()) {
+                sessionState = SessionState.READY;
+            }
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    // After an error, ATZ or anything else that may have changed the modem's settings.
+    public void invalidateSession() {
+        ioLock.lock();
+        try {
+            if (sessionState == SessionState.READY) {
+                sessionState = SessionState.CONNECTED;
+            }
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
     public void reconnect() {
         ioLock.lock();
         try {
@@ -80,30 +170,35 @@ public class AtSerialClient {
         if (port != null && port.isOpen()) {
             return;
         }
-        Path portPath = Path.of(props.getPort());
-        if (!Files.exists(portPath)) {
-            throw new SmsPortException("SMS port not found: " + props.getPort() + ". Ensure the device is connected and the user is in the dialout group.");
-        }
-        SerialPort sp = SerialPort.getCommPort(props.getPort());
-        sp.setComPortParameters(props.getBaud(), 8, SerialPort.ONE_STOP_BIT, SerialPort.NO_PARITY);
-        sp.setFlowControl(SerialPort.FLOW_CONTROL_DISABLED);
-        sp.setComPortTimeouts(SerialPort.TIMEOUT_READ_SEMI_BLOCKING, 1000, 0);
-        if (!sp.openPort()) {
-            throw new SmsPortException("Cannot open " + props.getPort() + ". If permission is denied, add your user to the dialout group.");
+        if ("emulator".equalsIgnoreCase(props.getMode())) {
+            // One emulator for the client's lifetime; every (re)connect is a new session on it.
+            if (emulator == null) {
+                emulator = new ModemEmulator(props.getEmulator());
+            }
+            port = emulator.connect();
+        } else {
+            port = SerialModemTransport.open(props, portName);
         }
-        sp.setDTR();
-        sp.setRTS();
-        sp.flushIOBuffers();
-        port = sp;
+        sessionState = SessionState.CONNECTED;
+        Reader r = new Reader(port);
+        Thread t = new Thread(r, "modem-reader-" + portName);
+        t.setDaemon(true);
+        t.start();
+        reader = r;
     }
 
     private void closeQuiet() {
+        if (reader != null) {
+            reader.stopped = true;
+            reader = null;
+        }
         if (port != null) {
             try {
-                port.closePort();
+                port.close();
             } catch (Exception ignored) {
             } finally {
                 port = null;
+                sessionState = SessionState.DISCONNECTED;
             }
         }
     }
@@ -114,7 +209,6 @@ public class AtSerialClient {
             ensureOpen();
             clearBuffers();
             writeLine(command);
-            sleepInterCommand();
             readUntil(doneCondition, timeout, transcript);
             lastTranscript = transcript.toString();
             return lastTranscript;
@@ -131,7 +225,6 @@ public class AtSerialClient {
         StringBuilder transcript = new StringBuilder();
         try {
             ensureOpen();
-            clearBuffers();
             if (lastTranscript != null && lastTranscript.indexOf(promptChar) >= 0) {
                 return "";
             }
@@ -151,7 +244,6 @@ public class AtSerialClient {
         StringBuilder transcript = new StringBuilder();
         try {
             ensureOpen();
-            clearBuffers();
             readUntil(doneCondition, timeout, transcript);
             lastTranscript = transcript.toString();
             return lastTranscript;
@@ -167,7 +259,7 @@ public class AtSerialClient {
     private void writeRawOnce(byte[] bytes, boolean allowRetry) throws IOException {
         try {
             ensureOpen();
-            OutputStream os = port.getOutputStream();
+            OutputStream os = port.outputStream();
             os.write(bytes);
             os.flush();
         } catch (IOException e) {
@@ -181,70 +273,133 @@ public class AtSerialClient {
     }
 
     private void writeLine(String command) throws IOException {
-        OutputStream os = port.getOutputStream();
+        OutputStream os = port.outputStream();
         os.write((command + "\r").getBytes(StandardCharsets.US_ASCII));
         os.flush();
     }
 
     private void readUntil(Predicate<String> doneCondition, Duration timeout, StringBuilder transcript) throws IOException {
-        InputStream is = port.getInputStream();
+        Reader r = reader;
+        if (r == null) {
+            throw new IOException("Modem port closed.");
+        }
         long deadline = System.currentTimeMillis() + timeout.toMillis();
-        byte[] buffer = new byte[256];
-        StringBuilder raw = new StringBuilder();
-
-        while (System.currentTimeMillis() < deadline) {
-            int read;
+        long remaining;
+        while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+            String line;
             try {
-                read = is.read(buffer);
-            } catch (com.fazecast.jSerialComm.SerialPortTimeoutException ex) {
-                continue;
+                line = r.responses.poll(Math.min(remaining, POLL_SLICE_MS), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Shutting down, not a slow modem: keep the flag for the caller's own waits.
+                Thread.currentThread().interrupt();
+                throw new SmsException("Interrupted while waiting for modem response.", transcript.toString());
             }
-            if (read <= 0) {
+            if (line == null) {
+                if (r.failure != null) {
+                    throw new IOException(r.failure.getMessage(), r.failure);
+                }
                 continue;
             }
-            String chunk = new String(buffer, 0, read, StandardCharsets.US_ASCII);
-            transcript.append(chunk);
-            raw.append(chunk);
-
-            String normalized = normalize(raw.toString());
-            if (doneCondition.test(normalized)) {
+            transcript.append(line).append('\n');
+            if (doneCondition.test(line)) {
                 return;
             }
         }
         throw new SmsException("Timed out waiting for modem response.", transcript.toString());
     }
 
-    private String normalize(String s) {
-        String cleaned = s.replace("\r", "\n");
-        String[] lines = cleaned.split("\n");
-        StringBuilder out = new StringBuilder();
-        for (String line : lines) {
-            String trimmed = line.trim();
-            if (!trimmed.isEmpty()) {
-                out.append(trimmed).append("\n");
-            }
+    // Lines left over from an earlier command (late answers after a timeout).
+    private void clearBuffers() {
+        Reader r = reader;
+        if (r != null) {
+            r.responses.clear();
         }
-        return out.toString();
     }
 
-    private void sleepInterCommand() {
-        try {
-            Thread.sleep(props.getInterCommandDelayMs());
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+    private static boolean isUrc(String line) {
+        return line.startsWith("+CMTI:") || line.startsWith("+CMT:")
+                || line.startsWith("+CDS:") || line.startsWith("+CDSI:")
+                || line.startsWith("+CBM:") || line.startsWith("+CLIP:")
+                || line.equals("RING") || line.startsWith("^");
+    }
+
+    private static boolean hasContinuation(String line) {
+        return line.startsWith("+CMT:") || line.startsWith("+CBM:") || line.matches("\\+CDS:\\s*\\d+");
+    }
+
+    private void dispatchUrc(String line, String continuation) {
+        if (urcListeners.isEmpty()) {
+            log.debug("Unsolicited modem line ignored: {}", line);
+            return;
         }
+        urcExecutor.execute(() -> {
+            for (UrcListener listener : urcListeners) {
+                try {
+                    listener.onUrc(line, continuation);
+                } catch (Exception e) {
+                    log.warn("URC listener failed for {}: {}", line, e.getMessage());
+                }
+            }
+        });
     }
 
-    private void clearBuffers() {
-        if (port != null && port.isOpen()) {
-            InputStream is = port.getInputStream();
-            try {
-                int avail = is.available();
-                if (avail > 0) {
-                    is.skip(avail);
-                    // System.out.println("[SERIAL] Cleared " + avail + " leftover bytes from buffer.");
+    private final class Reader implements Runnable {
+        private final ModemTransport transport;
+        private final AtLineParser parser = new AtLineParser();
+        private final BlockingQueue<String> responses = new LinkedBlockingQueue<>();
+        private volatile boolean stopped;
+        private volatile IOException failure;
+        private String urcHeader;
+
+        private Reader(ModemTransport transport) {
+            this.transport = transport;
+        }
+
+        @Override
+        public void run() {
+            InputStream is = transport.inputStream();
+            byte[] buffer = new byte[256];
+            while (!stopped) {
+                int read;
+                try {
+                    read = is.read(buffer);
+                } catch (com.fazecast.jSerialComm.SerialPortTimeoutException ex) {
+                    continue;
+                } catch (IOException e) {
+                    if (!stopped) {
+                        failure = e;
+                    }
+                    return;
+                }
+                if (read < 0) {
+                    if (!stopped) {
+                        failure = new IOException("Modem port closed.");
+                    }
+                    return;
+                }
+                if (read > 0) {
+                    parser.feed(buffer, read, this::onLine);
+                }
+            }
+        }
+
+        private void onLine(String line) {
+            if (stopped) {
+                // Replaced by a reconnect; whatever is still buffered belongs to the old session.
+                return;
+            }
+            if (urcHeader != null) {
+                String header = urcHeader;
+                urcHeader = null;
+                dispatchUrc(header, line);
+            } else if (isUrc(line)) {
+                if (hasContinuation(line)) {
+                    urcHeader = line;
+                } else {
+                    dispatchUrc(line, null);
                 }
-            } catch (IOException ignored) {
+            } else {
+                responses.offer(line);
             }
         }
     }
@@ -0,0 +1,247 @@
+package com.toptennis.sms;
+
+import com.toptennis.dto.SmsDeliveryStatsDto;
+import com.toptennis.dto.SmsMessageDto;
+import com.toptennis.model.SmsDeliveryStatus;
+import com.toptennis.model.SmsMessage;
+import com.toptennis.repository.SmsMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Delivery reports. Every part SmsService hands to the network is stored in sms_message
+ * under (modem, +CMGS reference); the session asks for reports (TP-SRR / AT+CSMP first
+ * octet 49) routed straight to us (AT+CNMI ...,1,...), and the +CDS lines coming in
+ * through each modem's reader mark the part DELIVERED or FAILED with the SMSC's timing.
+ *
+ * A report that beats the insert of its own message (the emulator can be that fast) is
+ * parked for a minute and applied when the message is recorded. The insert can also land
+ * between the lookup and the parking, so the report looks again once parked; whichever of
+ * the two takes the parked entry out of the map applies it, and only that one.
+ */
+@Component
+public class DeliveryReportTracker {
+    private static final Logger log = LoggerFactory.getLogger(DeliveryReportTracker.class);
+    // +CDS: <fo>,<mr>,[<ra>],[<tora>],<scts>,<dt>,<st>  (text mode)
+    private static final Pattern TEXT_REPORT = Pattern.compile(
+            "\\+CDS:\\s*\\d+,(\\d+),\"?([^\",]*)\"?,\\d*,\"([^\"]+)\",\"([^\"]+)\",(\\d+)");
+    private static final Pattern PDU_HEADER = Pattern.compile("\\+CDS:\\s*(\\d+)");
+    private static final Duration MATCH_WINDOW = Duration.ofDays(3);
+    private static final long PARKED_SECONDS = 60;
+    private static final int KEEP_DAYS = 30;
+
+    private record Parked(SmsPdu.StatusReport report, LocalDateTime receivedAt) {}
+
+    private final SmsMessageRepository repository;
+    private final Map<String, Parked> parked = new ConcurrentHashMap<>();
+
+    public DeliveryReportTracker(ModemPool modemPool, SmsMessageRepository repository) {
+        this.repository = repository;
+        for (AtSerialClient client : modemPool.clients()) {
+            client.addUrcListener((line, continuation) -> onUrc(client.portName(), line, continuation));
+        }
+    }
+
+    /** Called after a send: one row per part that got a reference (comma-separated `messageId`). */
+    public void recordSubmitted(String modem, String toE164, SmsLane lane, String messageId, int segments) {
+        if (modem == null || messageId == null || messageId.isBlank()) {
+            return;
+        }
+        String[] refs = messageId.split(",");
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < refs.length; i++) {
+            if (refs[i].isBlank()) {
+                continue;
+            }
+            SmsMessage row = new SmsMessage();
+            row.setModem(modem);
+            row.setReference(Integer.parseInt(refs[i].trim()));
+            row.setRecipient(toE164);
+            row.setLane(lane);
+            row.setPart(i + 1);
+            row.setParts(Math.max(segments, refs.length));
+            row.setStatus(SmsDeliveryStatus.SENT);
+            row.setSubmittedAt(now);
+            repository.save(row);
+            Parked early = parked.remove(key(modem, row.getReference()));
+            if (early != null) {
+                apply(row, early.report(), early.receivedAt());
+            }
+        }
+    }
+
+    private void onUrc(String modem, String line, String continuation) {
+        if (line.startsWith("+CDSI:")) {
+            // Report stored on the SIM instead of routed to us: AT+CNMI was not accepted.
+            log.warn("Delivery report stored on modem {} ({}); not read back.", modem, line);
+            return;
+        }
+        if (!line.startsWith("+CDS:")) {
+            return;
+        }
+        SmsPdu.StatusReport report;
+        try {
+            Matcher pdu = PDU_HEADER.matcher(line);
+            if (continuation != null && pdu.matches()) {
+                report = SmsPdu.decodeStatusReport(continuation, Integer.parseInt(pdu.group(1)));
+            } else {
+                report = parseTextReport(line);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Unreadable delivery report on modem {}: {} {}", modem, line, continuation);
+            return;
+        }
+        onReport(modem, report);
+    }
+
+    void onReport(String modem, SmsPdu.StatusReport report) {
+        LocalDateTime now = LocalDateTime.now();
+        SmsMessage row = awaiting(modem, report, now);
+        if (row != null) {
+            apply(row, report, now);
+            return;
+        }
+        parked.values().removeIf(p -> p.receivedAt().isBefore(now.minusSeconds(PARKED_SECONDS)));
+        String key = key(modem, report.reference());
+        Parked entry = new Parked(report, now);
+        parked.put(key, entry);
+        // recordSubmitted saves before it looks here: if it missed the entry, the row is visible now.
+        row = awaiting(modem, report, now);
+        if (row != null) {
+            if (parked.remove(key, entry)) {
+                apply(row, report, now);
+            }
+            return;
+        }
+        log.debug("Delivery report for unknown message {}#{} parked.", modem, report.reference());
+    }
+
+    private SmsMessage awaiting(String modem, SmsPdu.StatusReport report, LocalDateTime now) {
+        return repository.findAwaitingReport(modem, report.reference(), SmsDeliveryStatus.SENT,
+                        now.minus(MATCH_WINDOW), PageRequest.of(0, 5)).stream()
+                .filter(m -> sameNumber(m.getRecipient(), report.recipient()))
+                .findFirst().orElse(null);
+    }
+
+    private void apply(SmsMessage row, SmsPdu.StatusReport report, LocalDateTime receivedAt) {
+        row.setStatusCode(report.status());
+        if (report.pending()) {
+            // SMSC still trying (phone off, out of coverage); a final report follows.
+            repository.save(row);
+            return;
+        }
+        row.setStatus(report.delivered() ? SmsDeliveryStatus.DELIVERED : SmsDeliveryStatus.FAILED);
+        row.setReportAt(receivedAt);
+        if (report.discharged() != null) {
+            row.setDeliveredAt(LocalDateTime.ofInstant(report.discharged(), ZoneId.systemDefault()));
+            if (report.accepted() != null) {
+                row.setLatencyMs(Duration.between(report.accepted(), report.discharged()).toMillis());
+            }
+        }
+        repository.save(row);
+        if (row.getStatus() == SmsDeliveryStatus.FAILED) {
+            log.warn("SMS {}#{} to {} not delivered (TP-ST 0x{}).", row.getModem(), row.getReference(),
+                    row.getRecipient(), Integer.toHexString(report.status()));
+        } else {
+            log.info("SMS {}#{} to {} delivered, latency {} ms.", row.getModem(), row.getReference(),
+                    row.getRecipient(), row.getLatencyMs());
+        }
+    }
+
+    public List<SmsMessageDto> recent(int limit) {
+        List<SmsMessageDto> out = new ArrayList<>();
+        for (SmsMessage m : repository.findRecent(PageRequest.of(0, Math.max(1, Math.min(limit, 500))))) {
+            SmsMessageDto dto = new SmsMessageDto();
+            dto.id = m.getId();
+            dto.modem = m.getModem();
+            dto.reference = m.getReference();
+            dto.recipient = m.getRecipient();
+            dto.lane = m.getLane() != null ? m.getLane().name() : null;
+            dto.part = m.getPart();
+            dto.parts = m.getParts();
+            dto.status = m.getStatus().name();
+            dto.statusCode = m.getStatusCode();
+            dto.submittedAt = m.getSubmittedAt();
+            dto.reportAt = m.getReportAt();
+            dto.deliveredAt = m.getDeliveredAt();
+            dto.latencyMs = m.getLatencyMs();
+            out.add(dto);
+        }
+        return out;
+    }
+
+    public SmsDeliveryStatsDto stats(int hours) {
+        SmsDeliveryStatsDto dto = new SmsDeliveryStatsDto();
+        dto.hours = hours;
+        List<Long> latencies = new ArrayList<>();
+        long reportMsTotal = 0;
+        long reported = 0;
+        for (SmsMessage m : repository.findBySubmittedAtGreaterThanEqual(LocalDateTime.now().minusHours(hours))) {
+            dto.sent++;
+            switch (m.getStatus()) {
+                case DELIVERED -> dto.delivered++;
+                case FAILED -> dto.failed++;
+                default -> dto.pending++;
+            }
+            if (m.getStatus() == SmsDeliveryStatus.DELIVERED && m.getLatencyMs() != null) {
+                latencies.add(m.getLatencyMs());
+            }
+            if (m.getReportAt() != null) {
+                reportMsTotal += Duration.between(m.getSubmittedAt(), m.getReportAt()).toMillis();
+                reported++;
+            }
+        }
+        if (!latencies.isEmpty()) {
+            latencies.sort(null);
+            dto.avgLatencyMs = latencies.stream().mapToLong(Long::longValue).sum() / latencies.size();
+            dto.p95LatencyMs = latencies.get((int) Math.ceil(latencies.size() * 0.95) - 1);
+        }
+        dto.avgReportMs = reported == 0 ? 0 : reportMsTotal / reported;
+        return dto;
+    }
+
+    @Scheduled(cron = "0 40 3 * * *", zone = "Europe/Bucharest")
+    public void purgeOld() {
+        int removed = repository.deleteSubmittedBefore(LocalDateTime.now().minusDays(KEEP_DAYS));
+        if (removed > 0) {
+            log.info("Removed {} SMS delivery records older than {} days.", removed, KEEP_DAYS);
+        }
+    }
+
+    private static SmsPdu.StatusReport parseTextReport(String line) {
+        Matcher m = TEXT_REPORT.matcher(line);
+        if (!m.find()) {
+            throw new IllegalArgumentException("Not a +CDS report: " + line);
+        }
+        return new SmsPdu.StatusReport(Integer.parseInt(m.group(1)), m.group(2),
+                StoredSmsParser.parseTextTime(m.group(3)), StoredSmsParser.parseTextTime(m.group(4)), Integer.parseInt(m.group(5)));
+    }
+
+    // Reports may carry the number in national format; compare the last 9 digits.
+    private static boolean sameNumber(String a, String b) {
+        if (a == null || b == null || b.isBlank()) {
+            return true;
+        }
+        String da = a.replaceAll("\\D", "");
+        String db = b.replaceAll("\\D", "");
+        int n = Math.min(9, Math.min(da.length(), db.length()));
+        return n == 0 || da.substring(da.length() - n).equals(db.substring(db.length() - n));
+    }
+
+    private static String key(String modem, int reference) {
+        return modem + "#" + reference;
+    }
+}
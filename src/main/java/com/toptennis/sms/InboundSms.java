@@ -0,0 +1,13 @@
+package com.toptennis.sms;
+
+import java.time.Instant;
+
+// A message read from a modem's storage. `index` is its slot there (for AT+CMGD); for a
+// part of a concatenated message parts > 1 and concatRef / part say where it belongs.
+public record InboundSms(String modem, int index, String from, String text, Instant sentAt,
+                         int concatRef, int parts, int part) {
+
+    public InboundSms withText(String newText) {
+        return new InboundSms(modem, index, from, newText, sentAt, concatRef, 1, 1);
+    }
+}
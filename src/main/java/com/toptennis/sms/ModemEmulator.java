@@ -0,0 +1,498 @@
+package com.toptennis.sms;
+
+import com.toptennis.config.SmsProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for the USB modem (sms.mode=emulator). Speaks the part of the AT
+ * dialogue SmsService uses — AT, ATZ, AT+CSCS, AT+CSMP, AT+CMGF and the AT+CMGS prompt /
+ * body / Ctrl-Z cycle, in text mode and in PDU mode (the power-on default, as on the real
+ * modem; the PDU length is checked against the hex sent) — with no echo, as after ATE0.
+ *
+ * Latency, failures and the network rate limit come from sms.emulator.*: each submitted
+ * message may get a +CMS ERROR, no answer at all (timeout) or a dropped connection (the
+ * next read fails, as when the USB device goes away). Each connect() is a fresh modem
+ * session: text mode is off again, just like after the real port is reopened.
+ *
+ * Delivery reports: once AT+CNMI routes them to the terminal (<ds>=1) and the message asks
+ * for one (TP-SRR in the PDU, or first octet 49 in AT+CSMP), a +CDS follows every accepted
+ * message after sms.emulator.deliveryLatencyMs, in the format of the current mode.
+ *
+ * Incoming SMS: storeIncoming() puts a message on the emulated SIM, announced with
+ * +CMTI when AT+CNMI routes new messages to storage (<mt>=1); AT+CMGL, AT+CMGR and
+ * AT+CMGD work on that storage in either mode. failNextDeletes() makes AT+CMGD answer
+ * ERROR and keep the message, as a modem with a busy SIM does.
+ *
+ * Every body received is remembered for a while (RECENT_BODIES): the same body again —
+ * same PDU with its concatenation header, or same text to the same number — counts as a
+ * resend, which is what a client that retries after a lost answer ends up doing.
+ */
+public class ModemEmulator {
+    private static final Logger log = LoggerFactory.getLogger(ModemEmulator.class);
+    private static final char CTRL_Z = 0x1A;
+    private static final char ESC = 0x1B;
+    private static final long READ_TIMEOUT_MS = 1000;
+    private static final int RECENT_BODIES = 256;
+    private static final DateTimeFormatter REPORT_TIME = DateTimeFormatter.ofPattern("yy/MM/dd,HH:mm:ss'+00'")
+            .withZone(ZoneOffset.UTC);
+
+    private final SmsProperties.Emulator cfg;
+    private final Random random;
+    private final ScheduledExecutorService responder = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "modem-emulator");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicInteger messageRef = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final Deque<Long> recentSubmits = new ArrayDeque<>();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong resent = new AtomicLong();
+    private final Set<String> recentBodies = new LinkedHashSet<>();
+    private final Map<String, AtomicLong> commands = new ConcurrentHashMap<>();
+    private volatile long silentBody = -1;
+    // Emulated SIM storage, by slot index.
+    private final Map<Integer, StoredSms> storage = new TreeMap<>();
+    private final AtomicInteger failingDeletes = new AtomicInteger();
+    private volatile Connection current;
+
+    private record StoredSms(String from, String text, Instant sentAt) {}
+
+    public ModemEmulator(SmsProperties.Emulator cfg) {
+        this.cfg = cfg;
+        this.random = cfg.getSeed() != 0 ? new Random(cfg.getSeed()) : new Random();
+    }
+
+    public ModemTransport connect() {
+        Connection connection = new Connection();
+        current = connection;
+        return connection;
+    }
+
+    /** Messages accepted with +CMGS since start. */
+    public long submittedCount() {
+        return submitted.get();
+    }
+
+    /** Submissions answered with +CMS ERROR (injected or rate limited). */
+    public long rejectedCount() {
+        return rejected.get();
+    }
+
+    /** Message bodies received with a valid AT+CMGS, answered or not. */
+    public long receivedCount() {
+        return received.get();
+    }
+
+    /** Bodies received a second time (see the class comment). */
+    public long resentCount() {
+        return resent.get();
+    }
+
+    /** How often `command` (e.g. "AT+CMGF", without its arguments) came in, over all sessions. */
+    public long commandCount(String command) {
+        AtomicLong n = commands.get(command.toUpperCase());
+        return n != null ? n.get() : 0;
+    }
+
+    /** The `n`-th body from now on (1 = the next one) gets no answer, like a timeoutRate hit. */
+    public void dropAnswerTo(int n) {
+        silentBody = received.get() + n;
+    }
+
+    /** Puts a message from `fromE164` on the SIM, in the lowest free slot, and returns that slot. */
+    public int storeIncoming(String fromE164, String text) {
+        int index;
+        synchronized (storage) {
+            index = 1;
+            while (storage.containsKey(index)) {
+                index++;
+            }
+            storage.put(index, new StoredSms(fromE164, text, Instant.now()));
+        }
+        Connection c = current;
+        if (c != null && c.newMessagesToStorage) {
+            c.respond(cfg.getCommandLatencyMs(), "\r\n+CMTI: \"SM\"," + index + "\r\n");
+        }
+        return index;
+    }
+
+    /** Messages still on the SIM. */
+    public int storedCount() {
+        synchronized (storage) {
+            return storage.size();
+        }
+    }
+
+    /** The next `n` AT+CMGD answer ERROR and leave the message where it is. */
+    public void failNextDeletes(int n) {
+        failingDeletes.set(n);
+    }
+
+    // Counts the body and tells whether it is the one dropAnswerTo picked.
+    private boolean receive(String to, String body) {
+        long n = received.incrementAndGet();
+        synchronized (recentBodies) {
+            if (!recentBodies.add(to + "|" + body)) {
+                resent.incrementAndGet();
+            }
+            if (recentBodies.size() > RECENT_BODIES) {
+                recentBodies.remove(recentBodies.iterator().next());
+            }
+        }
+        return n == silentBody;
+    }
+
+    private boolean chance(double rate) {
+        if (rate <= 0) {
+            return false;
+        }
+        synchronized (random) {
+            return random.nextDouble() < rate;
+        }
+    }
+
+    private boolean overRateLimit() {
+        int max = cfg.getMaxPerMinute();
+        if (max <= 0) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (recentSubmits) {
+            while (!recentSubmits.isEmpty() && recentSubmits.peekFirst() < now - 60_000) {
+                recentSubmits.pollFirst();
+            }
+            if (recentSubmits.size() >= max) {
+                return true;
+            }
+            recentSubmits.addLast(now);
+            return false;
+        }
+    }
+
+    private final class Connection implements ModemTransport {
+        // Bytes the "modem" has sent back and the client has not read yet.
+        private final StringBuilder inbound = new StringBuilder();
+        // Bytes written by the client that don't make up a full command / body yet.
+        private final StringBuilder pending = new StringBuilder();
+        private volatile boolean open = true;
+        private boolean textMode;
+        private boolean reportsToTerminal;
+        private volatile boolean newMessagesToStorage;
+        private boolean textStatusReport;
+        private boolean awaitingBody;
+        private String recipient;
+        private int pduLength;
+
+        private final InputStream in = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                int n = read(one, 0, 1);
+                return n <= 0 ? -1 : one[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                synchronized (inbound) {
+                    long deadline = System.currentTimeMillis() + READ_TIMEOUT_MS;
+                    while (inbound.length() == 0) {
+                        if (!open) {
+                            throw new IOException("Emulated modem disconnected.");
+                        }
+                        long remaining = deadline - System.currentTimeMillis();
+                        if (remaining <= 0) {
+                            return 0;
+                        }
+                        try {
+                            inbound.wait(remaining);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return 0;
+                        }
+                    }
+                    int n = Math.min(len, inbound.length());
+                    for (int i = 0; i < n; i++) {
+                        b[off + i] = (byte) inbound.charAt(i);
+                    }
+                    inbound.delete(0, n);
+                    return n;
+                }
+            }
+
+            @Override
+            public int available() {
+                synchronized (inbound) {
+                    return inbound.length();
+                }
+            }
+        };
+
+        private final OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (!open) {
+                    throw new IOException("Emulated modem disconnected.");
+                }
+                synchronized (pending) {
+                    pending.append(new String(b, off, len, StandardCharsets.ISO_8859_1));
+                    process();
+                }
+            }
+        };
+
+        // Called with `pending` held; consumes every complete command or message body.
+        private void process() {
+            while (true) {
+                if (awaitingBody) {
+                    int end = indexOfAny(pending, CTRL_Z, ESC);
+                    if (end < 0) {
+                        return;
+                    }
+                    char terminator = pending.charAt(end);
+                    String body = pending.substring(0, end);
+                    pending.delete(0, end + 1);
+                    awaitingBody = false;
+                    if (terminator == ESC) {
+                        respond(cfg.getCommandLatencyMs(), "\r\nOK\r\n");
+                    } else if (textMode) {
+                        submit(recipient, body, textStatusReport ? recipient : null);
+                    } else if (!validPdu(body.trim(), pduLength)) {
+                        rejected.incrementAndGet();
+                        respond(cfg.getCommandLatencyMs(), "\r\n+CMS ERROR: 304\r\n");
+                    } else {
+                        String pdu = body.trim();
+                        submit("pdu", pdu, SmsPdu.requestsStatusReport(pdu) ? SmsPdu.submitAddressHex(pdu) : null);
+                    }
+                    continue;
+                }
+                int end = pending.indexOf("\r");
+                if (end < 0) {
+                    return;
+                }
+                String line = pending.substring(0, end).trim();
+                pending.delete(0, end + 1);
+                if (!line.isEmpty()) {
+                    command(line);
+                }
+            }
+        }
+
+        private void command(String line) {
+            String upper = line.toUpperCase();
+            long latency = cfg.getCommandLatencyMs();
+            int eq = upper.indexOf('=');
+            commands.computeIfAbsent(eq < 0 ? upper : upper.substring(0, eq), k -> new AtomicLong()).incrementAndGet();
+            if (upper.equals("AT") || upper.startsWith("AT+CSCS=") || upper.startsWith("ATE")) {
+                respond(latency, "\r\nOK\r\n");
+            } else if (upper.startsWith("AT+CSMP=")) {
+                String fo = upper.substring("AT+CSMP=".length()).split(",")[0].trim();
+                textStatusReport = fo.matches("\\d+") && (Integer.parseInt(fo) & 0x20) != 0;
+                respond(latency, "\r\nOK\r\n");
+            } else if (upper.startsWith("AT+CNMI=")) {
+                String[] args = upper.substring("AT+CNMI=".length()).split(",");
+                reportsToTerminal = args.length > 3 && args[3].trim().equals("1");
+                newMessagesToStorage = args.length > 1 && args[1].trim().equals("1");
+                respond(latency, "\r\nOK\r\n");
+            } else if (upper.equals("ATZ")) {
+                textMode = false;
+                reportsToTerminal = false;
+                newMessagesToStorage = false;
+                textStatusReport = false;
+                respond(latency, "\r\nOK\r\n");
+            } else if (upper.startsWith("AT+CMGF=")) {
+                textMode = upper.endsWith("=1");
+                respond(latency, "\r\nOK\r\n");
+            } else if (upper.startsWith("AT+CMGS=")) {
+                String arg = line.substring("AT+CMGS=".length()).trim();
+                boolean quoted = arg.startsWith("\"");
+                if (textMode != quoted || (!textMode && !arg.matches("\\d+"))) {
+                    // Address in PDU mode or length in text mode: wrong AT+CMGF.
+                    respond(latency, "\r\n+CMS ERROR: 304\r\n");
+                    return;
+                }
+                if (textMode) {
+                    recipient = arg.replace("\"", "");
+                } else {
+                    recipient = null;
+                    pduLength = Integer.parseInt(arg);
+                }
+                awaitingBody = true;
+                respond(latency, "\r\n> ");
+            } else if (upper.startsWith("AT+CMGL")) {
+                StringBuilder list = new StringBuilder();
+                synchronized (storage) {
+                    storage.forEach((index, sms) -> list.append(stored("+CMGL: " + index + ",", sms)));
+                }
+                respond(latency, list + "\r\nOK\r\n");
+            } else if (upper.startsWith("AT+CMGR=")) {
+                StoredSms sms;
+                synchronized (storage) {
+                    sms = storage.get(slot(upper));
+                }
+                respond(latency, sms == null ? "\r\n+CMS ERROR: 321\r\n" : stored("+CMGR: ", sms) + "\r\nOK\r\n");
+            } else if (upper.startsWith("AT+CMGD=")) {
+                if (failingDeletes.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+                    respond(latency, "\r\nERROR\r\n");
+                    return;
+                }
+                synchronized (storage) {
+                    storage.remove(slot(upper));
+                }
+                respond(latency, "\r\nOK\r\n");
+            } else {
+                respond(latency, "\r\nERROR\r\n");
+            }
+        }
+
+        // `reportTo`: recipient for the delivery report (number in text mode, address hex in
+        // PDU mode), null if the message did not ask for one.
+        private void submit(String to, String body, String reportTo) {
+            if (receive(to, body)) {
+                log.info("[EMULATOR] No answer for message to {} (dropAnswerTo)", to);
+                return;
+            }
+            if (chance(cfg.getDisconnectRate())) {
+                log.info("[EMULATOR] Dropping connection while sending to {}", to);
+                close();
+                return;
+            }
+            if (chance(cfg.getTimeoutRate())) {
+                log.info("[EMULATOR] No answer for message to {}", to);
+                return;
+            }
+            if (overRateLimit()) {
+                rejected.incrementAndGet();
+                respond(cfg.getSubmitLatencyMs(), "\r\n+CMS ERROR: 42\r\n");
+                return;
+            }
+            if (chance(cfg.getCmsErrorRate())) {
+                rejected.incrementAndGet();
+                respond(cfg.getSubmitLatencyMs(), "\r\n+CMS ERROR: 500\r\n");
+                return;
+            }
+            int ref = messageRef.updateAndGet(r -> r >= 255 ? 0 : r + 1);
+            submitted.incrementAndGet();
+            log.debug("[EMULATOR] +CMGS {} to {} ({} chars)", ref, to, body.length());
+            respond(cfg.getSubmitLatencyMs(), "\r\n+CMGS: " + ref + "\r\n\r\nOK\r\n");
+            if (reportTo != null && reportsToTerminal) {
+                respond(cfg.getSubmitLatencyMs() + cfg.getDeliveryLatencyMs(), statusReport(ref, reportTo));
+            }
+        }
+
+        private int slot(String upper) {
+            String arg = upper.substring(upper.indexOf('=') + 1).split(",")[0].trim();
+            return arg.matches("\\d+") ? Integer.parseInt(arg) : -1;
+        }
+
+        // Header (after `prefix`) and body of a stored message, in the format of the current mode.
+        private String stored(String prefix, StoredSms sms) {
+            if (textMode) {
+                return "\r\n" + prefix + "\"REC UNREAD\",\"" + sms.from() + "\",,\"" + REPORT_TIME.format(sms.sentAt())
+                        + "\"\r\n" + sms.text() + "\r\n";
+            }
+            SmsPdu.Part pdu = SmsPdu.deliver(sms.from(), sms.text(), sms.sentAt());
+            return "\r\n" + prefix + "0,," + pdu.tpduLength() + "\r\n" + pdu.hex() + "\r\n";
+        }
+
+        private String statusReport(int ref, String reportTo) {
+            Instant accepted = Instant.now();
+            Instant discharged = accepted.plusMillis(cfg.getDeliveryLatencyMs());
+            int status = chance(cfg.getDeliveryFailureRate()) ? 0x41 : 0x00;
+            if (textMode) {
+                return "\r\n+CDS: 6," + ref + ",\"" + reportTo + "\",145,\"" + REPORT_TIME.format(accepted)
+                        + "\",\"" + REPORT_TIME.format(discharged) + "\"," + status + "\r\n";
+            }
+            SmsPdu.Part report = SmsPdu.statusReport(ref, reportTo, accepted, discharged, status);
+            return "\r\n+CDS: " + report.tpduLength() + "\r\n" + report.hex() + "\r\n";
+        }
+
+        private void respond(long delayMs, String text) {
+            Runnable deliver = () -> {
+                synchronized (inbound) {
+                    if (!open) {
+                        return;
+                    }
+                    inbound.append(text);
+                    inbound.notifyAll();
+                }
+            };
+            if (delayMs <= 0) {
+                deliver.run();
+            } else {
+                responder.schedule(deliver, delayMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        // SMSC octet(s) + TPDU, with the TPDU exactly as long as announced in AT+CMGS.
+        private boolean validPdu(String hex, int tpduLength) {
+            if (hex.isEmpty() || hex.length() % 2 != 0 || !hex.matches("[0-9A-Fa-f]+")) {
+                return false;
+            }
+            int smscLength = Integer.parseInt(hex.substring(0, 2), 16);
+            return hex.length() / 2 == 1 + smscLength + tpduLength;
+        }
+
+        private int indexOfAny(StringBuilder sb, char a, char b) {
+            for (int i = 0; i < sb.length(); i++) {
+                char c = sb.charAt(i);
+                if (c == a || c == b) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public InputStream inputStream() {
+            return in;
+        }
+
+        @Override
+        public OutputStream outputStream() {
+            return out;
+        }
+
+        @Override
+        public void close() {
+            synchronized (inbound) {
+                open = false;
+                inbound.setLength(0);
+                inbound.notifyAll();
+            }
+        }
+    }
+}
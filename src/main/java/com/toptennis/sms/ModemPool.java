@@ -0,0 +1,291 @@
+package com.toptennis.sms;
+
+import com.toptennis.config.SmsProperties;
+import com.toptennis.dto.ModemStatsDto;
+import com.toptennis.dto.SmsLaneStatsDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * All configured modems (sms.ports, or just sms.port). A send borrows one modem for one
+ * message: the idle, healthy modem that has been idle the longest, so the load spreads
+ * over every modem and an OTP does not queue behind a reminder batch on another one.
+ *
+ * Circuit breaker per modem: after FAILURES_TO_OPEN consecutive failed sends the modem
+ * is skipped for a cool-down (1 min, doubling up to 10 min while it keeps failing); once
+ * the cool-down is over, the next send is its trial and a success closes the circuit.
+ *
+ * Senders waiting for a modem are served by priority, not in arrival order: each waits in
+ * the lane of its message (SmsLane) and a freed modem goes to the waiter with the highest
+ * lane weight plus one point per AGING_MS already waited. A login code overtakes a
+ * reminder batch, but a reminder that has waited long enough overtakes new login codes.
+ */
+@Component
+public class ModemPool {
+    private static final Logger log = LoggerFactory.getLogger(ModemPool.class);
+    private static final int FAILURES_TO_OPEN = 3;
+    private static final long BASE_COOL_DOWN_MS = 60_000;
+    private static final long MAX_COOL_DOWN_MS = 10 * 60_000;
+    private static final long THROUGHPUT_WINDOW_MS = 60_000;
+    private static final long AGING_MS = 4_000;
+
+    public final class Modem {
+        private final AtSerialClient client;
+        private boolean busy;
+        private long idleSince = System.currentTimeMillis();
+        private int consecutiveFailures;
+        private long openUntil;
+        private long coolDownMs = BASE_COOL_DOWN_MS;
+        private long sent;
+        private long failed;
+        private long segments;
+        private long busyMillis;
+        private final Deque<Long> recentSends = new ArrayDeque<>();
+
+        private Modem(AtSerialClient client) {
+            this.client = client;
+        }
+
+        public AtSerialClient client() {
+            return client;
+        }
+
+        private boolean circuitOpen(long now) {
+            return openUntil > now;
+        }
+    }
+
+    // One sender waiting in acquire(). Compared by identity: two waiters can look alike.
+    private static final class Waiter {
+        private final SmsLane lane;
+        private final long since;
+        private final Collection<Modem> exclude;
+
+        private Waiter(SmsLane lane, long since, Collection<Modem> exclude) {
+            this.lane = lane;
+            this.since = since;
+            this.exclude = exclude;
+        }
+
+        private double priority(long now) {
+            return lane.weight() + (double) (now - since) / AGING_MS;
+        }
+    }
+
+    private static final class LaneCounters {
+        private long granted;
+        private long timedOut;
+        private long totalWaitMs;
+        private long maxWaitMs;
+    }
+
+    private final List<Modem> modems = new ArrayList<>();
+    private final List<Waiter> waiters = new ArrayList<>();
+    private final Map<SmsLane, LaneCounters> laneCounters = new EnumMap<>(SmsLane.class);
+
+    public ModemPool(SmsProperties props) {
+        List<String> ports = props.getPorts() == null || props.getPorts().isEmpty()
+                ? List.of(props.getPort())
+                : props.getPorts();
+        for (String port : ports) {
+            modems.add(new Modem(new AtSerialClient(props, port)));
+        }
+        for (SmsLane lane : SmsLane.values()) {
+            laneCounters.put(lane, new LaneCounters());
+        }
+    }
+
+    public Collection<AtSerialClient> clients() {
+        return modems.stream().map(Modem::client).toList();
+    }
+
+    /**
+     * Borrows a modem for a message of the given lane, waiting up to `wait` for one to
+     * become free and for every higher-priority waiter to be served. Modems in `exclude`
+     * (already tried for this message) are skipped. Null if none is usable — every
+     * circuit open, or all busy for the whole wait.
+     */
+    public synchronized Modem acquire(SmsLane lane, Duration wait, Collection<Modem> exclude) throws InterruptedException {
+        long since = System.currentTimeMillis();
+        long deadline = since + wait.toMillis();
+        Waiter me = new Waiter(lane, since, exclude);
+        LaneCounters counters = laneCounters.get(lane);
+        waiters.add(me);
+        try {
+            while (true) {
+                long now = System.currentTimeMillis();
+                if (!anyUsable(exclude, now)) {
+                    counters.timedOut++;
+                    return null;
+                }
+                Modem granted = grant(me, now);
+                if (granted != null) {
+                    granted.busy = true;
+                    long waited = now - since;
+                    counters.granted++;
+                    counters.totalWaitMs += waited;
+                    counters.maxWaitMs = Math.max(counters.maxWaitMs, waited);
+                    if (waited > AGING_MS) {
+                        log.debug("SMS ({}) waited {} ms for a modem.", lane, waited);
+                    }
+                    return granted;
+                }
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    counters.timedOut++;
+                    return null;
+                }
+                wait(remaining);
+            }
+        } finally {
+            waiters.remove(me);
+            // Whoever was behind us may be first now (or there is a second free modem).
+            notifyAll();
+        }
+    }
+
+    /** Borrows one particular modem, e.g. to read the messages stored on it. */
+    public Modem acquire(AtSerialClient client, SmsLane lane, Duration wait) throws InterruptedException {
+        List<Modem> others = modems.stream().filter(m -> m.client != client).toList();
+        return acquire(lane, wait, others);
+    }
+
+    private boolean anyUsable(Collection<Modem> exclude, long now) {
+        for (Modem m : modems) {
+            if (!exclude.contains(m) && !m.circuitOpen(now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Hands out the free modems to the waiters by priority, as far as needed to see what
+    // `me` gets: a waiter that can't use any of the free modems (all in its exclude list)
+    // doesn't hold up the ones behind it.
+    private Modem grant(Waiter me, long now) {
+        List<Waiter> byPriority = new ArrayList<>(waiters);
+        byPriority.sort(Comparator.comparingDouble((Waiter w) -> -w.priority(now))
+                .thenComparingLong(w -> w.since));
+        Set<Modem> claimed = new HashSet<>();
+        for (Waiter w : byPriority) {
+            Modem best = null;
+            for (Modem m : modems) {
+                if (m.busy || claimed.contains(m) || w.exclude.contains(m) || m.circuitOpen(now)) {
+                    continue;
+                }
+                if (best == null || m.idleSince < best.idleSince) {
+                    best = m;
+                }
+            }
+            if (w == me) {
+                return best;
+            }
+            if (best != null) {
+                claimed.add(best);
+            }
+        }
+        return null;
+    }
+
+    public synchronized void release(Modem modem, boolean success, int segmentCount, long elapsedMs) {
+        long now = System.currentTimeMillis();
+        modem.busy = false;
+        modem.idleSince = now;
+        modem.busyMillis += elapsedMs;
+        if (success) {
+            modem.sent++;
+            modem.segments += segmentCount;
+            modem.recentSends.addLast(now);
+            if (modem.consecutiveFailures >= FAILURES_TO_OPEN) {
+                log.info("Modem {} is back; circuit closed.", modem.client.portName());
+            }
+            modem.consecutiveFailures = 0;
+            modem.coolDownMs = BASE_COOL_DOWN_MS;
+        } else {
+            modem.failed++;
+            modem.consecutiveFailures++;
+            if (modem.consecutiveFailures >= FAILURES_TO_OPEN) {
+                modem.openUntil = now + modem.coolDownMs;
+                log.warn("Modem {} failed {} sends in a row; skipped for {}s.",
+                        modem.client.portName(), modem.consecutiveFailures, modem.coolDownMs / 1000);
+                modem.coolDownMs = Math.min(MAX_COOL_DOWN_MS, modem.coolDownMs * 2);
+            }
+        }
+        notifyAll();
+    }
+
+    // Gives back a modem used for something other than sending: no effect on its stats
+    // or its circuit.
+    public synchronized void release(Modem modem) {
+        modem.busy = false;
+        modem.idleSince = System.currentTimeMillis();
+        notifyAll();
+    }
+
+    public synchronized List<ModemStatsDto> stats() {
+        long now = System.currentTimeMillis();
+        List<ModemStatsDto> out = new ArrayList<>();
+        for (Modem m : modems) {
+            while (!m.recentSends.isEmpty() && m.recentSends.peekFirst() < now - THROUGHPUT_WINDOW_MS) {
+                m.recentSends.pollFirst();
+            }
+            ModemStatsDto dto = new ModemStatsDto();
+            dto.port = m.client.portName();
+            dto.state = m.circuitOpen(now) ? "OPEN"
+                    : m.consecutiveFailures >= FAILURES_TO_OPEN ? "HALF_OPEN"
+                    : m.busy ? "BUSY" : "IDLE";
+            dto.session = m.client.sessionState().name();
+            dto.sent = m.sent;
+            dto.failed = m.failed;
+            dto.segments = m.segments;
+            dto.sentLastMinute = m.recentSends.size();
+            long attempts = m.sent + m.failed;
+            dto.avgSendMs = attempts == 0 ? 0 : m.busyMillis / attempts;
+            dto.consecutiveFailures = m.consecutiveFailures;
+            SendPacer pacer = m.client.pacer();
+            dto.pacingIntervalMs = pacer.intervalMs();
+            dto.pacingRatePerMinute = 60_000 / Math.max(1, dto.pacingIntervalMs);
+            dto.pacingFloorMs = pacer.floorMs();
+            dto.pacingBackoffs = pacer.backoffs();
+            dto.pacingWaitedMs = pacer.waitedMs();
+            out.add(dto);
+        }
+        return out;
+    }
+
+    public synchronized List<SmsLaneStatsDto> laneStats() {
+        long now = System.currentTimeMillis();
+        List<SmsLaneStatsDto> out = new ArrayList<>();
+        for (SmsLane lane : SmsLane.values()) {
+            LaneCounters c = laneCounters.get(lane);
+            SmsLaneStatsDto dto = new SmsLaneStatsDto();
+            dto.lane = lane.name();
+            dto.weight = lane.weight();
+            for (Waiter w : waiters) {
+                if (w.lane == lane) {
+                    dto.queued++;
+                    dto.oldestWaitMs = Math.max(dto.oldestWaitMs, now - w.since);
+                }
+            }
+            dto.granted = c.granted;
+            dto.timedOut = c.timedOut;
+            dto.avgWaitMs = c.granted == 0 ? 0 : c.totalWaitMs / c.granted;
+            dto.maxWaitMs = c.maxWaitMs;
+            out.add(dto);
+        }
+        return out;
+    }
+}
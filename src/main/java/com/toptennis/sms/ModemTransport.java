@@ -0,0 +1,17 @@
+package com.toptennis.sms;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+// The byte pipe AtSerialClient talks AT over: the USB modem's serial port in production,
+// an in-process ModemEmulator for load and latency tests. Reads behave like jSerialComm's
+// semi-blocking mode: wait up to about a second, then return 0 if nothing arrived.
+public interface ModemTransport {
+    boolean isOpen();
+
+    InputStream inputStream();
+
+    OutputStream outputStream();
+
+    void close();
+}
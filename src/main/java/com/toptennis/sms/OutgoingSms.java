@@ -0,0 +1,9 @@
+package com.toptennis.sms;
+
+// A composed SMS that has not been sent yet: recipient as stored on the booking/account
+// (sendSms turns 07... into +407...), the final text and the lane it waits in for a modem.
+public record OutgoingSms(String to, String text, SmsLane lane) {
+    public OutgoingSms(String to, String text) {
+        this(to, text, SmsLane.CUSTOMER);
+    }
+}
@@ -0,0 +1,89 @@
+package com.toptennis.sms;
+
+/**
+ * Spacing between messages on one modem, learned from how the modem answers instead of
+ * fixed sleeps. A token bucket (burst of BURST messages) refilled at one token per
+ * `interval`: every +CMS ERROR or timeout doubles the interval and remembers it as the
+ * floor not to undercut for a while; every SPEED_UP_AFTER accepted messages in a row
+ * shorten it again, never below the floor, which itself decays slowly so the pacer keeps
+ * probing for a faster rate once the network calms down.
+ *
+ * One per AtSerialClient; only the sender holding that modem calls acquire().
+ */
+public class SendPacer {
+    private static final double MIN_INTERVAL_MS = 50;
+    private static final double MAX_INTERVAL_MS = 15_000;
+    private static final double START_INTERVAL_MS = 250;
+    private static final int BURST = 2;
+    private static final int SPEED_UP_AFTER = 5;
+    private static final double SPEED_UP_FACTOR = 0.85;
+    private static final double FLOOR_DECAY = 0.98;
+
+    private double intervalMs = START_INTERVAL_MS;
+    private double floorMs = MIN_INTERVAL_MS;
+    private double tokens = BURST;
+    private long lastRefill = System.nanoTime();
+    private int streak;
+    private long backoffs;
+    private long waitedMs;
+
+    /** Blocks until the next message may go out. */
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitMs = reserve();
+            if (waitMs <= 0) {
+                return;
+            }
+            Thread.sleep(waitMs);
+        }
+    }
+
+    // Takes a token if there is one (0), otherwise says how long until there will be.
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        tokens = Math.min(BURST, tokens + (now - lastRefill) / 1_000_000.0 / intervalMs);
+        lastRefill = now;
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        long wait = (long) Math.ceil((1 - tokens) * intervalMs);
+        waitedMs += wait;
+        return wait;
+    }
+
+    public synchronized void onAccepted() {
+        floorMs = Math.max(MIN_INTERVAL_MS, floorMs * FLOOR_DECAY);
+        if (++streak >= SPEED_UP_AFTER) {
+            streak = 0;
+            intervalMs = Math.max(floorMs, intervalMs * SPEED_UP_FACTOR);
+        }
+    }
+
+    /** +CMS ERROR or no answer: the modem / network did not keep up. */
+    public synchronized void onRejected() {
+        streak = 0;
+        backoffs++;
+        floorMs = Math.min(MAX_INTERVAL_MS, Math.max(floorMs, intervalMs));
+        intervalMs = Math.min(MAX_INTERVAL_MS, intervalMs * 2);
+        // No burst right after an error.
+        tokens = Math.min(tokens, 0);
+    }
+
+    public synchronized long intervalMs() {
+        return Math.round(intervalMs);
+    }
+
+    public synchronized long floorMs() {
+        return Math.round(floorMs);
+    }
+
+    public synchronized long backoffs() {
+        return backoffs;
+    }
+
+    /** Total time senders were held back by the pacer. */
+    public synchronized long waitedMs() {
+        return waitedMs;
+    }
+}
@@ -0,0 +1,56 @@
+package com.toptennis.sms;
+
+import com.fazecast.jSerialComm.SerialPort;
+import com.toptennis.config.SmsProperties;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// The real modem, through jSerialComm.
+public class SerialModemTransport implements ModemTransport {
+    private final SerialPort port;
+
+    private SerialModemTransport(SerialPort port) {
+        this.port = port;
+    }
+
+    public static SerialModemTransport open(SmsProperties props, String portName) {
+        Path portPath = Path.of(portName);
+        if (!Files.exists(portPath)) {
+            throw new SmsPortException("SMS port not found: " + portName + ". Ensure the device is connected and the user is in the dialout group.");
+        }
+        SerialPort sp = SerialPort.getCommPort(portName);
+        sp.setComPortParameters(props.getBaud(), 8, SerialPort.ONE_STOP_BIT, SerialPort.NO_PARITY);
+        sp.setFlowControl(SerialPort.FLOW_CONTROL_DISABLED);
+        sp.setComPortTimeouts(SerialPort.TIMEOUT_READ_SEMI_BLOCKING, 1000, 0);
+        if (!sp.openPort()) {
+            throw new SmsPortException("Cannot open " + portName + ". If permission is denied, add your user to the dialout group.");
+        }
+        sp.setDTR();
+        sp.setRTS();
+        sp.flushIOBuffers();
+        return new SerialModemTransport(sp);
+    }
+
+    @Override
+    public boolean isOpen() {
+        return port.isOpen();
+    }
+
+    @Override
+    public InputStream inputStream() {
+        return port.getInputStream();
+    }
+
+    @Override
+    public OutputStream outputStream() {
+        return port.getOutputStream();
+    }
+
+    @Override
+    public void close() {
+        port.closePort();
+    }
+}
@@ -0,0 +1,21 @@
+package com.toptennis.sms;
+
+// Priority lane of an outgoing SMS. When several senders wait for a modem, the one with
+// the highest weight goes first; waiting adds to the weight (see ModemPool), so a
+// reminder still goes out during a burst of login codes.
+public enum SmsLane {
+    OTP(8),
+    CUSTOMER(4),
+    ADMIN(2),
+    REMINDER(1);
+
+    private final int weight;
+
+    SmsLane(int weight) {
+        this.weight = weight;
+    }
+
+    public int weight() {
+        return weight;
+    }
+}
@@ -0,0 +1,494 @@
+package com.toptennis.sms;
+
+import java.io.ByteArrayOutputStream;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SMS-SUBMIT PDUs for AT+CMGS in PDU mode (AT+CMGF=0). Text that fits the GSM 03.38
+ * default alphabet (plus its extension table) is packed as 7-bit septets; anything else
+ * goes out as UCS-2. Longer texts are split into concatenated parts with an 8-bit
+ * reference UDH — 153 septets / 67 UCS-2 characters per part, 160 / 70 for a single
+ * SMS — without cutting an escape sequence or a surrogate pair in two.
+ *
+ * Same parameters as the text-mode setup (AT+CSMP=17,167,0,0): validity 24 h, PID 0.
+ * The SMSC comes from the SIM. With a status report requested (TP-SRR) the network answers
+ * later with an SMS-STATUS-REPORT, which decodeStatusReport reads back from +CDS.
+ */
+public final class SmsPdu {
+    private static final String GSM7_BASIC =
+            "@£$¥èéùìòÇ\nØø\rÅåΔ_ΦΓΛΩΠΨΣΘΞ\u001BÆæßÉ !\"#¤%&'()*+,-./0123456789:;<=>?"
+            + "¡ABCDEFGHIJKLMNOPQRSTUVWXYZÄÖÑÜ§¿abcdefghijklmnopqrstuvwxyzäöñüà";
+    private static final String GSM7_EXT_CHARS = "\f^{}\\[~]|€";
+    private static final int[] GSM7_EXT_CODES = {0x0A, 0x14, 0x28, 0x29, 0x2F, 0x3C, 0x3D, 0x3E, 0x40, 0x65};
+    private static final int ESC = 0x1B;
+
+    private static final int GSM7_SINGLE = 160;
+    private static final int GSM7_PART = 153;
+    private static final int UCS2_SINGLE = 70;
+    private static final int UCS2_PART = 67;
+
+    private static final int FIRST_OCTET = 0x11;      // SMS-SUBMIT, relative validity period
+    private static final int UDHI = 0x40;
+    private static final int SRR = 0x20;              // status report requested
+    private static final int MTI_MASK = 0x03;
+    private static final int MTI_STATUS_REPORT = 0x02;
+    private static final int MTI_DELIVER = 0x00;
+    private static final int VALIDITY_24H = 0xA7;     // 167
+    private static final int DCS_GSM7 = 0x00;
+    private static final int DCS_UCS2 = 0x08;
+
+    /**
+     * A received SMS-DELIVER. For one part of a concatenated message `parts` > 1 and
+     * `concatRef` / `part` tell where it belongs; otherwise parts = part = 1.
+     */
+    public record Deliver(String sender, String text, Instant sentAt, int concatRef, int parts, int part) {}
+
+    /** One part ready for the modem: hex PDU (SMSC octet included) and the length AT+CMGS expects. */
+    public record Part(String hex, int tpduLength) {}
+
+    /**
+     * SMS-STATUS-REPORT for one submitted part. `reference` is the TP-MR the modem
+     * returned in +CMGS; `accepted` / `discharged` are the SMSC's timestamps (null when
+     * the network sends garbage there). TP-ST 0x00-0x1F: delivered; 0x20-0x3F: still
+     * trying; anything above: the SMSC gave up.
+     */
+    public record StatusReport(int reference, String recipient, Instant accepted, Instant discharged, int status) {
+        public boolean delivered() {
+            return status < 0x20;
+        }
+
+        public boolean pending() {
+            return status >= 0x20 && status < 0x40;
+        }
+    }
+
+    private SmsPdu() {}
+
+    public static boolean isGsm7(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (GSM7_BASIC.indexOf(c) < 0 && GSM7_EXT_CHARS.indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static int segmentCount(String text) {
+        String t = text == null ? "" : text;
+        if (isGsm7(t)) {
+            return splitSeptets(toSeptets(t)).size();
+        }
+        return splitUcs2(t).size();
+    }
+
+    /**
+     * @param reference concatenation reference (0-255), shared by all parts of this text;
+     *                  ignored when the text fits in one SMS
+     * @param statusReport ask the network for an SMS-STATUS-REPORT per part
+     */
+    public static List<Part> encode(String toE164, String text, int reference, boolean statusReport) {
+        String t = text == null ? "" : text;
+        String address = encodeAddress(toE164);
+        List<Part> parts = new ArrayList<>();
+        if (isGsm7(t)) {
+            List<int[]> chunks = splitSeptets(toSeptets(t));
+            for (int i = 0; i < chunks.size(); i++) {
+                byte[] udh = chunks.size() > 1 ? udh(reference, chunks.size(), i + 1) : new byte[0];
+                int[] septets = chunks.get(i);
+                int fillBits = udh.length == 0 ? 0 : (7 - (udh.length * 8) % 7) % 7;
+                int udl = (udh.length * 8 + fillBits) / 7 + septets.length;
+                byte[] ud = pack(udh, fillBits, septets);
+                parts.add(part(address, udh.length > 0, statusReport, DCS_GSM7, udl, ud));
+            }
+        } else {
+            List<String> chunks = splitUcs2(t);
+            for (int i = 0; i < chunks.size(); i++) {
+                byte[] udh = chunks.size() > 1 ? udh(reference, chunks.size(), i + 1) : new byte[0];
+                ByteArrayOutputStream ud = new ByteArrayOutputStream();
+                ud.writeBytes(udh);
+                for (char c : chunks.get(i).toCharArray()) {
+                    ud.write(c >> 8);
+                    ud.write(c & 0xFF);
+                }
+                byte[] bytes = ud.toByteArray();
+                parts.add(part(address, udh.length > 0, statusReport, DCS_UCS2, bytes.length, bytes));
+            }
+        }
+        return parts;
+    }
+
+    private static Part part(String address, boolean hasUdh, boolean statusReport, int dcs, int udl, byte[] ud) {
+        StringBuilder tpdu = new StringBuilder();
+        appendHex(tpdu, FIRST_OCTET | (hasUdh ? UDHI : 0) | (statusReport ? SRR : 0));
+        appendHex(tpdu, 0x00);                 // TP-MR, filled in by the modem
+        tpdu.append(address);
+        appendHex(tpdu, 0x00);                 // TP-PID
+        appendHex(tpdu, dcs);
+        appendHex(tpdu, VALIDITY_24H);
+        appendHex(tpdu, udl);
+        for (byte b : ud) {
+            appendHex(tpdu, b & 0xFF);
+        }
+        return new Part("00" + tpdu, tpdu.length() / 2);
+    }
+
+    /**
+     * Reads the PDU that follows "+CDS: <length>". The SMSC address in front is optional
+     * (some modems leave it out); `tpduLength` tells which one it is.
+     *
+     * @throws IllegalArgumentException if this is not a well-formed status report
+     */
+    public static StatusReport decodeStatusReport(String hex, int tpduLength) {
+        byte[] b = fromHex(hex);
+        int i = b.length > tpduLength ? 1 + (b[0] & 0xFF) : 0;
+        if (b.length < i + 4 || ((b[i] & MTI_MASK) != MTI_STATUS_REPORT)) {
+            throw new IllegalArgumentException("Not an SMS-STATUS-REPORT: " + hex);
+        }
+        int reference = b[i + 1] & 0xFF;
+        int digits = b[i + 2] & 0xFF;
+        int toa = b[i + 3] & 0xFF;
+        int addressStart = i + 4;
+        int scts = addressStart + (digits + 1) / 2;
+        int statusAt = scts + 14;
+        if (b.length <= statusAt) {
+            throw new IllegalArgumentException("Truncated SMS-STATUS-REPORT: " + hex);
+        }
+        StringBuilder recipient = new StringBuilder(toa == 0x91 ? "+" : "");
+        for (int d = 0; d < digits; d++) {
+            int octet = b[addressStart + d / 2] & 0xFF;
+            recipient.append(Character.forDigit(d % 2 == 0 ? octet & 0xF : octet >> 4, 16));
+        }
+        return new StatusReport(reference, recipient.toString(), decodeTimestamp(b, scts),
+                decodeTimestamp(b, scts + 7), b[statusAt] & 0xFF);
+    }
+
+    /**
+     * Reads an incoming message as listed by AT+CMGR / AT+CMGL in PDU mode. GSM-7, UCS-2
+     * and 8-bit data (taken as Latin-1); alphanumeric senders are decoded too.
+     *
+     * @throws IllegalArgumentException if this is not a well-formed SMS-DELIVER
+     */
+    public static Deliver decodeDeliver(String hex, int tpduLength) {
+        byte[] b = fromHex(hex);
+        int i = b.length > tpduLength ? 1 + (b[0] & 0xFF) : 0;
+        if (b.length < i + 3 || (b[i] & MTI_MASK) != MTI_DELIVER) {
+            throw new IllegalArgumentException("Not an SMS-DELIVER: " + hex);
+        }
+        boolean hasUdh = (b[i] & UDHI) != 0;
+        int digits = b[i + 1] & 0xFF;
+        int toa = b[i + 2] & 0xFF;
+        int addressStart = i + 3;
+        int addressOctets = (digits + 1) / 2;
+        int pidAt = addressStart + addressOctets;
+        int udlAt = pidAt + 2 + 7;
+        if (b.length <= udlAt) {
+            throw new IllegalArgumentException("Truncated SMS-DELIVER: " + hex);
+        }
+        String sender;
+        if ((toa & 0x70) == 0x50) {
+            // Alphanumeric sender ("Orange", "BancaX"): GSM-7 packed in the address field.
+            byte[] packed = java.util.Arrays.copyOfRange(b, addressStart, addressStart + addressOctets);
+            sender = septetsToText(unpack(packed, 0, digits * 4 / 7));
+        } else {
+            StringBuilder sb = new StringBuilder(toa == 0x91 ? "+" : "");
+            for (int d = 0; d < digits; d++) {
+                int octet = b[addressStart + d / 2] & 0xFF;
+                sb.append(Character.forDigit(d % 2 == 0 ? octet & 0xF : octet >> 4, 16));
+            }
+            sender = sb.toString();
+        }
+        int dcs = b[pidAt + 1] & 0xFF;
+        Instant sentAt = decodeTimestamp(b, pidAt + 2);
+        int udl = b[udlAt] & 0xFF;
+        byte[] ud = java.util.Arrays.copyOfRange(b, udlAt + 1, b.length);
+
+        int headerOctets = 0;
+        int concatRef = 0;
+        int parts = 1;
+        int part = 1;
+        if (hasUdh && ud.length > 0) {
+            int udhl = ud[0] & 0xFF;
+            headerOctets = 1 + udhl;
+            for (int p = 1; p + 1 < headerOctets && p + 1 < ud.length; ) {
+                int iei = ud[p] & 0xFF;
+                int len = ud[p + 1] & 0xFF;
+                if (iei == 0x00 && len == 3 && p + 4 < ud.length) {
+                    concatRef = ud[p + 2] & 0xFF;
+                    parts = ud[p + 3] & 0xFF;
+                    part = ud[p + 4] & 0xFF;
+                } else if (iei == 0x08 && len == 4 && p + 5 < ud.length) {
+                    concatRef = (ud[p + 2] & 0xFF) << 8 | (ud[p + 3] & 0xFF);
+                    parts = ud[p + 4] & 0xFF;
+                    part = ud[p + 5] & 0xFF;
+                }
+                p += 2 + len;
+            }
+        }
+
+        String text;
+        switch (alphabet(dcs)) {
+            case DCS_UCS2 -> {
+                StringBuilder sb = new StringBuilder();
+                for (int k = headerOctets; k + 1 < ud.length; k += 2) {
+                    sb.append((char) ((ud[k] & 0xFF) << 8 | (ud[k + 1] & 0xFF)));
+                }
+                text = sb.toString();
+            }
+            case DCS_GSM7 -> {
+                int skip = (headerOctets * 8 + 6) / 7;
+                text = septetsToText(unpack(ud, skip, udl - skip));
+            }
+            default -> text = new String(ud, headerOctets, Math.max(0, ud.length - headerOctets),
+                    java.nio.charset.StandardCharsets.ISO_8859_1);
+        }
+        return new Deliver(sender, text, sentAt, concatRef, Math.max(1, parts), Math.max(1, part));
+    }
+
+    // DCS -> DCS_GSM7, DCS_UCS2 or 0x04 (8-bit), for the general and the 0xF0 coding groups.
+    private static int alphabet(int dcs) {
+        if ((dcs & 0xF0) == 0xF0) {
+            return (dcs & 0x04) != 0 ? 0x04 : DCS_GSM7;
+        }
+        if ((dcs & 0xC0) == 0x00 || (dcs & 0xF0) == 0xE0) {
+            int a = dcs & 0x0C;
+            return a == 0x08 || (dcs & 0xF0) == 0xE0 ? DCS_UCS2 : a == 0x04 ? 0x04 : DCS_GSM7;
+        }
+        return DCS_GSM7;
+    }
+
+    // `count` septets starting at septet `from` of the packed bytes.
+    private static int[] unpack(byte[] packed, int from, int count) {
+        int n = Math.max(0, Math.min(count, packed.length * 8 / 7 - from));
+        int[] out = new int[n];
+        for (int k = 0; k < n; k++) {
+            int bitPos = (from + k) * 7;
+            int value = 0;
+            for (int bit = 0; bit < 7; bit++) {
+                int p = bitPos + bit;
+                if ((packed[p / 8] >> (p % 8) & 1) != 0) {
+                    value |= 1 << bit;
+                }
+            }
+            out[k] = value;
+        }
+        return out;
+    }
+
+    private static String septetsToText(int[] septets) {
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < septets.length; k++) {
+            int s = septets[k];
+            if (s == ESC && k + 1 < septets.length) {
+                int code = septets[++k];
+                int ext = -1;
+                for (int e = 0; e < GSM7_EXT_CODES.length; e++) {
+                    if (GSM7_EXT_CODES[e] == code) {
+                        ext = e;
+                    }
+                }
+                sb.append(ext >= 0 ? GSM7_EXT_CHARS.charAt(ext) : ' ');
+            } else if (s < GSM7_BASIC.length()) {
+                sb.append(GSM7_BASIC.charAt(s));
+            }
+        }
+        return sb.toString();
+    }
+
+    // Used by ModemEmulator: does this SMS-SUBMIT (SMSC octet included) ask for a report,
+    // and who is it for.
+    static boolean requestsStatusReport(String submitHex) {
+        byte[] b = fromHex(submitHex);
+        int i = 1 + (b[0] & 0xFF);
+        return b.length > i && (b[i] & SRR) != 0;
+    }
+
+    static String submitAddressHex(String submitHex) {
+        byte[] b = fromHex(submitHex);
+        int i = 1 + (b[0] & 0xFF) + 2;
+        int octets = 2 + ((b[i] & 0xFF) + 1) / 2;
+        return submitHex.substring(i * 2, (i + octets) * 2);
+    }
+
+    // Report as a modem shows it after +CDS: (no SMSC address), timestamps in UTC.
+    static Part statusReport(int reference, String addressHex, Instant accepted, Instant discharged, int status) {
+        StringBuilder tpdu = new StringBuilder();
+        appendHex(tpdu, MTI_STATUS_REPORT);
+        appendHex(tpdu, reference & 0xFF);
+        tpdu.append(addressHex);
+        appendTimestamp(tpdu, accepted);
+        appendTimestamp(tpdu, discharged);
+        appendHex(tpdu, status);
+        return new Part("00" + tpdu, tpdu.length() / 2);
+    }
+
+    // A single-part SMS-DELIVER as a modem stores it (SMSC octet 00), timestamp in UTC.
+    static Part deliver(String fromE164, String text, Instant sentAt) {
+        if (segmentCount(text) > 1) {
+            throw new IllegalArgumentException("Only single-part messages are built here.");
+        }
+        StringBuilder tpdu = new StringBuilder();
+        appendHex(tpdu, MTI_DELIVER | 0x04);   // TP-MMS: no more messages waiting
+        tpdu.append(encodeAddress(fromE164));
+        appendHex(tpdu, 0x00);                 // TP-PID
+        if (isGsm7(text)) {
+            int[] septets = toSeptets(text);
+            appendHex(tpdu, DCS_GSM7);
+            appendTimestamp(tpdu, sentAt);
+            appendHex(tpdu, septets.length);
+            for (byte b : pack(new byte[0], 0, septets)) {
+                appendHex(tpdu, b & 0xFF);
+            }
+        } else {
+            appendHex(tpdu, DCS_UCS2);
+            appendTimestamp(tpdu, sentAt);
+            appendHex(tpdu, text.length() * 2);
+            for (char c : text.toCharArray()) {
+                appendHex(tpdu, c >> 8);
+                appendHex(tpdu, c & 0xFF);
+            }
+        }
+        return new Part("00" + tpdu, tpdu.length() / 2);
+    }
+
+    private static String encodeAddress(String number) {
+        String n = number == null ? "" : number.trim();
+        boolean international = n.startsWith("+");
+        String digits = n.replaceAll("[^0-9]", "");
+        StringBuilder sb = new StringBuilder();
+        appendHex(sb, digits.length());
+        appendHex(sb, international ? 0x91 : 0x81);
+        String padded = digits.length() % 2 == 0 ? digits : digits + "F";
+        for (int i = 0; i < padded.length(); i += 2) {
+            sb.append(padded.charAt(i + 1)).append(padded.charAt(i));
+        }
+        return sb.toString();
+    }
+
+    private static byte[] udh(int reference, int total, int sequence) {
+        return new byte[]{0x05, 0x00, 0x03, (byte) reference, (byte) total, (byte) sequence};
+    }
+
+    private static int[] toSeptets(String text) {
+        int[] out = new int[text.length() * 2];
+        int n = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int basic = GSM7_BASIC.indexOf(c);
+            if (basic >= 0) {
+                out[n++] = basic;
+            } else {
+                out[n++] = ESC;
+                out[n++] = GSM7_EXT_CODES[GSM7_EXT_CHARS.indexOf(c)];
+            }
+        }
+        return java.util.Arrays.copyOf(out, n);
+    }
+
+    private static List<int[]> splitSeptets(int[] septets) {
+        List<int[]> chunks = new ArrayList<>();
+        if (septets.length <= GSM7_SINGLE) {
+            chunks.add(septets);
+            return chunks;
+        }
+        int from = 0;
+        while (from < septets.length) {
+            int to = Math.min(from + GSM7_PART, septets.length);
+            // An escape must stay with the character it introduces.
+            if (to < septets.length && septets[to - 1] == ESC) {
+                to--;
+            }
+            chunks.add(java.util.Arrays.copyOfRange(septets, from, to));
+            from = to;
+        }
+        return chunks;
+    }
+
+    private static List<String> splitUcs2(String text) {
+        List<String> chunks = new ArrayList<>();
+        if (text.length() <= UCS2_SINGLE) {
+            chunks.add(text);
+            return chunks;
+        }
+        int from = 0;
+        while (from < text.length()) {
+            int to = Math.min(from + UCS2_PART, text.length());
+            if (to < text.length() && Character.isHighSurrogate(text.charAt(to - 1))) {
+                to--;
+            }
+            chunks.add(text.substring(from, to));
+            from = to;
+        }
+        return chunks;
+    }
+
+    // Header octets first, then `fillBits` zero bits, then the septets LSB-first.
+    private static byte[] pack(byte[] header, int fillBits, int[] septets) {
+        int offset = header.length * 8 + fillBits;
+        int totalBits = offset + septets.length * 7;
+        byte[] out = new byte[(totalBits + 7) / 8];
+        System.arraycopy(header, 0, out, 0, header.length);
+        for (int i = 0; i < septets.length; i++) {
+            int bitPos = offset + i * 7;
+            for (int b = 0; b < 7; b++) {
+                if ((septets[i] >> b & 1) != 0) {
+                    int p = bitPos + b;
+                    out[p / 8] |= (byte) (1 << (p % 8));
+                }
+            }
+        }
+        return out;
+    }
+
+    // TP-SCTS / TP-DT: yy MM dd hh mm ss tz, each as two swapped BCD digits; the time zone
+    // is in quarters of an hour, bit 3 of its first digit is the sign.
+    private static Instant decodeTimestamp(byte[] b, int at) {
+        int[] v = new int[6];
+        for (int k = 0; k < 6; k++) {
+            v[k] = swappedBcd(b[at + k]);
+        }
+        int tz = b[at + 6] & 0xFF;
+        int quarters = (tz & 0x07) * 10 + (tz >> 4);
+        int offsetSeconds = ((tz & 0x08) != 0 ? -quarters : quarters) * 15 * 60;
+        try {
+            return OffsetDateTime.of(2000 + v[0], v[1], v[2], v[3], v[4], v[5], 0,
+                    ZoneOffset.ofTotalSeconds(offsetSeconds)).toInstant();
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static void appendTimestamp(StringBuilder sb, Instant instant) {
+        OffsetDateTime t = instant.atOffset(ZoneOffset.UTC);
+        int[] v = {t.getYear() % 100, t.getMonthValue(), t.getDayOfMonth(), t.getHour(), t.getMinute(), t.getSecond(), 0};
+        for (int value : v) {
+            appendHex(sb, (value % 10) << 4 | value / 10);
+        }
+    }
+
+    private static int swappedBcd(byte octet) {
+        return (octet & 0x0F) * 10 + ((octet >> 4) & 0x0F);
+    }
+
+    private static byte[] fromHex(String hex) {
+        String h = hex == null ? "" : hex.trim();
+        if (h.length() % 2 != 0 || !h.matches("[0-9A-Fa-f]*")) {
+            throw new IllegalArgumentException("Not a hex PDU: " + hex);
+        }
+        byte[] out = new byte[h.length() / 2];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = (byte) Integer.parseInt(h.substring(i * 2, i * 2 + 2), 16);
+        }
+        return out;
+    }
+
+    private static void appendHex(StringBuilder sb, int value) {
+        sb.append(Character.toUpperCase(Character.forDigit((value >> 4) & 0xF, 16)))
+          .append(Character.toUpperCase(Character.forDigit(value & 0xF, 16)));
+    }
+}
@@ -14,7 +14,9 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.Duration;
 import java.time.ZoneId;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.math.BigDecimal;
@@ -24,38 +26,165 @@ import java.time.format.DateTimeFormatter;
 public class SmsService {
     private static final Logger log = LoggerFactory.getLogger(SmsService.class);
     private static final Pattern CMGS_ID = Pattern.compile("\\+CMGS:\\s*(\\d+)");
-    private final AtSerialClient client;
+    private final ModemPool modemPool;
+    private final DeliveryReportTracker deliveryReports;
     private final SmsProperties props;
-    private final ReentrantLock sendLock = new ReentrantLock(true);
+    // Concatenated-SMS reference (8 bit), so a phone never merges parts of two messages.
+    private final AtomicInteger concatReference = new AtomicInteger(new java.util.Random().nextInt(256));
 
-    public SmsService(AtSerialClient client, SmsProperties props) {
-        this.client = client;
+    public SmsService(ModemPool modemPool, DeliveryReportTracker deliveryReports, SmsProperties props) {
+        this.modemPool = modemPool;
+        this.deliveryReports = deliveryReports;
         this.props = props;
     }
 
-    public SmsSendResult sendSms(String toE164, String text) {
-        if (toE164 != null && toE164.startsWith("07")) {
-            toE164 = "+40" + toE164.substring(1);
-        }
-        
+    public SmsSendResult sendSms(String toE164, String text, SmsLane lane) {
+        return sendBatch(List.of(new OutgoingSms(toE164, text, lane))).get(0);
+    }
+
+    /**
+     * Sends the messages in order, one result per message, as back-to-back AT+CMGS cycles.
+     * Each message borrows a modem from the pool, queued in its own lane; a modem keeps
+     * its setup between messages, so it is configured once per session, not once per message.
+     */
+    public List<SmsSendResult> sendBatch(List<OutgoingSms> messages) {
+        List<SmsSendResult> results = new ArrayList<>(messages.size());
         if ("mock".equalsIgnoreCase(props.getMode())) {
-            log.info("====== SMS MOCK (MODE=MOCK) ======");
-            log.info("To: {}", toE164);
-            log.info("Text: {}", text);
-            log.info("==================================");
-            SmsSendResult result = new SmsSendResult();
-            result.success = true;
-            result.messageId = "MOCK-" + System.currentTimeMillis();
-            result.transcript = "Mock mode active. No real SMS sent.";
-            return result;
+            for (OutgoingSms sms : messages) {
+                log.info("====== SMS MOCK (MODE=MOCK) ======");
+                log.info("To: {}", toE164(sms.to()));
+                log.info("Text: {}", sms.text());
+                log.info("==================================");
+                SmsSendResult result = new SmsSendResult();
+                result.success = true;
+                result.messageId = "MOCK-" + System.currentTimeMillis();
+                result.transcript = "Mock mode active. No real SMS sent.";
+                result.segments = SmsPdu.segmentCount(foldDiacritics(sms.text()));
+                results.add(result);
+            }
+            return results;
+        }
+
+        for (OutgoingSms sms : messages) {
+            results.add(sendPooled(toE164(sms.to()), sms.text(), sms.lane()));
+        }
+        return results;
+    }
+
+    // A failed send moves on to the next healthy modem, as long as nothing reached the
+    // network yet (a multipart message that failed halfway carries the ids of its sent parts,
+    // a body left without an answer is possiblySent).
+    private SmsSendResult sendPooled(String toE164, String text, SmsLane lane) {
+        Duration acquireWait = Duration.ofMillis(props.getSendTimeoutMs() * 2);
+        List<ModemPool.Modem> tried = new ArrayList<>();
+        SmsSendResult result = null;
+        while (true) {
+            ModemPool.Modem modem;
+            try {
+                modem = modemPool.acquire(lane, acquireWait, tried);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                modem = null;
+            }
+            if (modem == null) {
+                return result != null ? result : failResult("No SMS modem available.");
+            }
+            tried.add(modem);
+            long started = System.currentTimeMillis();
+            result = sendOn(modem.client(), toE164, text);
+            modemPool.release(modem, result.success, result.segments, System.currentTimeMillis() - started);
+            result.modem = modem.client().portName();
+            if (result.messageId != null) {
+                trackDelivery(result, toE164, lane);
+            }
+            if (result.success || result.messageId != null || result.possiblySent) {
+                // Something reached the network: another modem would send it a second time.
+                return result;
+            }
+            log.warn("SMS to {} failed on modem {}; trying another one if available.", toE164, result.modem);
+        }
+    }
+
+    private void trackDelivery(SmsSendResult result, String toE164, SmsLane lane) {
+        try {
+            deliveryReports.recordSubmitted(result.modem, toE164, lane, result.messageId, result.segments);
+        } catch (Exception e) {
+            // The message is out; only its delivery report will go unmatched.
+            log.warn("Could not record SMS {} for delivery tracking: {}", result.messageId, e.getMessage());
+        }
+    }
+
+    // Inbound side: the modem's message storage. The caller holds `client` through
+    // ModemPool, so none of this interleaves with a send on the same modem.
+
+    /** Every message stored on the modem (AT+CMGL, read and unread). */
+    public List<InboundSms> listStored(AtSerialClient client) {
+        StringBuilder transcript = new StringBuilder();
+        Duration cmdTimeout = Duration.ofMillis(props.getCommandTimeoutMs());
+        if (client.sessionState() != AtSerialClient.SessionState.READY && !configureSession(client, transcript, cmdTimeout)) {
+            throw new SmsException("Modem setup failed before AT+CMGL.", transcript.toString());
         }
+        String resp = client.execute(pduMode() ? "AT+CMGL=4" : "AT+CMGL=\"ALL\"", doneOkOrError(),
+                Duration.ofMillis(props.getSendTimeoutMs()));
+        if (hasErrorLine(resp)) {
+            throw new SmsException("AT+CMGL failed.", resp);
+        }
+        return StoredSmsParser.parseList(client.portName(), resp, pduMode());
+    }
 
-        sendLock.lock();
+    /** The message in slot `index` (AT+CMGR), null if the slot is empty. */
+    public InboundSms readStored(AtSerialClient client, int index) {
         StringBuilder transcript = new StringBuilder();
+        Duration cmdTimeout = Duration.ofMillis(props.getCommandTimeoutMs());
+        if (client.sessionState() != AtSerialClient.SessionState.READY && !configureSession(client, transcript, cmdTimeout)) {
+            throw new SmsException("Modem setup failed before AT+CMGR.", transcript.toString());
+        }
+        String resp = client.execute("AT+CMGR=" + index, doneOkOrError(), cmdTimeout);
+        if (resp.contains("+CMS ERROR")) {
+            return null;
+        }
+        return StoredSmsParser.parseRead(client.portName(), index, resp, pduMode());
+    }
+
+    public boolean deleteStored(AtSerialClient client, int index) {
+        String resp = client.execute("AT+CMGD=" + index, doneOkOrError(), Duration.ofMillis(props.getCommandTimeoutMs()));
+        return !hasErrorLine(resp);
+    }
+
+    // Waits for the modem's pacer instead of a fixed sleep; the '>' prompt already tells
+    // when the body can be written, and each command waits for its own answer.
+    private void pace(AtSerialClient client) {
         try {
-            return sendSmsInternal(toE164, text, transcript, true);
+            client.pacer().acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void recordPacing(AtSerialClient client, String finalResp) {
+        if (!hasErrorLine(finalResp) && (finalResp.contains("OK") || finalResp.contains("+CMGS:"))) {
+            client.pacer().onAccepted();
+        } else {
+            client.pacer().onRejected();
+        }
+    }
+
+    private static String toE164(String phone) {
+        if (phone != null && phone.startsWith("07")) {
+            return "+40" + phone.substring(1);
+        }
+        return phone;
+    }
+
+    private SmsSendResult sendOn(AtSerialClient client, String toE164, String text) {
+        StringBuilder transcript = new StringBuilder();
+        try {
+            return sendSmsInternal(client, toE164, text, transcript, true);
         } catch (SmsException ex) {
             log.warn("SMS send failed.", ex);
+            // A timeout may have left the modem mid-dialogue; set it up again next time.
+            client.invalidateSession();
+            client.pacer().onRejected();
             SmsSendResult result = new SmsSendResult();
             String extra = ex.getTranscript();
             if (extra != null && !extra.isEmpty()) {
@@ -66,66 +195,37 @@ public class SmsService {
             result.success = false;
             result.transcript = transcript.toString();
             return result;
-        } finally {
-            sendLock.unlock();
         }
     }
 
-    public void sendReservationNotifications(Booking booking) {
+    // Notification texts are composed here and handed to the notification outbox, which
+    // sends them later through sendSms (see NotificationOutbox / NotificationDispatcher).
+
+    public List<OutgoingSms> composeReservationNotifications(Booking booking) {
         if (booking == null) {
-            return;
+            return List.of();
         }
         String customerNumber = booking.getCustomerPhone();
-        if (customerNumber != null && !customerNumber.isBlank()) {
-            String customerText = buildCustomerMessage(booking);
-            SmsSendResult customerResult = sendSms(customerNumber, customerText);
-            if (!customerResult.success) {
-                log.warn("Failed to send customer SMS. Transcript: {}", customerResult.transcript);
-            } else {
-                log.info("Customer SMS delivered for {} ({}) court={} interval={} - {} date={} price={} text=\"{}\"",
-                        safe(booking.getCustomerName()),
-                        customerNumber,
-                        booking.getCourt() != null ? booking.getCourt().getName() : "teren",
-                        formatTime(booking.getStartTime()),
-                        formatTime(booking.getEndTime()),
-                        formatDate(booking.getBookingDate()),
-                        formatPrice(booking.getPrice()),
-                        customerText);
-            }
-        } else {
+        if (customerNumber == null || customerNumber.isBlank()) {
             log.warn("Customer phone is missing; SMS not sent.");
+            return List.of();
         }
-
+        return List.of(new OutgoingSms(customerNumber, buildCustomerMessage(booking)));
     }
 
-    public void sendReservationNotificationsCrossMidnight(Booking first, Booking second) {
+    public List<OutgoingSms> composeReservationNotificationsCrossMidnight(Booking first, Booking second) {
         if (first == null || second == null) {
-            return;
+            return List.of();
         }
         String customerNumber = first.getCustomerPhone();
-        if (customerNumber != null && !customerNumber.isBlank()) {
-            String customerText = buildCustomerMessageCrossMidnight(first, second);
-            SmsSendResult customerResult = sendSms(customerNumber, customerText);
-            if (!customerResult.success) {
-                log.warn("Failed to send customer SMS. Transcript: {}", customerResult.transcript);
-            } else {
-                log.info("Customer SMS delivered for {} ({}) court={} interval={} - {} date={} price={} text=\"{}\"",
-                        safe(first.getCustomerName()),
-                        customerNumber,
-                        first.getCourt() != null ? first.getCourt().getName() : "teren",
-                        formatTime(first.getStartTime()),
-                        formatTime(second.getEndTime()),
-                        formatDate(first.getBookingDate()),
-                        formatPrice(sumPrices(first.getPrice(), second.getPrice())),
-                        customerText);
-            }
-        } else {
+        if (customerNumber == null || customerNumber.isBlank()) {
             log.warn("Customer phone is missing; SMS not sent.");
+            return List.of();
         }
-
+        return List.of(new OutgoingSms(customerNumber, buildCustomerMessageCrossMidnight(first, second)));
     }
 
-    private String executeAtWithReconnect(Duration cmdTimeout) {
+    private String executeAtWithReconnect(AtSerialClient client, Duration cmdTimeout) {
         String resp;
         try {
             resp = client.execute("AT", doneOkOrError(), cmdTimeout);
@@ -152,7 +252,14 @@ public class SmsService {
         return s.contains("+CMS ERROR") || s.contains("+CME ERROR") || s.contains("ERROR");
     }
 
-    private SmsSendResult sendSmsInternal(String toE164, String text, StringBuilder transcript, boolean allowRetry) {
+    private boolean pduMode() {
+        return !"text".equalsIgnoreCase(props.getEncoding());
+    }
+
+    private SmsSendResult sendSmsInternal(AtSerialClient client, String toE164, String text, StringBuilder transcript, boolean allowRetry) {
+        if (pduMode()) {
+            return sendPdu(client, toE164, text, transcript);
+        }
         if (text != null && text.length() > 160) {
             log.warn("SMS length is {} characters; modem/network may truncate.", text.length());
         }
@@ -160,44 +267,54 @@ public class SmsService {
         Duration cmdTimeout = Duration.ofMillis(props.getCommandTimeoutMs());
         Duration sendTimeout = Duration.ofMillis(props.getSendTimeoutMs());
 
-        transcript.append(executeAtWithReconnect(cmdTimeout));
-        client.execute("AT+CSCS=\"GSM\"", doneOkOrError(), cmdTimeout);
-        client.execute("AT+CSMP=17,167,0,0", doneOkOrError(), cmdTimeout);
-        
-        String cmgfResp = client.execute("AT+CMGF=1", doneOkOrError(), cmdTimeout);
-        transcript.append(cmgfResp);
-        if (hasErrorLine(cmgfResp)) {
+        if (client.sessionState() != AtSerialClient.SessionState.READY && !configureSession(client, transcript, cmdTimeout)) {
             return failResult(transcript.toString());
         }
 
+        pace(client);
         String cmgsResp = client.execute("AT+CMGS=\"" + toE164 + "\"", donePromptOrError(), cmdTimeout);
         transcript.append(cmgsResp);
         if (hasErrorLine(cmgsResp)) {
+            // Most likely the setup no longer holds (modem reset on its own, port reopened
+            // by a retry inside AtSerialClient): configure again and give it one more try.
+            client.invalidateSession();
+            if (allowRetry) {
+                transcript.append("\nRETRY\n");
+                return sendSmsInternal(client, toE164, text, transcript, false);
+            }
             return failResult(transcript.toString());
         }
         transcript.append(client.waitForPrompt('>', cmdTimeout));
-        try { Thread.sleep(300); } catch (InterruptedException ignored) {}
 
         String safeText = stripDiacritics(text);
         byte[] messageBytes = (safeText + (char) 0x1A).getBytes(StandardCharsets.ISO_8859_1);
         client.writeRaw(messageBytes);
 
-        String finalResp = client.readResponse(doneOkOrError(), sendTimeout);
+        String finalResp;
+        try {
+            finalResp = client.readResponse(doneOkOrError(), sendTimeout);
+        } catch (SmsException ex) {
+            log.warn("No answer from modem {} after the SMS to {} was written; not resending it.", client.portName(), toE164);
+            return unanswered(client, transcript, ex, List.of(), 1);
+        }
         transcript.append(finalResp);
+        recordPacing(client, finalResp);
 
         if (hasErrorLine(transcript.toString())) {
+            client.invalidateSession();
             if (allowRetry) {
-                attemptSoftReset(transcript, cmdTimeout);
+                attemptSoftReset(client, transcript, cmdTimeout);
                 transcript.append("\nRETRY\n");
-                return sendSmsInternal(toE164, text, transcript, false);
+                return sendSmsInternal(client, toE164, text, transcript, false);
             }
             return failResult(transcript.toString());
         }
         if (!(finalResp.contains("OK") || finalResp.contains("+CMGS:"))) {
+            client.invalidateSession();
             if (allowRetry) {
-                attemptSoftReset(transcript, cmdTimeout);
+                attemptSoftReset(client, transcript, cmdTimeout);
                 transcript.append("\nRETRY\n");
-                return sendSmsInternal(toE164, text, transcript, false);
+                return sendSmsInternal(client, toE164, text, transcript, false);
             }
             return failResult(transcript.toString());
         }
@@ -208,10 +325,158 @@ public class SmsService {
             result.messageId = m.group(1);
         }
         result.success = true;
+        result.segments = 1;
         log.info("SMS sent to {} messageId={} text=\"{}\"", toE164, result.messageId, text);
         return result;
     }
 
+    // PDU mode: GSM-7 or UCS-2, split into concatenated parts when needed. Each part is
+    // its own AT+CMGS cycle and is retried on its own, so a failure halfway never sends
+    // the earlier parts twice. A part left without an answer after its body was written
+    // may be out already: the message stops there and is reported as possibly sent.
+    private SmsSendResult sendPdu(AtSerialClient client, String toE164, String text, StringBuilder transcript) {
+        List<SmsPdu.Part> parts = SmsPdu.encode(toE164, foldDiacritics(text), concatReference.getAndIncrement() & 0xFF,
+                props.isDeliveryReports());
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < parts.size(); i++) {
+            String id;
+            try {
+                id = sendPduPart(client, parts.get(i), transcript, true);
+            } catch (UnansweredSubmit ex) {
+                log.warn("No answer from modem {} for part {}/{} to {}; not resending the message.",
+                        client.portName(), i + 1, parts.size(), toE164);
+                return unanswered(client, transcript, ex, ids, parts.size());
+            }
+            if (id == null) {
+                SmsSendResult failed = failResult(transcript.toString());
+                failed.segments = parts.size();
+                if (i > 0) {
+                    failed.messageId = String.join(",", ids);
+                    log.warn("SMS to {} failed at part {}/{}; earlier parts were delivered to the network.", toE164, i + 1, parts.size());
+                }
+                return failed;
+            }
+            ids.add(id);
+        }
+        SmsSendResult result = new SmsSendResult();
+        result.success = true;
+        result.transcript = transcript.toString();
+        result.segments = parts.size();
+        result.messageId = String.join(",", ids);
+        log.info("SMS sent to {} messageId={} segments={} text=\"{}\"", toE164, result.messageId, result.segments, text);
+        return result;
+    }
+
+    // Returns the +CMGS reference ("" if the modem gave none), or null if the part failed.
+    private String sendPduPart(AtSerialClient client, SmsPdu.Part part, StringBuilder transcript, boolean allowRetry) {
+        Duration cmdTimeout = Duration.ofMillis(props.getCommandTimeoutMs());
+        Duration sendTimeout = Duration.ofMillis(props.getSendTimeoutMs());
+
+        if (client.sessionState() != AtSerialClient.SessionState.READY && !configureSession(client, transcript, cmdTimeout)) {
+            return null;
+        }
+        pace(client);
+        String cmgsResp = client.execute("AT+CMGS=" + part.tpduLength(), donePromptOrError(), cmdTimeout);
+        transcript.append(cmgsResp);
+        if (hasErrorLine(cmgsResp)) {
+            client.invalidateSession();
+            if (allowRetry) {
+                transcript.append("\nRETRY\n");
+                return sendPduPart(client, part, transcript, false);
+            }
+            return null;
+        }
+        transcript.append(client.waitForPrompt('>', cmdTimeout));
+
+        client.writeRaw((part.hex() + (char) 0x1A).getBytes(StandardCharsets.US_ASCII));
+        String finalResp;
+        try {
+            finalResp = client.readResponse(doneOkOrError(), sendTimeout);
+        } catch (SmsException ex) {
+            throw new UnansweredSubmit(ex);
+        }
+        transcript.append(finalResp);
+        recordPacing(client, finalResp);
+
+        if (hasErrorLine(finalResp) || !(finalResp.contains("OK") || finalResp.contains("+CMGS:"))) {
+            client.invalidateSession();
+            if (allowRetry) {
+                attemptSoftReset(client, transcript, cmdTimeout);
+                transcript.append("\nRETRY\n");
+                return sendPduPart(client, part, transcript, false);
+            }
+            return null;
+        }
+        Matcher m = CMGS_ID.matcher(finalResp);
+        return m.find() ? m.group(1) : "";
+    }
+
+    // The body went to the modem but its answer never came: the network may well have the
+    // message, so it is not retried here, on another modem or by the outbox. `ids` are the
+    // references of the parts answered before.
+    private SmsSendResult unanswered(AtSerialClient client, StringBuilder transcript, SmsException ex,
+                                     List<String> ids, int segments) {
+        client.invalidateSession();
+        client.pacer().onRejected();
+        if (ex.getTranscript() != null) {
+            transcript.append(ex.getTranscript());
+        }
+        transcript.append("\nNO ANSWER AFTER BODY\n");
+        SmsSendResult result = failResult(transcript.toString());
+        result.possiblySent = true;
+        result.segments = segments;
+        result.messageId = ids.isEmpty() ? null : String.join(",", ids);
+        return result;
+    }
+
+    // Timeout after a body was written, thrown past sendPduPart's own retry.
+    private static final class UnansweredSubmit extends SmsException {
+        UnansweredSubmit(SmsException cause) {
+            super(cause.getMessage(), cause.getTranscript(), cause);
+        }
+    }
+
+    // AT liveness check plus message-format setup, once per modem session.
+    private boolean configureSession(AtSerialClient client, StringBuilder transcript, Duration cmdTimeout) {
+        transcript.append(executeAtWithReconnect(client, cmdTimeout));
+        if (pduMode()) {
+            String cmgfResp = client.execute("AT+CMGF=0", doneOkOrError(), cmdTimeout);
+            transcript.append(cmgfResp);
+            if (hasErrorLine(cmgfResp)) {
+                client.invalidateSession();
+                return false;
+            }
+            enableReportRouting(client, transcript, cmdTimeout);
+            client.markSessionReady();
+            return true;
+        }
+        client.execute("AT+CSCS=\"GSM\"", doneOkOrError(), cmdTimeout);
+        // First octet 49 = 17 + TP-SRR: ask for a delivery report.
+        client.execute(props.isDeliveryReports() ? "AT+CSMP=49,167,0,0" : "AT+CSMP=17,167,0,0", doneOkOrError(), cmdTimeout);
+
+        String cmgfResp = client.execute("AT+CMGF=1", doneOkOrError(), cmdTimeout);
+        transcript.append(cmgfResp);
+        if (hasErrorLine(cmgfResp)) {
+            client.invalidateSession();
+            return false;
+        }
+        enableReportRouting(client, transcript, cmdTimeout);
+        client.markSessionReady();
+        return true;
+    }
+
+    // New-message indications as +CMTI, delivery reports straight to us as +CDS (see
+    // DeliveryReportTracker). Not fatal: without it sending still works, reports just
+    // stay on the SIM.
+    private void enableReportRouting(AtSerialClient client, StringBuilder transcript, Duration cmdTimeout) {
+        String cnmi = props.isDeliveryReports() ? "AT+CNMI=2,1,0,1,0" : "AT+CNMI=2,1,0,0,0";
+        String resp = client.execute(cnmi, doneOkOrError(), cmdTimeout);
+        transcript.append(resp);
+        if (hasErrorLine(resp)) {
+            log.warn("Modem {} rejected {}; delivery reports will not be tracked.", client.portName(), cnmi);
+        }
+    }
+
     private SmsSendResult failResult(String transcript) {
         SmsSendResult result = new SmsSendResult();
         result.success = false;
@@ -219,7 +484,9 @@ public class SmsService {
         return result;
     }
 
-    private void attemptSoftReset(StringBuilder transcript, Duration cmdTimeout) {
+    private void attemptSoftReset(AtSerialClient client, StringBuilder transcript, Duration cmdTimeout) {
+        // ATZ brings back the stored profile, i.e. undoes the text-mode setup.
+        client.invalidateSession();
         try {
             transcript.append(client.execute("ATZ", doneOkOrError(), cmdTimeout));
             transcript.append(client.execute("AT", doneOkOrError(), cmdTimeout));
@@ -228,20 +495,11 @@ public class SmsService {
         }
     }
 
-    private void sleepBetweenMessages() {
-        try {
-            Thread.sleep(2000L);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-    }
-
     public static final String AUTOMAT_FOOTER = "\nMesaj automat. Nu raspundeti.";
 
-    public void sendBlockCancellationNotification(Booking booking, String reason) {
+    public List<OutgoingSms> composeBlockCancellationNotification(Booking booking, String reason) {
         String phone = booking.getCustomerPhone();
-        if (phone == null || phone.isBlank() || "-".equals(phone)) return;
-        sleepBetweenMessages();
+        if (phone == null || phone.isBlank() || "-".equals(phone)) return List.of();
         String date = formatDate(booking.getBookingDate());
         String start = formatTime(booking.getStartTime());
         String end = formatTime(booking.getEndTime());
@@ -249,18 +507,12 @@ public class SmsService {
         String text = "Rezervarea ta " + date + " " + start + "-" + end + "\n" +
                       "a fost anulata. Motiv: " + truncatedReason + "\n" +
                       "Ne cerem scuze! star-arena.ro";
-        SmsSendResult result = sendSms(phone, text);
-        if (!result.success) {
-            log.warn("Block cancellation SMS failed for {}. Transcript: {}", phone, result.transcript);
-        } else {
-            log.info("Block cancellation SMS sent to {} date={} {}-{} reason={}", phone, date, start, end, truncatedReason);
-        }
+        return List.of(new OutgoingSms(phone, text));
     }
 
-    public void sendAdminApprovalNotification(Booking booking, long cancelCount) {
+    public List<OutgoingSms> composeAdminApprovalNotification(Booking booking, long cancelCount) {
         String adminNumber = props.getAdminNotificationNumber();
-        if (adminNumber == null || adminNumber.isBlank()) return;
-        sleepBetweenMessages();
+        if (adminNumber == null || adminNumber.isBlank()) return List.of();
         String customer = booking.getCustomerName() == null ? "Client" : booking.getCustomerName();
         String nameShort = customer.length() > 18 ? customer.substring(0, 16) + ".." : customer;
         String customerPhone = booking.getCustomerPhone() == null ? "" : booking.getCustomerPhone();
@@ -274,47 +526,45 @@ public class SmsService {
         String text = "APROBARE NECESARA!\n" +
                 nameShort + " (" + customerPhone + "): " + sportLabel + " T" + court + ", " + date + ", " + start + "-" + end + "\n" +
                 "Anulari: " + cancelCount + ". Aproba: star-arena.ro/admin";
-        SmsSendResult result = sendSms(adminNumber, text);
-        if (!result.success) {
-            log.warn("Failed to send admin approval SMS. Transcript: {}", result.transcript);
-        } else {
-            log.info("Admin approval SMS sent for {} ({}), court={} {}-{} cancels={}", nameShort, customerPhone, court, start, end, cancelCount);
-        }
-        if (isPadelIndoorCourt45(booking)) {
-            sendToSupervisor(text);
-        }
+        return withSupervisor(booking, new OutgoingSms(adminNumber, text, SmsLane.ADMIN));
     }
 
-    public void sendAdminNewBookingNotification(Booking booking) {
+    public List<OutgoingSms> composeAdminNewBookingNotification(Booking booking) {
         String adminNumber = props.getAdminNotificationNumber();
-        if (adminNumber == null || adminNumber.isBlank()) return;
-        sleepBetweenMessages();
+        if (adminNumber == null || adminNumber.isBlank()) return List.of();
         String text = buildAdminNotificationMessage(booking,
                 formatTime(booking.getStartTime()), formatTime(booking.getEndTime()),
                 formatDate(booking.getBookingDate()), booking.getPrice());
-        SmsSendResult result = sendSms(adminNumber, text);
-        if (!result.success) {
-            log.warn("Failed to send admin notification SMS. Transcript: {}", result.transcript);
-        }
-        if (isPadelIndoorCourt45(booking)) {
-            sendToSupervisor(text);
-        }
+        return withSupervisor(booking, new OutgoingSms(adminNumber, text, SmsLane.ADMIN));
     }
 
-    public void sendAdminNewBookingNotificationCrossMidnight(Booking first, Booking second) {
+    public List<OutgoingSms> composeAdminNewBookingNotificationCrossMidnight(Booking first, Booking second) {
         String adminNumber = props.getAdminNotificationNumber();
-        if (adminNumber == null || adminNumber.isBlank()) return;
-        sleepBetweenMessages();
+        if (adminNumber == null || adminNumber.isBlank()) return List.of();
         String text = buildAdminNotificationMessage(first,
                 formatTime(first.getStartTime()), formatTime(second.getEndTime()),
                 formatDate(first.getBookingDate()), sumPrices(first.getPrice(), second.getPrice()));
-        SmsSendResult result = sendSms(adminNumber, text);
-        if (!result.success) {
-            log.warn("Failed to send admin notification SMS (cross-midnight). Transcript: {}", result.transcript);
+        return withSupervisor(first, new OutgoingSms(adminNumber, text, SmsLane.ADMIN));
+    }
+
+    // Several admin notifications in one SMS (see NotificationDispatcher): one line each,
+    // oldest first, so a busy evening costs a couple of segments instead of a dozen messages.
+    public String composeAdminDigest(List<String> texts) {
+        StringBuilder sb = new StringBuilder("Star Arena: ").append(texts.size()).append(" notificari");
+        for (String text : texts) {
+            String line = text == null ? "" : text.replace(AUTOMAT_FOOTER, "").trim().replaceAll("\\s*\\n\\s*", " ");
+            sb.append("\n- ").append(line);
         }
-        if (isPadelIndoorCourt45(first)) {
-            sendToSupervisor(text);
+        return sb.toString();
+    }
+
+    // Padel indoor 4/5: the supervisor gets a copy of every admin message.
+    private List<OutgoingSms> withSupervisor(Booking booking, OutgoingSms adminSms) {
+        String supervisorNumber = props.getPadelIndoorSupervisorNumber();
+        if (!isPadelIndoorCourt45(booking) || supervisorNumber == null || supervisorNumber.isBlank()) {
+            return List.of(adminSms);
         }
+        return List.of(adminSms, new OutgoingSms(supervisorNumber, adminSms.text(), SmsLane.ADMIN));
     }
 
     private boolean isPadelIndoorCourt45(Booking booking) {
@@ -326,18 +576,6 @@ public class SmsService {
                 && (name.equals("4") || name.equals("5"));
     }
 
-    private void sendToSupervisor(String text) {
-        String supervisorNumber = props.getPadelIndoorSupervisorNumber();
-        if (supervisorNumber == null || supervisorNumber.isBlank()) return;
-        sleepBetweenMessages();
-        SmsSendResult result = sendSms(supervisorNumber, text);
-        if (!result.success) {
-            log.warn("Failed to send padel indoor supervisor SMS. Transcript: {}", result.transcript);
-        } else {
-            log.info("Padel indoor supervisor SMS sent to {}", supervisorNumber);
-        }
-    }
-
     private String buildAdminNotificationMessage(Booking booking, String start, String end, String date, BigDecimal price) {
         String customer = booking.getCustomerName() == null ? "Client" : booking.getCustomerName();
         String customerPhone = booking.getCustomerPhone() == null ? "" : booking.getCustomerPhone();
@@ -477,10 +715,6 @@ public class SmsService {
         return safeFirst.add(safeSecond).setScale(2, java.math.RoundingMode.HALF_UP);
     }
 
-    private String safe(String value) {
-        return value == null || value.isBlank() ? "Client" : value;
-    }
-
     private String extractCourtNumber(String courtName) {
         if (courtName == null) {
             return "";
@@ -518,6 +752,13 @@ public class SmsService {
      * AT+CMGF=1 text mode on Orange Romania modems.
      */
     private String stripDiacritics(String text) {
+        return foldDiacritics(text)
+                .replace('|', '-')
+                .replace('\n', '\r');
+    }
+
+    // Folding only; in PDU mode '|' and line breaks are encoded as they are.
+    private String foldDiacritics(String text) {
         if (text == null) return "";
         return text
                 .replace('ă', 'a').replace('Ă', 'A')
@@ -537,9 +778,7 @@ public class SmsService {
                 .replace('ó', 'o').replace('Ó', 'O')
                 .replace('ü', 'u').replace('Ü', 'U')
                 .replace('ú', 'u').replace('Ú', 'U')
-                .replace('ñ', 'n').replace('Ñ', 'N')
-                .replace('|', '-')
-                .replace('\n', '\r');
+                .replace('ñ', 'n').replace('Ñ', 'N');
     }
 
     private java.util.function.Predicate<String> doneOkOrError() {
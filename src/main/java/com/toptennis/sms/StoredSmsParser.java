@@ -0,0 +1,115 @@
+package com.toptennis.sms;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the answers to AT+CMGL / AT+CMGR, as collected by AtSerialClient (one line per
+ * '\n'). PDU mode: a header line (+CMGL: <index>,<stat>,[<alpha>],<length> or
+ * +CMGR: <stat>,[<alpha>],<length>) followed by the hex PDU. Text mode: a header line with
+ * the sender and timestamp, followed by the text, which may span several lines.
+ */
+public final class StoredSmsParser {
+    private static final Pattern PDU_LIST = Pattern.compile("\\+CMGL:\\s*(\\d+),\\d+,[^,]*,(\\d+)");
+    private static final Pattern PDU_READ = Pattern.compile("\\+CMGR:\\s*\\d+,[^,]*,(\\d+)");
+    private static final Pattern TEXT_LIST = Pattern.compile("\\+CMGL:\\s*(\\d+),\"[^\"]*\",\"([^\"]*)\"(?:,[^,]*)?(?:,\"([^\"]*)\")?");
+    private static final Pattern TEXT_READ = Pattern.compile("\\+CMGR:\\s*\"[^\"]*\",\"([^\"]*)\"(?:,[^,]*)?(?:,\"([^\"]*)\")?");
+    private static final Pattern TEXT_TIME = Pattern.compile(
+            "(\\d{2})/(\\d{2})/(\\d{2}),(\\d{2}):(\\d{2}):(\\d{2})([+-]\\d{1,2})?");
+
+    private StoredSmsParser() {}
+
+    public static List<InboundSms> parseList(String modem, String response, boolean pduMode) {
+        List<InboundSms> out = new ArrayList<>();
+        String[] lines = response.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (pduMode) {
+                Matcher m = PDU_LIST.matcher(line);
+                if (m.find() && i + 1 < lines.length) {
+                    out.add(fromPdu(modem, Integer.parseInt(m.group(1)), lines[++i].trim(), Integer.parseInt(m.group(2))));
+                }
+            } else {
+                Matcher m = TEXT_LIST.matcher(line);
+                if (m.find()) {
+                    StringBuilder text = new StringBuilder();
+                    while (i + 1 < lines.length && !isTerminator(lines[i + 1].trim())) {
+                        appendLine(text, lines[++i]);
+                    }
+                    out.add(new InboundSms(modem, Integer.parseInt(m.group(1)), m.group(2), text.toString(),
+                            parseTextTime(m.group(3)), 0, 1, 1));
+                }
+            }
+        }
+        return out;
+    }
+
+    // Null when the slot is empty.
+    public static InboundSms parseRead(String modem, int index, String response, boolean pduMode) {
+        String[] lines = response.split("\n");
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (pduMode) {
+                Matcher m = PDU_READ.matcher(line);
+                if (m.find() && i + 1 < lines.length) {
+                    return fromPdu(modem, index, lines[i + 1].trim(), Integer.parseInt(m.group(1)));
+                }
+            } else {
+                Matcher m = TEXT_READ.matcher(line);
+                if (m.find()) {
+                    StringBuilder text = new StringBuilder();
+                    while (i + 1 < lines.length && !isTerminator(lines[i + 1].trim())) {
+                        appendLine(text, lines[++i]);
+                    }
+                    return new InboundSms(modem, index, m.group(1), text.toString(), parseTextTime(m.group(2)), 0, 1, 1);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static InboundSms fromPdu(String modem, int index, String hex, int tpduLength) {
+        try {
+            SmsPdu.Deliver d = SmsPdu.decodeDeliver(hex, tpduLength);
+            return new InboundSms(modem, index, d.sender(), d.text(), d.sentAt(), d.concatRef(), d.parts(), d.part());
+        } catch (IllegalArgumentException e) {
+            // Status reports or sent messages kept on the SIM: nothing to act on, still deleted.
+            return new InboundSms(modem, index, null, null, null, 0, 1, 1);
+        }
+    }
+
+    private static boolean isTerminator(String line) {
+        return line.equals("OK") || line.startsWith("+CMGL:") || line.contains("ERROR");
+    }
+
+    private static void appendLine(StringBuilder text, String line) {
+        if (text.length() > 0) {
+            text.append('\n');
+        }
+        text.append(line);
+    }
+
+    // "yy/MM/dd,hh:mm:ss+zz" as in text-mode headers and +CDS, zone in quarters of an hour.
+    static Instant parseTextTime(String value) {
+        if (value == null) {
+            return null;
+        }
+        Matcher m = TEXT_TIME.matcher(value);
+        if (!m.matches()) {
+            return null;
+        }
+        int quarters = m.group(7) != null ? Integer.parseInt(m.group(7)) : 0;
+        try {
+            return OffsetDateTime.of(2000 + Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)),
+                    Integer.parseInt(m.group(3)), Integer.parseInt(m.group(4)), Integer.parseInt(m.group(5)),
+                    Integer.parseInt(m.group(6)), 0, ZoneOffset.ofTotalSeconds(quarters * 15 * 60)).toInstant();
+        } catch (java.time.DateTimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+-- V52: O linie per celula de 30 de minute ocupata de o rezervare activa
+-- (CONFIRMED / BLOCKED / PENDING_APPROVAL). Constrangerea unica pe (teren, zi, celula)
+-- este garantia finala impotriva rezervarilor suprapuse, independent de lock-uri.
+-- slot_index: 0 = 00:00-00:30 ... 47 = 23:30-24:00 (23:59 = sfarsitul zilei).
+CREATE TABLE booking_slot (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    booking_id  BIGINT   NOT NULL,
+    court_id    BIGINT   NOT NULL,
+    slot_date   DATE     NOT NULL,
+    slot_index  INT      NOT NULL,
+    CONSTRAINT uq_booking_slot_cell UNIQUE (court_id, slot_date, slot_index),
+    CONSTRAINT fk_booking_slot_booking FOREIGN KEY (booking_id) REFERENCES booking(id) ON DELETE CASCADE,
+    CONSTRAINT fk_booking_slot_court FOREIGN KEY (court_id) REFERENCES court(id),
+    CONSTRAINT ck_booking_slot_index CHECK (slot_index BETWEEN 0 AND 47)
+);
+
+CREATE INDEX idx_booking_slot_booking ON booking_slot (booking_id);
+
+-- Rezervarile active existente isi revendica celulele. Randurile vechi (din afara grilei de
+-- 30 de minute) acopera celulele atinse; daca doua se suprapun deja, prima pastreaza celula.
+INSERT INTO booking_slot (booking_id, court_id, slot_date, slot_index)
+SELECT b.id, b.court_id, b.booking_date, s.idx
+FROM booking b
+CROSS JOIN (VALUES (0),(1),(2),(3),(4),(5),(6),(7),(8),(9),(10),(11),(12),(13),(14),(15),
+                   (16),(17),(18),(19),(20),(21),(22),(23),(24),(25),(26),(27),(28),(29),(30),(31),
+                   (32),(33),(34),(35),(36),(37),(38),(39),(40),(41),(42),(43),(44),(45),(46),(47)) AS s(idx)
+WHERE b.status IN ('CONFIRMED', 'BLOCKED', 'PENDING_APPROVAL')
+  AND s.idx >= FLOOR((EXTRACT(HOUR FROM b.start_time) * 60 + EXTRACT(MINUTE FROM b.start_time)) / 30.0)
+  AND s.idx < CASE WHEN b.end_time = TIME '23:59:00' THEN 48
+                   ELSE CEIL((EXTRACT(HOUR FROM b.end_time) * 60 + EXTRACT(MINUTE FROM b.end_time)) / 30.0) END
+ORDER BY b.id, s.idx
+ON CONFLICT DO NOTHING;
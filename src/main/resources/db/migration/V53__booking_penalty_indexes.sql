@@ -0,0 +1,4 @@
+-- V53: Indexuri pentru numaratorile de penalizari (anulari / neprezentari) per client.
+-- Citite o data per client si apoi tinute in memorie de PenaltyScores.
+CREATE INDEX idx_booking_phone_status ON booking (customer_phone, status);
+CREATE INDEX idx_booking_player_status ON booking (player_user_id, status);
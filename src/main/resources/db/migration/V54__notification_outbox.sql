@@ -0,0 +1,20 @@
+-- V54: Coada durabila de notificari (SMS / email). Randurile se scriu in aceeasi tranzactie
+-- cu rezervarea si sunt trimise dupa commit de NotificationDispatcher, cu reincercari.
+-- status: PENDING (de trimis) -> SENT | DEAD (prea multe esecuri, ramane pentru inspectie).
+CREATE TABLE notification_outbox (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    channel          VARCHAR(16)  NOT NULL,
+    recipient        VARCHAR(255) NOT NULL,
+    subject          VARCHAR(255),
+    body             TEXT         NOT NULL,
+    booking_id       BIGINT,
+    label            VARCHAR(64),
+    status           VARCHAR(16)  NOT NULL,
+    attempts         INT          NOT NULL DEFAULT 0,
+    next_attempt_at  TIMESTAMP    NOT NULL,
+    last_error       VARCHAR(500),
+    created_at       TIMESTAMP    NOT NULL,
+    sent_at          TIMESTAMP
+);
+
+CREATE INDEX idx_notification_outbox_due ON notification_outbox (status, next_attempt_at);
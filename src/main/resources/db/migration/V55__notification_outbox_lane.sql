@@ -0,0 +1,3 @@
+-- V55: Prioritatea SMS-urilor din coada (OTP, CUSTOMER, ADMIN, REMINDER), folosita cand mai
+-- multe mesaje asteapta acelasi modem. NULL (randuri vechi, emailuri) = CUSTOMER.
+ALTER TABLE notification_outbox ADD COLUMN lane VARCHAR(16);
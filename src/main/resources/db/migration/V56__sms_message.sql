@@ -0,0 +1,21 @@
+-- V56: Fiecare SMS (parte de SMS) predat retelei, cu referinta primita de la modem (+CMGS),
+-- si ce a raspuns reteaua in raportul de livrare (+CDS).
+-- status: SENT (predat, fara raport final) -> DELIVERED | FAILED.
+CREATE TABLE sms_message (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    modem         VARCHAR(128) NOT NULL,
+    reference     INT          NOT NULL,
+    recipient     VARCHAR(32)  NOT NULL,
+    lane          VARCHAR(16),
+    part          INT          NOT NULL DEFAULT 1,
+    parts         INT          NOT NULL DEFAULT 1,
+    status        VARCHAR(16)  NOT NULL,
+    status_code   INT,
+    submitted_at  TIMESTAMP    NOT NULL,
+    report_at     TIMESTAMP,
+    delivered_at  TIMESTAMP,
+    latency_ms    BIGINT
+);
+
+CREATE INDEX idx_sms_message_reference ON sms_message (modem, reference);
+CREATE INDEX idx_sms_message_submitted ON sms_message (submitted_at);
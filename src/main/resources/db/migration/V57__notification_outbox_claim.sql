@@ -0,0 +1,4 @@
+-- V57: Cu mai multe instante pe aceeasi baza, un rand din outbox e revendicat de un singur
+-- NotificationDispatcher inainte de trimitere: claimed_until e termenul revendicarii; dupa
+-- el (instanta a cazut intre trimitere si SENT) randul poate fi luat din nou.
+ALTER TABLE notification_outbox ADD COLUMN claimed_until TIMESTAMP;
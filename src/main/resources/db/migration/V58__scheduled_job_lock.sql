@@ -0,0 +1,11 @@
+-- V58: Joburile programate care trebuie sa ruleze pe o singura instanta (remindere SMS,
+-- eliberarea partidelor neumplute). Instanta care ia randul il tine pana la locked_until
+-- si il reinnoieste la fiecare rulare; celelalte sar peste job (vezi ScheduledJobLocks).
+CREATE TABLE scheduled_job_lock (
+    name          VARCHAR(64)  PRIMARY KEY,
+    locked_by     VARCHAR(64),
+    locked_until  TIMESTAMP    NOT NULL
+);
+
+INSERT INTO scheduled_job_lock (name, locked_by, locked_until) VALUES ('reminders', NULL, TIMESTAMP '2000-01-01 00:00:00');
+INSERT INTO scheduled_job_lock (name, locked_by, locked_until) VALUES ('open-match-release', NULL, TIMESTAMP '2000-01-01 00:00:00');
@@ -0,0 +1,28 @@
+-- V59: Rezervarile vechi care se suprapuneau deja la V52. Backfill-ul a dat fiecare celula
+-- disputata primei rezervari (id mai mic); aici ramane cate o linie pentru fiecare celula
+-- pe care o acopera o alta rezervare activa, impreuna cu rezervarea care o tine (held_by).
+-- BookingSlotClaims nu mai cere aceste celule cat timp sunt tinute de altcineva, asa ca
+-- rezervarile respective pot fi editate in continuare; tabelul ramane si ca raport pentru admin.
+CREATE TABLE booking_slot_legacy_overlap (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    booking_id  BIGINT   NOT NULL,
+    court_id    BIGINT   NOT NULL,
+    slot_date   DATE     NOT NULL,
+    slot_index  INT      NOT NULL,
+    held_by     BIGINT   NOT NULL,
+    CONSTRAINT uq_booking_slot_legacy_overlap UNIQUE (booking_id, court_id, slot_date, slot_index),
+    CONSTRAINT fk_booking_slot_legacy_overlap_booking FOREIGN KEY (booking_id) REFERENCES booking(id) ON DELETE CASCADE
+);
+
+INSERT INTO booking_slot_legacy_overlap (booking_id, court_id, slot_date, slot_index, held_by)
+SELECT b.id, b.court_id, b.booking_date, s.idx, bs.booking_id
+FROM booking b
+CROSS JOIN (VALUES (0),(1),(2),(3),(4),(5),(6),(7),(8),(9),(10),(11),(12),(13),(14),(15),
+                   (16),(17),(18),(19),(20),(21),(22),(23),(24),(25),(26),(27),(28),(29),(30),(31),
+                   (32),(33),(34),(35),(36),(37),(38),(39),(40),(41),(42),(43),(44),(45),(46),(47)) AS s(idx)
+JOIN booking_slot bs ON bs.court_id = b.court_id AND bs.slot_date = b.booking_date AND bs.slot_index = s.idx
+WHERE b.status IN ('CONFIRMED', 'BLOCKED', 'PENDING_APPROVAL')
+  AND bs.booking_id <> b.id
+  AND s.idx >= FLOOR((EXTRACT(HOUR FROM b.start_time) * 60 + EXTRACT(MINUTE FROM b.start_time)) / 30.0)
+  AND s.idx < CASE WHEN b.end_time = TIME '23:59:00' THEN 48
+                   ELSE CEIL((EXTRACT(HOUR FROM b.end_time) * 60 + EXTRACT(MINUTE FROM b.end_time)) / 30.0) END;
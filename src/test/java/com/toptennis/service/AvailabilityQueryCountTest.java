@@ -0,0 +1,104 @@
+package com.toptennis.service;
+
+import com.toptennis.model.Court;
+import com.toptennis.model.SportType;
+import com.toptennis.repository.CourtRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The range grid reads all the days the occupancy index is missing with one booking
+// query, however long the range; days already in the index cost nothing. A warm day
+// grid reads nothing at all.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:availability-count;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.toptennis.service.BookingServiceQueryCountTest$CountingInspector",
+        "jwt.secret=availability-count-test-secret-0123456789abcdef0123456789",
+        "sms.mode=mock"
+})
+class AvailabilityQueryCountTest {
+
+    @Autowired
+    private AvailabilityService availabilityService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private CourtRepository courtRepository;
+
+    private Court court() {
+        return courtRepository.findByActiveTrueOrderByIdAsc().get(0);
+    }
+
+    // One hour-long booking on each of `days` days from `from`.
+    private void book(LocalDate from, int days, String phonePrefix) {
+        for (int i = 0; i < days; i++) {
+            bookingService.createPublicAdmin(court().getId(), from.plusDays(i), LocalTime.of(10, 0), LocalTime.of(11, 0),
+                    "Client " + i, phonePrefix + String.format("%02d", i), null, null, false, true);
+        }
+    }
+
+    private long statementsForRange(LocalDate from, LocalDate to) throws IOException {
+        List<LocalDate> written = new ArrayList<>();
+        SportType sportType = court().getSportType();
+        BookingServiceQueryCountTest.CountingInspector.COUNT.get()[0] = 0;
+        availabilityService.writeRange(sportType, from, to, AvailabilityService.Viewer.ANONYMOUS,
+                (date, courts) -> written.add(date));
+        long statements = BookingServiceQueryCountTest.CountingInspector.COUNT.get()[0];
+        assertThat(written).hasSize((int) java.time.temporal.ChronoUnit.DAYS.between(from, to) + 1);
+        return statements;
+    }
+
+    @Test
+    void rangeQueryCountDoesNotGrowWithTheDays() throws IOException {
+        LocalDate shortFrom = LocalDate.now().plusDays(40);
+        LocalDate longFrom = LocalDate.now().plusDays(60);
+        book(shortFrom, 3, "07240001");
+        book(longFrom, 20, "07240002");
+        // Anything loaded once per process (courts, sessions) is out of the way.
+        statementsForRange(LocalDate.now().plusDays(100), LocalDate.now().plusDays(100));
+
+        long shortRange = statementsForRange(shortFrom, shortFrom.plusDays(2));
+        long longRange = statementsForRange(longFrom, longFrom.plusDays(19));
+        long warm = statementsForRange(longFrom, longFrom.plusDays(19));
+
+        assertThat(longRange).isEqualTo(shortRange);
+        // Served from the index: no booking query at all.
+        assertThat(warm).isEqualTo(longRange - 1);
+        assertThat(longRange).isLessThanOrEqualTo(2);
+    }
+
+    private long statementsForDay(LocalDate date) {
+        SportType sportType = court().getSportType();
+        BookingServiceQueryCountTest.CountingInspector.COUNT.get()[0] = 0;
+        availabilityService.getAvailability(sportType, date, AvailabilityService.Viewer.ANONYMOUS);
+        return BookingServiceQueryCountTest.CountingInspector.COUNT.get()[0];
+    }
+
+    @Test
+    void warmDayGridRunsNoStatements() {
+        LocalDate date = LocalDate.now().plusDays(80);
+        book(date, 1, "07240003");
+        statementsForDay(date);
+
+        assertThat(statementsForDay(date)).isZero();
+
+        // A booking on that day drops what was cached for it (the SSE fan-out may already
+        // have loaded it again), and the grid shows it.
+        bookingService.createPublicAdmin(court().getId(), date, LocalTime.of(15, 0), LocalTime.of(16, 0),
+                "Client nou", "0724000399", null, null, false, true);
+        assertThat(availabilityService.getAvailability(court().getSportType(), date, AvailabilityService.Viewer.ANONYMOUS)
+                .stream().filter(d -> d.court.id.equals(court().getId())).findFirst().orElseThrow().booked)
+                .hasSize(2);
+        assertThat(statementsForDay(date)).isZero();
+    }
+}
@@ -0,0 +1,216 @@
+package com.toptennis.service;
+
+import com.toptennis.TopTennisApplication;
+import com.toptennis.model.BookingStatus;
+import com.toptennis.model.Court;
+import com.toptennis.repository.BookingRepository;
+import com.toptennis.repository.CourtRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+// Concurrent bookings under each booking.lock-mode, on an embedded H2 database: requests
+// for the same interval end with exactly one booking, disjoint intervals on the same
+// court all go through. Restores and blocks take the same guard as new bookings.
+//
+// The comparison at the end holds every booking transaction open for HOLD_MS on disjoint
+// intervals of one court: court mode queues them one after the other, slot mode lets
+// them overlap in time.
+class BookingLockModeContentionTest {
+    private static final int THREADS = 8;
+    private static final long HOLD_MS = 300;
+    private static final List<BookingStatus> ACTIVE =
+            List.of(BookingStatus.CONFIRMED, BookingStatus.BLOCKED, BookingStatus.PENDING_APPROVAL);
+
+    private static ConfigurableApplicationContext start(String dbName, String lockMode) {
+        return new SpringApplicationBuilder(TopTennisApplication.class).run(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:lock-" + dbName + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL;LOCK_TIMEOUT=10000",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--jwt.secret=lock-mode-test-secret-0123456789abcdef0123456789abcd",
+                "--sms.mode=mock",
+                "--booking.lock-mode=" + lockMode);
+    }
+
+    // Runs every task at the same moment; null for each one that returned normally,
+    // otherwise what it threw.
+    private static List<RuntimeException> race(List<Runnable> tasks) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch go = new CountDownLatch(1);
+        try {
+            List<Future<RuntimeException>> results = new ArrayList<>();
+            for (Runnable task : tasks) {
+                results.add(pool.submit(() -> {
+                    go.await();
+                    try {
+                        task.run();
+                        return null;
+                    } catch (RuntimeException lost) {
+                        return lost;
+                    }
+                }));
+            }
+            go.countDown();
+            List<RuntimeException> out = new ArrayList<>();
+            for (Future<RuntimeException> f : results) {
+                out.add(f.get(60, TimeUnit.SECONDS));
+            }
+            return out;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long successes(List<RuntimeException> results) {
+        return results.stream().filter(r -> r == null).count();
+    }
+
+    // Lost on the booking_slot constraint rather than on the overlap checks.
+    private static boolean hitUniqueCell(RuntimeException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof DataIntegrityViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"court", "slot", "none"})
+    void sameIntervalIsBookedOnceAndDisjointOnesAllPass(String lockMode) throws Exception {
+        try (ConfigurableApplicationContext ctx = start(lockMode, lockMode)) {
+            BookingService bookingService = ctx.getBean(BookingService.class);
+            BookingRepository bookingRepository = ctx.getBean(BookingRepository.class);
+            Court court = ctx.getBean(CourtRepository.class).findAll().get(0);
+            LocalDate contested = LocalDate.now().plusDays(10);
+            LocalDate spread = contested.plusDays(1);
+
+            List<Runnable> same = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                String phone = "07220001" + (10 + i);
+                // Overlapping but not identical intervals: 18:00-19:30, 18:30-20:00, ...
+                LocalTime start = LocalTime.of(18, 0).plusMinutes(30L * (i % 2));
+                same.add(() -> bookingService.createPublicAdmin(court.getId(), contested, start, start.plusMinutes(90),
+                        "Test " + phone, phone, null, null, false, true));
+            }
+            List<RuntimeException> sameResults = race(same);
+
+            assertThat(successes(sameResults)).isEqualTo(1);
+            assertThat(bookingRepository.findOverlapping(court.getId(), contested, LocalTime.of(18, 0),
+                    LocalTime.of(20, 0), ACTIVE)).hasSize(1);
+
+            List<Runnable> disjoint = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                String phone = "07220002" + (10 + i);
+                LocalTime start = LocalTime.of(8, 0).plusHours(i);
+                disjoint.add(() -> bookingService.createPublicAdmin(court.getId(), spread, start, start.plusHours(1),
+                        "Test " + phone, phone, null, null, false, true));
+            }
+            assertThat(successes(race(disjoint))).isEqualTo(THREADS);
+            assertThat(bookingRepository.findOverlapping(court.getId(), spread, LocalTime.of(8, 0),
+                    LocalTime.of(16, 0), ACTIVE)).hasSize(THREADS);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"court", "slot", "none"})
+    void restoreAndBlockRaceNewBookingsForOneInterval(String lockMode) throws Exception {
+        try (ConfigurableApplicationContext ctx = start("activate-" + lockMode, lockMode)) {
+            BookingService bookingService = ctx.getBean(BookingService.class);
+            BookingRepository bookingRepository = ctx.getBean(BookingRepository.class);
+            Court court = ctx.getBean(CourtRepository.class).findAll().get(0);
+            LocalDate date = LocalDate.now().plusDays(12);
+            LocalTime start = LocalTime.of(10, 0);
+            LocalTime end = LocalTime.of(11, 0);
+            Long cancelledId = bookingService.createPublicAdmin(court.getId(), date, start, end,
+                    "Test anulat", "0722000300", null, null, false, true).getId();
+            bookingService.cancel(cancelledId);
+
+            List<Runnable> tasks = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                String phone = "07220003" + (10 + i);
+                switch (i % 4) {
+                    case 0 -> tasks.add(() -> bookingService.restore(cancelledId));
+                    case 1 -> tasks.add(() -> bookingService.block(court.getId(), date, start, end, "Test blocat"));
+                    default -> tasks.add(() -> bookingService.createPublicAdmin(court.getId(), date, start, end,
+                            "Test " + phone, phone, null, null, false, true));
+                }
+            }
+            List<RuntimeException> results = race(tasks);
+
+            assertThat(successes(results)).isPositive();
+            assertThat(bookingRepository.findOverlapping(court.getId(), date, start, end, ACTIVE)).hasSize(1);
+            if (!"none".equals(lockMode)) {
+                // Guarded: the losers wait and then see the winner, none of them races it to the constraint.
+                assertThat(results).noneMatch(r -> r != null && hitUniqueCell(r));
+            }
+        }
+    }
+
+    // Wall time for THREADS bookings on one court that never overlap: four on different
+    // days, four on different halves of one day, each transaction kept open HOLD_MS after
+    // the booking is written, so whatever the lock mode holds is held that long.
+    private static long disjointWallMillis(String lockMode) throws Exception {
+        try (ConfigurableApplicationContext ctx = start("bench-" + lockMode, lockMode)) {
+            BookingService bookingService = ctx.getBean(BookingService.class);
+            TransactionTemplate tx = new TransactionTemplate(ctx.getBean(PlatformTransactionManager.class));
+            Court court = ctx.getBean(CourtRepository.class).findAll().get(0);
+            LocalDate first = LocalDate.now().plusDays(14);
+
+            List<Runnable> tasks = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                String phone = "07220004" + (10 + i);
+                LocalDate date = i < THREADS / 2 ? first.plusDays(1 + i) : first;
+                LocalTime start = i < THREADS / 2 ? LocalTime.of(10, 0) : LocalTime.of(8, 0).plusHours(3L * (i - THREADS / 2));
+                tasks.add(() -> tx.executeWithoutResult(status -> {
+                    bookingService.createPublicAdmin(court.getId(), date, start, start.plusHours(1),
+                            "Test " + phone, phone, null, null, false, true);
+                    try {
+                        Thread.sleep(HOLD_MS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+            }
+            long began = System.nanoTime();
+            List<RuntimeException> results = race(tasks);
+            long wall = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - began);
+
+            assertThat(successes(results)).isEqualTo(THREADS);
+            return wall;
+        }
+    }
+
+    @Test
+    void slotModeRunsDisjointIntervalsOfOneCourtInParallel() throws Exception {
+        long court = disjointWallMillis("court");
+        long slot = disjointWallMillis("slot");
+        System.out.printf("Lock mode contention, %d disjoint bookings on one court held %d ms each: "
+                + "court %d ms, slot %d ms%n", THREADS, HOLD_MS, court, slot);
+
+        assertAll(
+                // Serialized on the court row: at least one hold per booking.
+                () -> assertThat(court).isGreaterThanOrEqualTo(THREADS * HOLD_MS),
+                // Claims on different cells don't wait for each other.
+                () -> assertThat(slot).isLessThan(court / 2));
+    }
+}
@@ -0,0 +1,90 @@
+package com.toptennis.service;
+
+import com.toptennis.dto.BookingDto;
+import com.toptennis.model.Court;
+import com.toptennis.model.PlayerUser;
+import com.toptennis.repository.CourtRepository;
+import com.toptennis.repository.PlayerUserRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The admin day list runs a fixed number of statements however many rows the day has:
+// the day itself, matches played, and the penalty counts by phone and by player.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-count;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.toptennis.service.BookingServiceQueryCountTest$CountingInspector",
+        "jwt.secret=query-count-test-secret-0123456789abcdef0123456789abc",
+        "sms.mode=mock"
+})
+class BookingServiceQueryCountTest {
+
+    // Counts the statements prepared on the calling thread only; the booking listeners
+    // and scheduled jobs run queries of their own on other threads meanwhile.
+    public static class CountingInspector implements StatementInspector {
+        static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+        @Override
+        public String inspect(String sql) {
+            COUNT.get()[0]++;
+            return sql;
+        }
+    }
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private CourtRepository courtRepository;
+    @Autowired
+    private PlayerUserRepository playerUserRepository;
+
+    // `count` hour-long bookings from 08:00 on the first court; every other one by a player account.
+    private void book(LocalDate date, int count, String phonePrefix) {
+        Court court = courtRepository.findAll().get(0);
+        for (int i = 0; i < count; i++) {
+            String phone = phonePrefix + String.format("%02d", i);
+            if (i % 2 == 0) {
+                PlayerUser player = new PlayerUser();
+                player.setFullName("Jucator " + i);
+                player.setPhoneNumber(phone);
+                player.setCreatedAt(LocalDateTime.now());
+                player.setUpdatedAt(LocalDateTime.now());
+                playerUserRepository.save(player);
+            }
+            LocalTime start = LocalTime.of(8, 0).plusHours(i);
+            bookingService.createPublicAdmin(court.getId(), date, start, start.plusHours(1),
+                    "Client " + i, phone, null, null, false, true);
+        }
+    }
+
+    private long statementsFor(LocalDate date, int expectedRows) {
+        CountingInspector.COUNT.get()[0] = 0;
+        List<BookingDto> rows = bookingService.listAdminDay(date, null);
+        assertThat(rows).hasSize(expectedRows);
+        return CountingInspector.COUNT.get()[0];
+    }
+
+    @Test
+    void adminDayQueryCountDoesNotGrowWithTheRows() {
+        LocalDate small = LocalDate.now().plusDays(20);
+        LocalDate large = small.plusDays(1);
+        book(small, 3, "07230001");
+        book(large, 12, "07230002");
+
+        long forSmall = statementsFor(small, 3);
+        long forLarge = statementsFor(large, 12);
+
+        assertThat(forSmall).isLessThanOrEqualTo(4);
+        assertThat(forLarge).isEqualTo(forSmall);
+    }
+}
@@ -0,0 +1,109 @@
+package com.toptennis.service;
+
+import com.toptennis.model.Booking;
+import com.toptennis.model.BookingSlot;
+import com.toptennis.model.BookingSlotLegacyOverlap;
+import com.toptennis.model.BookingStatus;
+import com.toptennis.model.Court;
+import com.toptennis.repository.BookingRepository;
+import com.toptennis.repository.BookingSlotLegacyOverlapRepository;
+import com.toptennis.repository.BookingSlotRepository;
+import com.toptennis.repository.CourtRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Bookings that overlapped before V52: the backfill gave the shared cells to the older one,
+// and V59 lists them for the newer one, which can then still be synced.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:slot-claims;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "jwt.secret=slot-claims-test-secret-0123456789abcdef0123456789abcd",
+        "sms.mode=mock"
+})
+class BookingSlotClaimsTest {
+
+    @Autowired
+    private BookingSlotClaims claims;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private BookingSlotRepository bookingSlotRepository;
+    @Autowired
+    private BookingSlotLegacyOverlapRepository legacyOverlapRepository;
+    @Autowired
+    private CourtRepository courtRepository;
+
+    // Saved straight through the repository: no event, so no cells, as before V52.
+    private Booking legacyBooking(Court court, LocalDate date, LocalTime start, LocalTime end) {
+        Booking b = new Booking();
+        b.setCourt(court);
+        b.setBookingDate(date);
+        b.setStartTime(start);
+        b.setEndTime(end);
+        b.setCustomerName("Client vechi");
+        b.setCustomerPhone("0722000999");
+        b.setStatus(BookingStatus.CONFIRMED);
+        b.setPrice(BigDecimal.ZERO);
+        b.setCreatedAt(LocalDateTime.now());
+        b.setUpdatedAt(LocalDateTime.now());
+        return bookingRepository.save(b);
+    }
+
+    private void ceded(Booking b, int slotIndex, Booking heldBy) {
+        BookingSlotLegacyOverlap cell = new BookingSlotLegacyOverlap();
+        cell.setBookingId(b.getId());
+        cell.setCourtId(b.getCourt().getId());
+        cell.setSlotDate(b.getBookingDate());
+        cell.setSlotIndex(slotIndex);
+        cell.setHeldBy(heldBy.getId());
+        legacyOverlapRepository.save(cell);
+    }
+
+    private List<Integer> cellsOf(Booking b) {
+        return bookingSlotRepository.findByBookingIdOrderBySlotIndexAsc(b.getId()).stream()
+                .map(BookingSlot::getSlotIndex).toList();
+    }
+
+    @Test
+    void legacyOverlapSyncsWithoutTheCellsHeldByTheOlderBooking() {
+        Court court = courtRepository.findAll().get(0);
+        LocalDate date = LocalDate.now().plusDays(30);
+        // 18:00-19:00 and 18:30-19:30: cell 37 (18:30-19:00) is shared.
+        Booking older = legacyBooking(court, date, LocalTime.of(18, 0), LocalTime.of(19, 0));
+        Booking newer = legacyBooking(court, date, LocalTime.of(18, 30), LocalTime.of(19, 30));
+        claims.sync(older);
+        ceded(newer, 37, older);
+
+        claims.sync(newer);
+        assertThat(cellsOf(newer)).containsExactly(38);
+
+        // Once the older booking is gone the cell is free and the newer one takes it.
+        older.setStatus(BookingStatus.CANCELLED);
+        bookingRepository.save(older);
+        claims.sync(older);
+        claims.sync(newer);
+        assertThat(cellsOf(newer)).containsExactly(37, 38);
+    }
+
+    @Test
+    void newOverlapIsStillRejected() {
+        Court court = courtRepository.findAll().get(0);
+        LocalDate date = LocalDate.now().plusDays(31);
+        Booking first = legacyBooking(court, date, LocalTime.of(18, 0), LocalTime.of(19, 0));
+        Booking second = legacyBooking(court, date, LocalTime.of(18, 30), LocalTime.of(19, 30));
+        claims.sync(first);
+
+        assertThatThrownBy(() -> claims.sync(second)).isInstanceOf(DataIntegrityViolationException.class);
+    }
+}
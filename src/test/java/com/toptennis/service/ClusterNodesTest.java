@@ -0,0 +1,125 @@
+package com.toptennis.service;
+
+import com.toptennis.TopTennisApplication;
+import com.toptennis.model.Court;
+import com.toptennis.model.NotificationChannel;
+import com.toptennis.model.NotificationOutbox;
+import com.toptennis.model.NotificationStatus;
+import com.toptennis.repository.CourtRepository;
+import com.toptennis.repository.NotificationOutboxRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two application contexts in one JVM on one embedded H2 database, playing two instances:
+// booking events cross over through LocalBookingEventBus, and the outbox claims and job
+// leases let only one of them act.
+class ClusterNodesTest {
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    private static ConfigurableApplicationContext start() {
+        // Command-line arguments, so they win over application.yml.
+        return new SpringApplicationBuilder(TopTennisApplication.class).run(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:cluster-nodes;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--jwt.secret=cluster-nodes-test-secret-0123456789abcdef0123456789",
+                "--sms.mode=mock",
+                "--booking.event-bus=local");
+    }
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = start();
+        nodeB = start();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    private static ApplicationListener<PayloadApplicationEvent<?>> remoteEventsInto(List<BookingChangedEvent> seen) {
+        return e -> {
+            if (e.getPayload() instanceof RemoteBookingChangedEvent remote) {
+                seen.add(remote.event());
+            }
+        };
+    }
+
+    @Test
+    void bookingEventCommittedOnOneNodeReachesTheOther() throws InterruptedException {
+        List<BookingChangedEvent> seenByA = new CopyOnWriteArrayList<>();
+        List<BookingChangedEvent> seenByB = new CopyOnWriteArrayList<>();
+        nodeA.addApplicationListener(remoteEventsInto(seenByA));
+        nodeB.addApplicationListener(remoteEventsInto(seenByB));
+
+        Court court = nodeB.getBean(CourtRepository.class).findAll().get(0);
+        LocalDate date = LocalDate.now().plusDays(3);
+        AvailabilityVersions versionsB = nodeB.getBean(AvailabilityVersions.class);
+        long before = versionsB.current(date, court.getSportType());
+
+        BookingChangedEvent event = new BookingChangedEvent(BookingChangedEvent.Type.UPDATED, null, court.getId(),
+                date, LocalTime.of(18, 0), LocalTime.of(19, 0), null);
+        nodeA.publishEvent(event);
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (seenByB.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(seenByB).containsExactly(event);
+        assertThat(versionsB.current(date, court.getSportType())).isGreaterThan(before);
+        // Never echoed back to the node that published it.
+        assertThat(seenByA).isEmpty();
+    }
+
+    @Test
+    void outboxRowIsClaimedByOneNodeOnly() {
+        NotificationOutboxRepository repoA = nodeA.getBean(NotificationOutboxRepository.class);
+        NotificationOutboxRepository repoB = nodeB.getBean(NotificationOutboxRepository.class);
+        NotificationOutbox row = new NotificationOutbox();
+        row.setChannel(NotificationChannel.SMS);
+        row.setRecipient("0722000111");
+        row.setBody("test");
+        row.setStatus(NotificationStatus.DEAD);
+        row.setNextAttemptAt(LocalDateTime.now());
+        row.setCreatedAt(LocalDateTime.now());
+        // DEAD, so the running dispatchers leave it alone; claimed as if it were pending.
+        Long id = repoA.save(row).getId();
+
+        LocalDateTime now = LocalDateTime.now();
+        assertThat(repoA.claim(id, NotificationStatus.DEAD, now, now.plusMinutes(10))).isEqualTo(1);
+        assertThat(repoB.claim(id, NotificationStatus.DEAD, now, now.plusMinutes(10))).isZero();
+        // Once the lease has run out the row can be taken again.
+        LocalDateTime later = now.plusMinutes(11);
+        assertThat(repoB.claim(id, NotificationStatus.DEAD, later, later.plusMinutes(10))).isEqualTo(1);
+    }
+
+    @Test
+    void scheduledJobRunsOnTheNodeHoldingTheLease() {
+        ScheduledJobLocks locksA = nodeA.getBean(ScheduledJobLocks.class);
+        ScheduledJobLocks locksB = nodeB.getBean(ScheduledJobLocks.class);
+
+        assertThat(locksA.tryAcquire("reminders", Duration.ofMinutes(15))).isTrue();
+        assertThat(locksB.tryAcquire("reminders", Duration.ofMinutes(15))).isFalse();
+        // The holder renews its lease on the next run.
+        assertThat(locksA.tryAcquire("reminders", Duration.ofMinutes(15))).isTrue();
+    }
+}
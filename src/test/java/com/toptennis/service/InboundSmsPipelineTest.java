@@ -0,0 +1,108 @@
+package com.toptennis.service;
+
+import com.toptennis.config.SmsProperties;
+import com.toptennis.sms.AtSerialClient;
+import com.toptennis.sms.DeliveryReportTracker;
+import com.toptennis.sms.InboundSms;
+import com.toptennis.sms.ModemEmulator;
+import com.toptennis.sms.ModemPool;
+import com.toptennis.sms.SmsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+// Inbound SMS against the emulated modem's SIM storage: a message the modem refuses to
+// delete is not handled, and is handled once when a later pass can delete it.
+class InboundSmsPipelineTest {
+    private static final String FROM = "+40722000111";
+
+    private final List<InboundSms> handled = new CopyOnWriteArrayList<>();
+    private InboundSmsPipeline pipeline;
+
+    private static SmsProperties props() {
+        SmsProperties props = new SmsProperties();
+        props.setMode("emulator");
+        props.setPorts(List.of("emu-a"));
+        props.setDeliveryReports(false);
+        props.setCommandTimeoutMs(1000);
+        props.setSendTimeoutMs(1500);
+        props.getEmulator().setCommandLatencyMs(1);
+        return props;
+    }
+
+    private ModemEmulator start() {
+        SmsProperties props = props();
+        ModemPool pool = new ModemPool(props);
+        AtSerialClient client = pool.clients().iterator().next();
+        client.reconnect();
+        SmsService smsService = new SmsService(pool, mock(DeliveryReportTracker.class), props);
+        pipeline = new InboundSmsPipeline(pool, smsService, props, List.of(sms -> handled.add(sms)));
+        return client.emulator();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    @AfterEach
+    void stop() {
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void drainLeavesAnUndeletedMessageForTheNextPass() throws InterruptedException {
+        ModemEmulator modem = start();
+        modem.storeIncoming(FROM, "ANULEAZA 18:00");
+        modem.failNextDeletes(1);
+
+        pipeline.start();
+        await(() -> modem.commandCount("AT+CMGD") >= 1);
+        Thread.sleep(200);
+
+        assertThat(handled).isEmpty();
+        assertThat(modem.storedCount()).isEqualTo(1);
+
+        // The next drain (here: a restart) can delete it, and handles it once.
+        pipeline.stop();
+        pipeline.start();
+        await(() -> handled.size() == 1);
+
+        assertThat(handled.get(0).from()).isEqualTo(FROM);
+        assertThat(handled.get(0).text()).isEqualTo("ANULEAZA 18:00");
+        assertThat(modem.storedCount()).isZero();
+    }
+
+    @Test
+    void announcedMessageIsHandledOnlyOnceDeleted() throws InterruptedException {
+        ModemEmulator modem = start();
+        pipeline.start();
+        // The start-up drain has set the session up (AT+CNMI) and found nothing.
+        await(() -> modem.commandCount("AT+CMGL") >= 1);
+
+        modem.failNextDeletes(1);
+        modem.storeIncoming(FROM, "DA 0722000222");
+        await(() -> modem.commandCount("AT+CMGD") >= 1);
+        Thread.sleep(200);
+
+        assertThat(handled).isEmpty();
+        assertThat(modem.storedCount()).isEqualTo(1);
+
+        modem.storeIncoming(FROM, "DA 0722000333");
+        await(() -> handled.size() == 1);
+
+        assertThat(handled.get(0).text()).isEqualTo("DA 0722000333");
+        assertThat(modem.storedCount()).isEqualTo(1);
+    }
+}
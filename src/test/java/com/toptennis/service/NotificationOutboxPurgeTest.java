@@ -0,0 +1,56 @@
+package com.toptennis.service;
+
+import com.toptennis.model.NotificationChannel;
+import com.toptennis.model.NotificationOutbox;
+import com.toptennis.model.NotificationStatus;
+import com.toptennis.repository.NotificationOutboxRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The nightly purge only takes SENT rows past the retention; DEAD ones stay for inspection.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox-purge;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "jwt.secret=outbox-purge-test-secret-0123456789abcdef0123456789abc",
+        "sms.mode=mock"
+})
+class NotificationOutboxPurgeTest {
+
+    @Autowired
+    private NotificationDispatcher dispatcher;
+    @Autowired
+    private NotificationOutboxRepository outboxRepository;
+
+    private Long row(NotificationStatus status, int daysAgo) {
+        LocalDateTime at = LocalDateTime.now().minusDays(daysAgo);
+        NotificationOutbox row = new NotificationOutbox();
+        row.setChannel(NotificationChannel.SMS);
+        row.setRecipient("0722000111");
+        row.setBody("test");
+        row.setStatus(status);
+        row.setNextAttemptAt(at);
+        row.setCreatedAt(at);
+        if (status == NotificationStatus.SENT) {
+            row.setSentAt(at);
+        }
+        return outboxRepository.save(row).getId();
+    }
+
+    @Test
+    void removesOnlyOldSentRows() {
+        Long oldSent = row(NotificationStatus.SENT, 45);
+        Long recentSent = row(NotificationStatus.SENT, 3);
+        Long oldDead = row(NotificationStatus.DEAD, 45);
+
+        dispatcher.purgeSent();
+
+        assertThat(outboxRepository.existsById(oldSent)).isFalse();
+        assertThat(outboxRepository.existsById(recentSent)).isTrue();
+        assertThat(outboxRepository.existsById(oldDead)).isTrue();
+    }
+}
@@ -0,0 +1,152 @@
+package com.toptennis.service;
+
+import com.toptennis.model.Booking;
+import com.toptennis.model.BookingStatus;
+import com.toptennis.model.PlayerUser;
+import com.toptennis.repository.BookingRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PenaltyScoresTest {
+    private static final String PHONE_A = "0722000111";
+    private static final String PHONE_B = "0722000222";
+
+    private BookingRepository repository;
+    private PenaltyScores scores;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(BookingRepository.class);
+        scores = new PenaltyScores(repository);
+    }
+
+    // Every phone and player starts with `cancellations` cancellations.
+    private void penalties(long cancellations) {
+        List<BookingRepository.StatusCount> counts = List.of(count(BookingStatus.CANCELLED, cancellations));
+        when(repository.countPenaltiesByPhone(any(), anyList())).thenReturn(counts);
+        when(repository.countPenaltiesByPlayer(any(), anyList())).thenReturn(counts);
+    }
+
+    private static BookingChangedEvent event(long bookingId) {
+        return new BookingChangedEvent(BookingChangedEvent.Type.CANCELLED, bookingId, 1L, null, null, null,
+                BookingStatus.CANCELLED);
+    }
+
+    private static BookingRepository.StatusCount count(BookingStatus status, long total) {
+        return new BookingRepository.StatusCount() {
+            @Override
+            public BookingStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public long getTotal() {
+                return total;
+            }
+        };
+    }
+
+    @Test
+    void forgetDropsPhoneAndEveryPlayerGiven() {
+        when(repository.countPenaltiesByPlayer(eq(1L), anyList())).thenReturn(List.of());
+        when(repository.countPenaltiesByPlayer(eq(2L), anyList())).thenReturn(List.of(count(BookingStatus.NO_SHOW, 1)));
+        when(repository.countPenaltiesByPhone(any(), anyList())).thenReturn(List.of(count(BookingStatus.CANCELLED, 2)));
+
+        assertThat(scores.forPlayer(1L).score()).isZero();
+        assertThat(scores.forPlayer(2L).score()).isEqualTo(10);
+        assertThat(scores.forPhone("0722000111").score()).isEqualTo(2);
+
+        // Player 2's bookings (and its no-show) move to player 1.
+        when(repository.countPenaltiesByPlayer(eq(1L), anyList())).thenReturn(List.of(count(BookingStatus.NO_SHOW, 1)));
+        when(repository.countPenaltiesByPlayer(eq(2L), anyList())).thenReturn(List.of());
+        when(repository.countPenaltiesByPhone(any(), anyList())).thenReturn(List.of(count(BookingStatus.CANCELLED, 3)));
+        assertThat(scores.forPlayer(1L).score()).isZero();
+
+        scores.forgetAfterCommit("0722000111", 1L, 2L);
+
+        assertThat(scores.forPlayer(1L).score()).isEqualTo(10);
+        assertThat(scores.forPlayer(2L).score()).isZero();
+        assertThat(scores.forPhone("0722000111").score()).isEqualTo(3);
+    }
+
+    @Test
+    void bookingChangeDropsOnlyItsPhoneAndPlayer() {
+        PlayerUser player = new PlayerUser();
+        player.setId(1L);
+        Booking booking = new Booking();
+        booking.setId(5L);
+        booking.setCustomerPhone(PHONE_A);
+        booking.setPlayerUser(player);
+        when(repository.findById(5L)).thenReturn(Optional.of(booking));
+        penalties(1);
+        scores.forPhone(PHONE_A);
+        scores.forPhone(PHONE_B);
+        scores.forPlayer(1L);
+        scores.forPlayer(2L);
+
+        penalties(2);
+        scores.onBookingChanged(event(5L));
+
+        assertThat(scores.forPhone(PHONE_A).score()).isEqualTo(2);
+        assertThat(scores.forPlayer(1L).score()).isEqualTo(2);
+        // Untouched by that booking: still served from memory.
+        assertThat(scores.forPhone(PHONE_B).score()).isEqualTo(1);
+        assertThat(scores.forPlayer(2L).score()).isEqualTo(1);
+    }
+
+    @Test
+    void bulkRefreshAndAnUnknownBookingDropEverything() {
+        when(repository.findById(9L)).thenReturn(Optional.empty());
+        penalties(1);
+        scores.forPhone(PHONE_A);
+        scores.forPlayer(2L);
+
+        penalties(2);
+        scores.onBookingChanged(BookingChangedEvent.bulkRefresh());
+
+        assertThat(scores.forPhone(PHONE_A).score()).isEqualTo(2);
+        assertThat(scores.forPlayer(2L).score()).isEqualTo(2);
+
+        // A booking that is gone by the time the event is handled (hard reset): whose it
+        // was is unknown, so nothing cached is trusted.
+        penalties(3);
+        scores.onBookingChanged(event(9L));
+
+        assertThat(scores.forPhone(PHONE_A).score()).isEqualTo(3);
+        assertThat(scores.forPlayer(2L).score()).isEqualTo(3);
+    }
+
+    @Test
+    void loadThatRacesAnInvalidationIsNotKept() {
+        // The count is read, then a commit invalidates before the load is stored.
+        when(repository.countPenaltiesByPhone(any(), anyList())).thenAnswer(inv -> {
+            scores.onBookingChanged(BookingChangedEvent.bulkRefresh());
+            return List.of(count(BookingStatus.CANCELLED, 1));
+        }).thenReturn(List.of(count(BookingStatus.CANCELLED, 2)));
+
+        assertThat(scores.forPhone(PHONE_A).score()).isEqualTo(1);
+        assertThat(scores.forPhone(PHONE_A).score()).isEqualTo(2);
+        assertThat(scores.forPhone(PHONE_A).score()).isEqualTo(2);
+        verify(repository, times(2)).countPenaltiesByPhone(any(), anyList());
+
+        when(repository.countPenaltiesByPhones(anyList(), anyList())).thenAnswer(inv -> {
+            scores.onBookingChanged(BookingChangedEvent.bulkRefresh());
+            return List.of();
+        });
+        scores.forPhones(List.of(PHONE_B));
+        scores.forPhones(List.of(PHONE_B));
+        verify(repository, times(2)).countPenaltiesByPhones(anyList(), anyList());
+    }
+}
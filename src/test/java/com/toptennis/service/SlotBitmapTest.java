@@ -0,0 +1,95 @@
+package com.toptennis.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlotBitmapTest {
+
+    private static List<int[]> freeRuns(long occupied, int from, int to) {
+        List<int[]> runs = new ArrayList<>();
+        SlotBitmap.forEachFreeRun(occupied, from, to, (s, e) -> runs.add(new int[]{s, e}));
+        return runs;
+    }
+
+    @Test
+    void endOfDayMarkerIsTheEndOfTheLastSlot() {
+        assertThat(SlotBitmap.endSlot(23 * 60 + 59)).isEqualTo(48);
+        assertThat(SlotBitmap.endSlot(23 * 60 + 30)).isEqualTo(47);
+        assertThat(SlotBitmap.slotToEndMinute(48)).isEqualTo(23 * 60 + 59);
+        assertThat(SlotBitmap.isAligned(LocalTime.of(23, 0), LocalTime.of(23, 59))).isTrue();
+        assertThat(SlotBitmap.isAligned(LocalTime.of(18, 15), LocalTime.of(19, 0))).isFalse();
+        assertThat(SlotBitmap.isAligned(LocalTime.of(18, 0), LocalTime.of(19, 45))).isFalse();
+    }
+
+    @Test
+    void maskCoversTheHalfHoursOfTheInterval() {
+        assertThat(SlotBitmap.mask(LocalTime.of(0, 0), LocalTime.of(0, 30))).isEqualTo(1L);
+        assertThat(SlotBitmap.mask(LocalTime.of(18, 0), LocalTime.of(19, 30))).isEqualTo(0b111L << 36);
+        assertThat(SlotBitmap.mask(LocalTime.of(23, 0), LocalTime.of(23, 59))).isEqualTo(0b11L << 46);
+        assertThat(SlotBitmap.mask(LocalTime.of(0, 0), LocalTime.of(23, 59))).isEqualTo(SlotBitmap.FULL_DAY);
+        assertThat(SlotBitmap.mask(LocalTime.of(10, 0), LocalTime.of(10, 0))).isZero();
+    }
+
+    @Test
+    void touchingIntervalsDoNotOverlap() {
+        long booked = SlotBitmap.mask(LocalTime.of(18, 0), LocalTime.of(19, 0));
+
+        assertThat(SlotBitmap.overlaps(booked, SlotBitmap.mask(LocalTime.of(19, 0), LocalTime.of(20, 0)))).isFalse();
+        assertThat(SlotBitmap.overlaps(booked, SlotBitmap.mask(LocalTime.of(17, 0), LocalTime.of(18, 0)))).isFalse();
+        assertThat(SlotBitmap.overlaps(booked, SlotBitmap.mask(LocalTime.of(18, 30), LocalTime.of(20, 0)))).isTrue();
+        assertThat(SlotBitmap.overlaps(booked, SlotBitmap.mask(LocalTime.of(17, 0), LocalTime.of(23, 59)))).isTrue();
+    }
+
+    @Test
+    void freeRunsAreMaximalAndClippedToTheWindow() {
+        // Taken: 09:00-10:00 and 12:00-13:30.
+        long occupied = SlotBitmap.mask(LocalTime.of(9, 0), LocalTime.of(10, 0))
+                | SlotBitmap.mask(LocalTime.of(12, 0), LocalTime.of(13, 30));
+
+        // Window 08:00-15:00.
+        assertThat(freeRuns(occupied, 16, 30)).containsExactly(
+                new int[]{16, 18}, new int[]{20, 24}, new int[]{27, 30});
+    }
+
+    @Test
+    void freeRunReachesTheEndOfTheDay() {
+        long occupied = SlotBitmap.mask(LocalTime.of(0, 0), LocalTime.of(22, 0));
+
+        assertThat(freeRuns(occupied, 0, SlotBitmap.SLOTS_PER_DAY)).containsExactly(new int[]{44, 48});
+        assertThat(freeRuns(SlotBitmap.FULL_DAY, 0, SlotBitmap.SLOTS_PER_DAY)).isEmpty();
+        assertThat(freeRuns(0L, 0, SlotBitmap.SLOTS_PER_DAY)).containsExactly(new int[]{0, 48});
+    }
+
+    @Test
+    void firstFreeFindsTheEarliestRunLongEnough() {
+        // Taken: 09:00-10:00 and 12:00-13:30.
+        long occupied = SlotBitmap.mask(LocalTime.of(9, 0), LocalTime.of(10, 0))
+                | SlotBitmap.mask(LocalTime.of(12, 0), LocalTime.of(13, 30));
+
+        // One hour from 08:00: 08:00-09:00 fits.
+        assertThat(SlotBitmap.firstFree(occupied, 2, 16)).isEqualTo(16);
+        // An hour and a half from 08:00: not before 09:00, so 10:00.
+        assertThat(SlotBitmap.firstFree(occupied, 3, 16)).isEqualTo(20);
+        // Two and a half hours: only after 13:30.
+        assertThat(SlotBitmap.firstFree(occupied, 5, 16)).isEqualTo(27);
+        // From 12:30, inside the second booking.
+        assertThat(SlotBitmap.firstFree(occupied, 1, 25)).isEqualTo(27);
+    }
+
+    @Test
+    void firstFreeRunMustEndByTheEndOfTheDay() {
+        long occupied = SlotBitmap.mask(LocalTime.of(0, 0), LocalTime.of(22, 0));
+
+        assertThat(SlotBitmap.firstFree(occupied, 4, 0)).isEqualTo(44);
+        assertThat(SlotBitmap.firstFree(occupied, 5, 0)).isEqualTo(-1);
+        assertThat(SlotBitmap.firstFree(SlotBitmap.FULL_DAY, 1, 0)).isEqualTo(-1);
+        assertThat(SlotBitmap.firstFree(0L, SlotBitmap.SLOTS_PER_DAY, 0)).isZero();
+        assertThat(SlotBitmap.firstFree(0L, SlotBitmap.SLOTS_PER_DAY + 1, 0)).isEqualTo(-1);
+        assertThat(SlotBitmap.firstFree(0L, 2, 47)).isEqualTo(-1);
+    }
+}
@@ -0,0 +1,88 @@
+package com.toptennis.service;
+
+import com.toptennis.config.SmsProperties;
+import com.toptennis.model.BookingStatus;
+import com.toptennis.sms.InboundSms;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SmsApprovalHandlerTest {
+    private static final String ADMIN = "+40722000001";
+
+    private BookingService bookingService;
+    private NotificationQueue notificationQueue;
+    private SmsApprovalHandler handler;
+
+    private static BookingService.SmsBooking pending(long id, String phone) {
+        return new BookingService.SmsBooking(id, "tok-" + id, LocalDate.now().plusDays(1), LocalTime.of(22, 0),
+                LocalTime.of(23, 0), "Teren 1", BookingStatus.PENDING_APPROVAL, "Client " + id, phone);
+    }
+
+    private static InboundSms sms(String from, String text) {
+        return new InboundSms("emu-a", 1, from, text, Instant.now(), 0, 1, 1);
+    }
+
+    @BeforeEach
+    void setUp() {
+        bookingService = mock(BookingService.class);
+        notificationQueue = mock(NotificationQueue.class);
+        SmsProperties props = new SmsProperties();
+        props.setAdminNotificationNumber(ADMIN);
+        handler = new SmsApprovalHandler(bookingService, notificationQueue, props);
+    }
+
+    @Test
+    void bareDaApprovesNothing() {
+        when(bookingService.pendingApprovals()).thenReturn(List.of(pending(1, "0722000111")));
+
+        assertThat(handler.handle(sms(ADMIN, "DA"))).isTrue();
+
+        verify(bookingService, never()).approvePending(anyLong());
+        verify(notificationQueue).enqueueSms(eq(ADMIN), contains("DA <telefon client>"), isNull(), any());
+    }
+
+    @Test
+    void daWithThePhoneApprovesOnlyThatCustomer() {
+        when(bookingService.pendingApprovals()).thenReturn(List.of(pending(1, "0722000111"), pending(2, "0722000222")));
+        when(bookingService.approvePending(2L)).thenReturn(true);
+
+        assertThat(handler.handle(sms(ADMIN, "da +40 722 000 222"))).isTrue();
+
+        verify(bookingService).approvePending(2L);
+        verify(bookingService, never()).approvePending(1L);
+        verify(notificationQueue).enqueueSms(eq(ADMIN), contains("Aprobat: Client 2"), eq(2L), any());
+    }
+
+    @Test
+    void bookingNoLongerPendingIsNotReportedAsApproved() {
+        when(bookingService.pendingApprovals()).thenReturn(List.of(pending(1, "0722000111")));
+        when(bookingService.approvePending(1L)).thenReturn(false);
+
+        handler.handle(sms(ADMIN, "DA 0722000111"));
+
+        verify(notificationQueue).enqueueSms(eq(ADMIN), contains("Nicio rezervare"), isNull(), any());
+    }
+
+    @Test
+    void daFromSomeoneElseIsLeftToOtherHandlers() {
+        assertThat(handler.handle(sms("+40722000999", "DA 0722000111"))).isFalse();
+
+        verify(bookingService, never()).approvePending(anyLong());
+    }
+}
@@ -0,0 +1,69 @@
+package com.toptennis.sms;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AtLineParserTest {
+
+    private static List<String> feed(AtLineParser parser, String... chunks) {
+        List<String> lines = new ArrayList<>();
+        for (String chunk : chunks) {
+            byte[] bytes = chunk.getBytes(StandardCharsets.ISO_8859_1);
+            parser.feed(bytes, bytes.length, lines::add);
+        }
+        return lines;
+    }
+
+    @Test
+    void splitsOnCrLfAndDropsBlankLines() {
+        assertThat(feed(new AtLineParser(), "\r\n+CMGS: 12\r\n\r\nOK\r\n")).containsExactly("+CMGS: 12", "OK");
+    }
+
+    @Test
+    void lineSplitAcrossReadsIsJoined() {
+        assertThat(feed(new AtLineParser(), "\r\n+CM", "GS: 1", "2\r", "\n\r\nO", "K\r\n"))
+                .containsExactly("+CMGS: 12", "OK");
+    }
+
+    @Test
+    void crAndLfInSeparateReadsDoNotMakeAnEmptyLine() {
+        assertThat(feed(new AtLineParser(), "OK\r", "\n", "\r", "\nERROR\r\n")).containsExactly("OK", "ERROR");
+    }
+
+    @Test
+    void promptWithoutLineBreakIsItsOwnLine() {
+        assertThat(feed(new AtLineParser(), "\r\n> ")).containsExactly(">");
+        assertThat(feed(new AtLineParser(), "\r\n", ">", " ")).containsExactly(">");
+    }
+
+    @Test
+    void greaterThanInsideALineIsText() {
+        assertThat(feed(new AtLineParser(), "+CMT: \"a>b\"\r\n")).containsExactly("+CMT: \"a>b\"");
+    }
+
+    @Test
+    void lengthLimitsTheBytesRead() {
+        AtLineParser parser = new AtLineParser();
+        List<String> lines = new ArrayList<>();
+        byte[] buffer = "OK\r\nstale bytes".getBytes(StandardCharsets.ISO_8859_1);
+
+        parser.feed(buffer, 4, lines::add);
+
+        assertThat(lines).containsExactly("OK");
+        assertThat(feed(parser, "ERROR\r\n")).containsExactly("ERROR");
+    }
+
+    @Test
+    void resetDropsAPartialLine() {
+        AtLineParser parser = new AtLineParser();
+        feed(parser, "+CMG");
+        parser.reset();
+
+        assertThat(feed(parser, "OK\r\n")).containsExactly("OK");
+    }
+}
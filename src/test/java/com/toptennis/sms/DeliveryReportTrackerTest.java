@@ -0,0 +1,100 @@
+package com.toptennis.sms;
+
+import com.toptennis.config.SmsProperties;
+import com.toptennis.model.SmsDeliveryStatus;
+import com.toptennis.model.SmsMessage;
+import com.toptennis.repository.SmsMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// A delivery report that arrives before or while its message is recorded is applied
+// exactly once, whichever side gets there last.
+class DeliveryReportTrackerTest {
+    private static final String MODEM = "emu-a";
+    private static final String TO = "+40722000111";
+
+    private SmsMessageRepository repository;
+    private DeliveryReportTracker tracker;
+    // Every save, in order (the same row object twice when a report is applied to it).
+    private final List<SmsDeliveryStatus> saves = new ArrayList<>();
+    private final List<SmsMessage> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        SmsProperties props = new SmsProperties();
+        props.setMode("emulator");
+        props.setPorts(List.of(MODEM));
+        repository = mock(SmsMessageRepository.class);
+        when(repository.save(any(SmsMessage.class))).thenAnswer(inv -> {
+            SmsMessage row = inv.getArgument(0);
+            saves.add(row.getStatus());
+            if (!rows.contains(row)) {
+                rows.add(row);
+            }
+            return row;
+        });
+        tracker = new DeliveryReportTracker(new ModemPool(props), repository);
+    }
+
+    private static SmsPdu.StatusReport delivered(int reference) {
+        Instant accepted = Instant.now().minusSeconds(5);
+        return new SmsPdu.StatusReport(reference, TO, accepted, accepted.plusSeconds(3), 0);
+    }
+
+    private List<SmsMessage> awaiting(int reference) {
+        return rows.stream()
+                .filter(r -> r.getReference() == reference && r.getStatus() == SmsDeliveryStatus.SENT)
+                .toList();
+    }
+
+    private void rowsAwaitingReport() {
+        when(repository.findAwaitingReport(anyString(), anyInt(), any(), any(), any()))
+                .thenAnswer(inv -> awaiting(inv.getArgument(1)));
+    }
+
+    @Test
+    void reportAheadOfItsMessageIsAppliedWhenTheMessageIsRecorded() {
+        rowsAwaitingReport();
+
+        tracker.onReport(MODEM, delivered(7));
+        assertThat(saves).isEmpty();
+
+        tracker.recordSubmitted(MODEM, TO, SmsLane.CUSTOMER, "7", 1);
+
+        assertThat(saves).containsExactly(SmsDeliveryStatus.SENT, SmsDeliveryStatus.DELIVERED);
+        assertThat(rows.get(0).getLatencyMs()).isEqualTo(3000);
+    }
+
+    @Test
+    void messageRecordedBetweenTheLookupAndTheParkingIsNotLeftWaiting() {
+        // The first lookup misses; the message is recorded right after it, before the
+        // report is parked, so recordSubmitted finds nothing parked.
+        when(repository.findAwaitingReport(anyString(), anyInt(), any(), any(), any()))
+                .thenAnswer(inv -> {
+                    tracker.recordSubmitted(MODEM, TO, SmsLane.CUSTOMER, "9", 1);
+                    return List.of();
+                })
+                .thenAnswer(inv -> awaiting(inv.getArgument(1)));
+
+        tracker.onReport(MODEM, delivered(9));
+
+        assertThat(saves).containsExactly(SmsDeliveryStatus.SENT, SmsDeliveryStatus.DELIVERED);
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getStatus()).isEqualTo(SmsDeliveryStatus.DELIVERED);
+
+        // Nothing was left parked to be applied a second time.
+        tracker.recordSubmitted(MODEM, TO, SmsLane.CUSTOMER, "9", 1);
+        assertThat(saves).containsExactly(SmsDeliveryStatus.SENT, SmsDeliveryStatus.DELIVERED, SmsDeliveryStatus.SENT);
+    }
+}
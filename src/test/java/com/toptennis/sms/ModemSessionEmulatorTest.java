@@ -0,0 +1,114 @@
+package com.toptennis.sms;
+
+import com.toptennis.config.SmsProperties;
+import com.toptennis.dto.SmsSendResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+// The AT session against the emulated modem's injected failures: +CMS ERROR, the network
+// rate limit and a connection dropped mid-send, on one modem so nothing fails over.
+class ModemSessionEmulatorTest {
+
+    private static SmsProperties props() {
+        SmsProperties props = new SmsProperties();
+        props.setMode("emulator");
+        props.setPorts(List.of("emu-a"));
+        props.setDeliveryReports(false);
+        props.setCommandTimeoutMs(1000);
+        props.setSendTimeoutMs(1500);
+        props.getEmulator().setCommandLatencyMs(1);
+        props.getEmulator().setSubmitLatencyMs(5);
+        props.getEmulator().setSeed(42);
+        return props;
+    }
+
+    private static AtSerialClient connectedClient(ModemPool pool) {
+        AtSerialClient client = pool.clients().iterator().next();
+        client.reconnect();
+        return client;
+    }
+
+    @Test
+    void cmsErrorFailsTheMessageAndBacksThePacerOff() {
+        SmsProperties props = props();
+        props.getEmulator().setCmsErrorRate(1.0);
+        ModemPool pool = new ModemPool(props);
+        AtSerialClient client = connectedClient(pool);
+        SmsService service = new SmsService(pool, mock(DeliveryReportTracker.class), props);
+
+        SmsSendResult result = service.sendSms("+40722000111", "Rezervare confirmata.", SmsLane.CUSTOMER);
+
+        assertThat(result.success).isFalse();
+        // Refused by the network: safe to try again later, nothing went out.
+        assertThat(result.possiblySent).isFalse();
+        assertThat(result.messageId).isNull();
+        assertThat(client.emulator().rejectedCount()).isPositive();
+        assertThat(client.emulator().submittedCount()).isZero();
+        assertThat(client.pacer().backoffs()).isPositive();
+        assertThat(client.sessionState()).isNotEqualTo(AtSerialClient.SessionState.READY);
+    }
+
+    @Test
+    void rateLimitRejectsOnlyTheMessagesOverIt() {
+        SmsProperties props = props();
+        props.getEmulator().setMaxPerMinute(2);
+        ModemPool pool = new ModemPool(props);
+        AtSerialClient client = connectedClient(pool);
+        SmsService service = new SmsService(pool, mock(DeliveryReportTracker.class), props);
+
+        List<SmsSendResult> results = service.sendBatch(List.of(
+                new OutgoingSms("+40722000111", "Mesaj 1.", SmsLane.CUSTOMER),
+                new OutgoingSms("+40722000112", "Mesaj 2.", SmsLane.CUSTOMER),
+                new OutgoingSms("+40722000113", "Mesaj 3.", SmsLane.CUSTOMER)));
+
+        assertThat(results).extracting(r -> r.success).containsExactly(true, true, false);
+        assertThat(results.get(2).transcript).contains("+CMS ERROR: 42");
+        assertThat(client.emulator().submittedCount()).isEqualTo(2);
+        assertThat(client.pacer().backoffs()).isPositive();
+    }
+
+    @Test
+    void droppedConnectionIsReopenedAndTheSessionSetUpAgain() {
+        SmsProperties props = props();
+        props.getEmulator().setDisconnectRate(1.0);
+        ModemPool pool = new ModemPool(props);
+        AtSerialClient client = connectedClient(pool);
+        SmsService service = new SmsService(pool, mock(DeliveryReportTracker.class), props);
+
+        SmsSendResult lost = service.sendSms("+40722000111", "Rezervare confirmata.", SmsLane.CUSTOMER);
+
+        // The body was written before the line went down: maybe out, never resent.
+        assertThat(lost.success).isFalse();
+        assertThat(lost.possiblySent).isTrue();
+        assertThat(client.emulator().resentCount()).isZero();
+
+        props.getEmulator().setDisconnectRate(0.0);
+        SmsSendResult next = service.sendSms("+40722000112", "Rezervare confirmata.", SmsLane.CUSTOMER);
+
+        assertThat(next.success).isTrue();
+        assertThat(client.sessionState()).isEqualTo(AtSerialClient.SessionState.READY);
+        // Set up on the first connection, and again on the one opened after the drop.
+        assertThat(client.emulator().commandCount("AT+CMGF")).isEqualTo(2);
+    }
+
+    @Test
+    void interruptedWaitIsNotReportedAsATimeout() {
+        AtSerialClient client = connectedClient(new ModemPool(props()));
+
+        Thread.currentThread().interrupt();
+        try {
+            assertThatThrownBy(() -> client.execute("AT", line -> false, Duration.ofSeconds(5)))
+                    .isInstanceOf(SmsException.class)
+                    .hasMessageStartingWith("Interrupted");
+            assertThat(Thread.currentThread().isInterrupted()).isTrue();
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.toptennis.sms;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SendPacerTest {
+
+    private static void accept(SendPacer pacer, int times) {
+        for (int i = 0; i < times; i++) {
+            pacer.onAccepted();
+            assertThat(pacer.intervalMs()).isGreaterThanOrEqualTo(pacer.floorMs());
+        }
+    }
+
+    @Test
+    void rejectionDoublesTheIntervalAndRaisesTheFloor() {
+        SendPacer pacer = new SendPacer();
+        long start = pacer.intervalMs();
+
+        pacer.onRejected();
+
+        assertThat(pacer.intervalMs()).isEqualTo(start * 2);
+        assertThat(pacer.floorMs()).isEqualTo(start);
+        assertThat(pacer.backoffs()).isEqualTo(1);
+
+        pacer.onRejected();
+        assertThat(pacer.intervalMs()).isEqualTo(start * 4);
+        assertThat(pacer.floorMs()).isEqualTo(start * 2);
+    }
+
+    @Test
+    void speedsUpOnlyAfterAStreakOfAcceptedMessages() {
+        SendPacer pacer = new SendPacer();
+        long start = pacer.intervalMs();
+
+        accept(pacer, 4);
+        assertThat(pacer.intervalMs()).isEqualTo(start);
+
+        accept(pacer, 1);
+        assertThat(pacer.intervalMs()).isLessThan(start);
+    }
+
+    @Test
+    void rejectionBreaksTheStreak() {
+        SendPacer pacer = new SendPacer();
+        accept(pacer, 4);
+        pacer.onRejected();
+        long backedOff = pacer.intervalMs();
+
+        accept(pacer, 4);
+
+        assertThat(pacer.intervalMs()).isEqualTo(backedOff);
+    }
+
+    @Test
+    void speedUpStopsAtTheFloorLeftByTheLastBackOff() {
+        SendPacer pacer = new SendPacer();
+        accept(pacer, 10);
+        long beforeRejection = pacer.intervalMs();
+        pacer.onRejected();
+
+        // A few streaks: back towards the old rate, but not under the (slowly decaying) floor.
+        accept(pacer, 25);
+        assertThat(pacer.intervalMs()).isGreaterThanOrEqualTo(pacer.floorMs());
+        assertThat(pacer.floorMs()).isLessThanOrEqualTo(beforeRejection);
+        assertThat(pacer.floorMs()).isGreaterThan(beforeRejection / 2);
+
+        // A long quiet run lets the floor decay, and the interval follows it down.
+        accept(pacer, 500);
+        assertThat(pacer.intervalMs()).isLessThan(beforeRejection);
+        assertThat(pacer.intervalMs()).isGreaterThanOrEqualTo(50);
+    }
+
+    @Test
+    void noBurstRightAfterARejection() throws InterruptedException {
+        SendPacer pacer = new SendPacer();
+        pacer.acquire();
+        pacer.acquire();
+        assertThat(pacer.waitedMs()).isZero();
+
+        pacer.onRejected();
+        pacer.acquire();
+
+        assertThat(pacer.waitedMs()).isPositive();
+    }
+}
@@ -0,0 +1,79 @@
+package com.toptennis.sms;
+
+import com.toptennis.config.SmsProperties;
+import com.toptennis.dto.SmsSendResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+// A batch on one emulated modem: set up once per session, then one AT+CMGS cycle per
+// message, back to back; only the pacer spaces them out.
+class SmsBatchThroughputTest {
+    private static final int MESSAGES = 20;
+    private static final long COMMAND_LATENCY_MS = 10;
+    private static final long SUBMIT_LATENCY_MS = 40;
+
+    private static SmsProperties props() {
+        SmsProperties props = new SmsProperties();
+        props.setMode("emulator");
+        props.setPorts(List.of("emu-a"));
+        props.setDeliveryReports(false);
+        props.setCommandTimeoutMs(1000);
+        props.setSendTimeoutMs(2000);
+        props.getEmulator().setCommandLatencyMs(COMMAND_LATENCY_MS);
+        props.getEmulator().setSubmitLatencyMs(SUBMIT_LATENCY_MS);
+        return props;
+    }
+
+    private static List<OutgoingSms> batch(int count) {
+        List<OutgoingSms> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            messages.add(new OutgoingSms("07220001" + (10 + i), "Rezervare confirmata " + i + ".", SmsLane.CUSTOMER));
+        }
+        return messages;
+    }
+
+    @Test
+    void batchIsConfiguredOnceAndSentBackToBack() {
+        SmsProperties props = props();
+        ModemPool pool = new ModemPool(props);
+        AtSerialClient client = pool.clients().iterator().next();
+        client.reconnect();
+        SmsService service = new SmsService(pool, mock(DeliveryReportTracker.class), props);
+
+        long started = System.currentTimeMillis();
+        List<SmsSendResult> results = service.sendBatch(batch(MESSAGES));
+        long elapsed = System.currentTimeMillis() - started;
+
+        assertThat(results).allSatisfy(r -> assertThat(r.success).isTrue());
+        ModemEmulator emulator = client.emulator();
+        assertThat(emulator.commandCount("AT+CMGF")).isEqualTo(1);
+        assertThat(emulator.commandCount("AT")).isEqualTo(1);
+        assertThat(emulator.commandCount("AT+CMGS")).isEqualTo(MESSAGES);
+        // Without the pacer's waits a message costs its own cycle: the AT+CMGS prompt and
+        // the submit answer (plus 1 s of slack for the whole batch).
+        long modemTime = elapsed - client.pacer().waitedMs();
+        assertThat(modemTime).isLessThan(MESSAGES * (COMMAND_LATENCY_MS + SUBMIT_LATENCY_MS) * 2 + 1000);
+    }
+
+    @Test
+    void reconnectSetsTheModemUpOnceMore() {
+        SmsProperties props = props();
+        ModemPool pool = new ModemPool(props);
+        AtSerialClient client = pool.clients().iterator().next();
+        client.reconnect();
+        SmsService service = new SmsService(pool, mock(DeliveryReportTracker.class), props);
+
+        service.sendBatch(batch(3));
+        client.reconnect();
+        List<SmsSendResult> results = service.sendBatch(batch(3));
+
+        assertThat(results).allSatisfy(r -> assertThat(r.success).isTrue());
+        assertThat(client.emulator().commandCount("AT+CMGF")).isEqualTo(2);
+        assertThat(client.emulator().commandCount("AT+CMGS")).isEqualTo(6);
+    }
+}
@@ -0,0 +1,242 @@
+package com.toptennis.sms;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SmsPduTest {
+    private static final String TO = "+40722000111";
+    // TP-DA for TO: 11 digits, international, swapped BCD with an F filler.
+    private static final String TO_ADDRESS = "0B910427020011F1";
+    // 26/10/17 12:30:00 and 12:30:05, both +03:00 (12 quarters of an hour).
+    private static final String ACCEPTED = "62017121030021";
+    private static final String DISCHARGED = "62017121035021";
+
+    // The SMS-SUBMIT turned into the SMS-DELIVER the recipient would get (same address,
+    // DCS and user data, blank timestamp), so decodeDeliver can read the text back.
+    private static SmsPdu.Deliver received(SmsPdu.Part part) {
+        String tpdu = part.hex().substring(2);
+        int firstOctet = Integer.parseInt(tpdu.substring(0, 2), 16);
+        int addressHexLength = 4 + ((Integer.parseInt(tpdu.substring(4, 6), 16) + 1) / 2) * 2;
+        String address = tpdu.substring(4, 4 + addressHexLength);
+        String rest = tpdu.substring(4 + addressHexLength);
+        String pidDcs = rest.substring(0, 4);
+        String udlAndUd = rest.substring(6);
+        String deliver = String.format("%02X", firstOctet & 0x40) + address + pidDcs + "00000000000000" + udlAndUd;
+        return SmsPdu.decodeDeliver(deliver, deliver.length() / 2);
+    }
+
+    private static String roundTrip(List<SmsPdu.Part> parts) {
+        StringBuilder sb = new StringBuilder();
+        for (SmsPdu.Part part : parts) {
+            sb.append(received(part).text());
+        }
+        return sb.toString();
+    }
+
+    private static int udl(SmsPdu.Part part) {
+        // SMSC 00, FO, MR, address, PID, DCS, VP, then UDL.
+        int at = 2 + 4 + TO_ADDRESS.length() + 6;
+        return Integer.parseInt(part.hex().substring(at, at + 2), 16);
+    }
+
+    private static String userData(SmsPdu.Part part) {
+        return part.hex().substring(2 + 4 + TO_ADDRESS.length() + 8);
+    }
+
+    @Test
+    void singleGsm7MessageIsPackedIntoSeptets() {
+        List<SmsPdu.Part> parts = SmsPdu.encode(TO, "hellohello", 0, false);
+
+        assertThat(parts).hasSize(1);
+        assertThat(parts.get(0).hex()).isEqualTo("00" + "1100" + TO_ADDRESS + "0000A7" + "0A" + "E8329BFD4697D9EC37");
+        assertThat(parts.get(0).tpduLength()).isEqualTo((parts.get(0).hex().length() - 2) / 2);
+    }
+
+    @Test
+    void statusReportRequestSetsSrr() {
+        SmsPdu.Part part = SmsPdu.encode(TO, "hellohello", 0, true).get(0);
+
+        assertThat(part.hex()).startsWith("0031");
+        assertThat(SmsPdu.requestsStatusReport(part.hex())).isTrue();
+        assertThat(SmsPdu.submitAddressHex(part.hex())).isEqualTo(TO_ADDRESS);
+    }
+
+    @Test
+    void concatenatedGsm7PartsStartAfterTheHeaderAndOneFillBit() {
+        String text = "A".repeat(153) + "B".repeat(9);
+        List<SmsPdu.Part> parts = SmsPdu.encode(TO, text, 0x2A, false);
+
+        assertThat(parts).hasSize(2);
+        // UDHI set; 6 header octets + 1 fill bit = 7 septets before the text.
+        assertThat(parts.get(0).hex()).startsWith("0051");
+        assertThat(udl(parts.get(0))).isEqualTo(7 + 153);
+        assertThat(udl(parts.get(1))).isEqualTo(7 + 9);
+        // 'A' = 0x41 shifted past the fill bit.
+        assertThat(userData(parts.get(0))).startsWith("0500032A0201" + "82");
+        assertThat(userData(parts.get(1))).startsWith("0500032A0202");
+        assertThat(roundTrip(parts)).isEqualTo(text);
+        assertThat(received(parts.get(1)).part()).isEqualTo(2);
+        assertThat(received(parts.get(1)).concatRef()).isEqualTo(0x2A);
+    }
+
+    @Test
+    void escapeSequenceIsNotSplitAcrossParts() {
+        // The euro sign is ESC + 0x65: its escape would be septet 153 of the first part.
+        String text = "a".repeat(152) + "€" + "b".repeat(10);
+        List<SmsPdu.Part> parts = SmsPdu.encode(TO, text, 1, false);
+
+        assertThat(parts).hasSize(2);
+        assertThat(udl(parts.get(0))).isEqualTo(7 + 152);
+        assertThat(udl(parts.get(1))).isEqualTo(7 + 2 + 10);
+        assertThat(received(parts.get(0)).text()).isEqualTo("a".repeat(152));
+        assertThat(received(parts.get(1)).text()).isEqualTo("€" + "b".repeat(10));
+    }
+
+    @Test
+    void extensionCharactersCountTwice() {
+        assertThat(SmsPdu.segmentCount("a".repeat(160))).isEqualTo(1);
+        assertThat(SmsPdu.segmentCount("a".repeat(159) + "€")).isEqualTo(2);
+        assertThat(SmsPdu.segmentCount("a".repeat(161))).isEqualTo(2);
+    }
+
+    @Test
+    void nonGsmTextGoesOutAsUcs2() {
+        List<SmsPdu.Part> parts = SmsPdu.encode(TO, "Ștefan", 0, false);
+
+        assertThat(parts).hasSize(1);
+        // DCS 08, 12 octets, big-endian UTF-16.
+        assertThat(parts.get(0).hex()).isEqualTo("00" + "1100" + TO_ADDRESS + "0008A7" + "0C"
+                + "02180074006500660061006E");
+        assertThat(roundTrip(parts)).isEqualTo("Ștefan");
+        assertThat(SmsPdu.segmentCount("Ș".repeat(70))).isEqualTo(1);
+        assertThat(SmsPdu.segmentCount("Ș".repeat(71))).isEqualTo(2);
+    }
+
+    @Test
+    void surrogatePairIsNotSplitAcrossUcs2Parts() {
+        // The emoji's high surrogate would be character 67 of the first part.
+        String text = "a".repeat(66) + "🎾" + "b".repeat(10);
+        List<SmsPdu.Part> parts = SmsPdu.encode(TO, text, 7, false);
+
+        assertThat(parts).hasSize(2);
+        assertThat(udl(parts.get(0))).isEqualTo(6 + 66 * 2);
+        assertThat(received(parts.get(0)).text()).isEqualTo("a".repeat(66));
+        assertThat(received(parts.get(1)).text()).isEqualTo("🎾" + "b".repeat(10));
+        assertThat(roundTrip(parts)).isEqualTo(text);
+    }
+
+    @Test
+    void statusReportIsReadWithOrWithoutTheSmscAddress() {
+        String tpdu = "06" + "2A" + TO_ADDRESS + ACCEPTED + DISCHARGED + "00";
+
+        SmsPdu.StatusReport bare = SmsPdu.decodeStatusReport(tpdu, tpdu.length() / 2);
+        SmsPdu.StatusReport withSmsc = SmsPdu.decodeStatusReport("07910427020000F0" + tpdu, tpdu.length() / 2);
+
+        assertThat(bare).isEqualTo(withSmsc);
+        assertThat(bare.reference()).isEqualTo(0x2A);
+        assertThat(bare.recipient()).isEqualTo(TO);
+        assertThat(bare.accepted()).isEqualTo(Instant.parse("2026-10-17T09:30:00Z"));
+        assertThat(bare.discharged()).isEqualTo(Instant.parse("2026-10-17T09:30:05Z"));
+        assertThat(bare.delivered()).isTrue();
+        assertThat(bare.pending()).isFalse();
+    }
+
+    @Test
+    void statusReportStatusTellsPendingFromFailed() {
+        String head = "06" + "2A" + TO_ADDRESS + ACCEPTED + DISCHARGED;
+
+        SmsPdu.StatusReport pending = SmsPdu.decodeStatusReport(head + "20", head.length() / 2 + 1);
+        SmsPdu.StatusReport failed = SmsPdu.decodeStatusReport(head + "41", head.length() / 2 + 1);
+
+        assertThat(pending.pending()).isTrue();
+        assertThat(pending.delivered()).isFalse();
+        assertThat(failed.pending()).isFalse();
+        assertThat(failed.delivered()).isFalse();
+    }
+
+    @Test
+    void statusReportBuiltForTheEmulatorReadsBack() {
+        Instant accepted = Instant.parse("2026-10-17T09:30:00Z");
+        Instant discharged = Instant.parse("2026-10-17T09:30:03Z");
+        SmsPdu.Part report = SmsPdu.statusReport(7, TO_ADDRESS, accepted, discharged, 0x00);
+
+        SmsPdu.StatusReport decoded = SmsPdu.decodeStatusReport(report.hex(), report.tpduLength());
+
+        assertThat(decoded).isEqualTo(new SmsPdu.StatusReport(7, TO, accepted, discharged, 0x00));
+    }
+
+    @Test
+    void otherPdusAreNotStatusReports() {
+        String deliver = "04" + TO_ADDRESS + "0000" + ACCEPTED + "00";
+
+        assertThatThrownBy(() -> SmsPdu.decodeStatusReport(deliver, deliver.length() / 2))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SmsPdu.decodeStatusReport("06" + "2A" + TO_ADDRESS + ACCEPTED, 17))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SmsPdu.decodeStatusReport("XYZ", 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void deliverWithSmscAndInternationalSender() {
+        String hex = "07911326040000F0040B911346610089F60000208062917314080CC8F71D14969741F977FD07";
+
+        SmsPdu.Deliver d = SmsPdu.decodeDeliver(hex, 30);
+
+        assertThat(d.sender()).isEqualTo("+31641600986");
+        assertThat(d.text()).isEqualTo("How are you?");
+        assertThat(d.sentAt()).isNotNull();
+        assertThat(d.parts()).isEqualTo(1);
+        assertThat(d.part()).isEqualTo(1);
+    }
+
+    @Test
+    void deliverFromAnAlphanumericSender() {
+        // "Orange": 11 useful semi-octets, TOA D0, GSM-7 packed.
+        String hex = "04" + "0BD04F79D87D2E03" + "0000" + ACCEPTED + "05" + "C420287603";
+
+        SmsPdu.Deliver d = SmsPdu.decodeDeliver(hex, hex.length() / 2);
+
+        assertThat(d.sender()).isEqualTo("Orange");
+        assertThat(d.text()).isEqualTo("DA 17");
+        assertThat(d.sentAt()).isEqualTo(Instant.parse("2026-10-17T09:30:00Z"));
+    }
+
+    @Test
+    void ucs2DeliverPartCarriesItsConcatenationHeader() {
+        String hex = "44" + TO_ADDRESS + "0008" + ACCEPTED + "0A" + "050003070201" + "02180074";
+
+        SmsPdu.Deliver d = SmsPdu.decodeDeliver(hex, hex.length() / 2);
+
+        assertThat(d.sender()).isEqualTo(TO);
+        assertThat(d.text()).isEqualTo("Șt");
+        assertThat(d.concatRef()).isEqualTo(7);
+        assertThat(d.parts()).isEqualTo(2);
+        assertThat(d.part()).isEqualTo(1);
+    }
+
+    @Test
+    void statusReportIsNotADeliver() {
+        String report = "06" + "2A" + TO_ADDRESS + ACCEPTED + DISCHARGED + "00";
+
+        assertThatThrownBy(() -> SmsPdu.decodeDeliver(report, report.length() / 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void deliverBuiltForTheEmulatorReadsBack() {
+        Instant sent = Instant.parse("2026-10-17T09:30:00Z");
+
+        SmsPdu.Part gsm = SmsPdu.deliver(TO, "ANULEAZA 18:00", sent);
+        SmsPdu.Part ucs2 = SmsPdu.deliver(TO, "Ștefan", sent);
+
+        assertThat(SmsPdu.decodeDeliver(gsm.hex(), gsm.tpduLength()))
+                .isEqualTo(new SmsPdu.Deliver(TO, "ANULEAZA 18:00", sent, 0, 1, 1));
+        assertThat(SmsPdu.decodeDeliver(ucs2.hex(), ucs2.tpduLength()).text()).isEqualTo("Ștefan");
+    }
+}
@@ -0,0 +1,93 @@
+package com.toptennis.sms;
+
+import com.toptennis.config.SmsProperties;
+import com.toptennis.dto.SmsSendResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SmsServiceEmulatorTest {
+
+    // Three GSM-7 parts (153 characters each after the concatenation header).
+    private static final String LONG_TEXT = "Rezervare confirmata. ".repeat(20);
+
+    private static SmsProperties props(String encoding) {
+        SmsProperties props = new SmsProperties();
+        props.setMode("emulator");
+        props.setPorts(List.of("emu-a", "emu-b"));
+        props.setEncoding(encoding);
+        props.setDeliveryReports(false);
+        props.setCommandTimeoutMs(1000);
+        props.setSendTimeoutMs(1500);
+        props.getEmulator().setCommandLatencyMs(1);
+        props.getEmulator().setSubmitLatencyMs(5);
+        return props;
+    }
+
+    // Opens every modem so each has its emulator, and makes each drop the answer to body `n`.
+    private static ModemPool poolDroppingAnswerTo(SmsProperties props, int n) {
+        ModemPool pool = new ModemPool(props);
+        for (AtSerialClient client : pool.clients()) {
+            client.reconnect();
+            client.emulator().dropAnswerTo(n);
+        }
+        return pool;
+    }
+
+    private static long total(ModemPool pool, ToLongFunction<ModemEmulator> counter) {
+        return pool.clients().stream().mapToLong(c -> counter.applyAsLong(c.emulator())).sum();
+    }
+
+    @Test
+    void unansweredSecondPartIsNeitherRetriedNorFailedOver() {
+        SmsProperties props = props("pdu");
+        ModemPool pool = poolDroppingAnswerTo(props, 2);
+        SmsService service = new SmsService(pool, mock(DeliveryReportTracker.class), props);
+
+        SmsSendResult result = service.sendSms("+40722000111", LONG_TEXT, SmsLane.CUSTOMER);
+
+        assertThat(result.success).isFalse();
+        assertThat(result.possiblySent).isTrue();
+        assertThat(result.segments).isEqualTo(3);
+        // Part 1 was answered: its reference is kept for delivery tracking.
+        assertThat(result.messageId).isNotBlank().doesNotContain(",");
+        // Parts 1 and 2 went out once each, part 3 never, and the other modem was not used.
+        assertThat(total(pool, ModemEmulator::receivedCount)).isEqualTo(2);
+        assertThat(total(pool, ModemEmulator::resentCount)).isZero();
+        assertThat(total(pool, ModemEmulator::submittedCount)).isEqualTo(1);
+    }
+
+    @Test
+    void unansweredTextModeBodyIsNotResent() {
+        SmsProperties props = props("text");
+        ModemPool pool = poolDroppingAnswerTo(props, 1);
+        SmsService service = new SmsService(pool, mock(DeliveryReportTracker.class), props);
+
+        SmsSendResult result = service.sendSms("+40722000111", "Rezervare confirmata.", SmsLane.CUSTOMER);
+
+        assertThat(result.success).isFalse();
+        assertThat(result.possiblySent).isTrue();
+        assertThat(result.messageId).isNull();
+        assertThat(total(pool, ModemEmulator::receivedCount)).isEqualTo(1);
+        assertThat(total(pool, ModemEmulator::resentCount)).isZero();
+    }
+
+    @Test
+    void answeredMultipartMessageGoesOutOncePerPart() {
+        SmsProperties props = props("pdu");
+        ModemPool pool = poolDroppingAnswerTo(props, 100);
+        SmsService service = new SmsService(pool, mock(DeliveryReportTracker.class), props);
+
+        SmsSendResult result = service.sendSms("+40722000111", LONG_TEXT, SmsLane.CUSTOMER);
+
+        assertThat(result.success).isTrue();
+        assertThat(result.possiblySent).isFalse();
+        assertThat(result.messageId.split(",")).hasSize(3);
+        assertThat(total(pool, ModemEmulator::receivedCount)).isEqualTo(3);
+        assertThat(total(pool, ModemEmulator::resentCount)).isZero();
+    }
+}
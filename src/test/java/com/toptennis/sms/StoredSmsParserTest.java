@@ -0,0 +1,70 @@
+package com.toptennis.sms;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StoredSmsParserTest {
+    // SMS-DELIVER from +40722000111, "DA 17", sent 26/10/17 12:30:00 +03:00, no SMSC address.
+    private static final String DELIVER = "04" + "0B910427020011F1" + "0000" + "62017121030021" + "05" + "C420287603";
+    private static final int DELIVER_LENGTH = DELIVER.length() / 2;
+    private static final String REPORT = "06" + "2A" + "0B910427020011F1" + "62017121030021" + "62017121035021" + "00";
+    private static final Instant SENT = Instant.parse("2026-10-17T09:30:00Z");
+
+    @Test
+    void pduListKeepsEachIndexAndMarksNonDeliversAsEmpty() {
+        String response = "+CMGL: 3,0,," + DELIVER_LENGTH + "\n" + DELIVER + "\n"
+                + "+CMGL: 5,1,," + REPORT.length() / 2 + "\n" + REPORT + "\n"
+                + "OK\n";
+
+        List<InboundSms> list = StoredSmsParser.parseList("emu-a", response, true);
+
+        assertThat(list).hasSize(2);
+        assertThat(list.get(0)).isEqualTo(new InboundSms("emu-a", 3, "+40722000111", "DA 17", SENT, 0, 1, 1));
+        // A status report left on the SIM: no sender or text, but still listed so it gets deleted.
+        assertThat(list.get(1).index()).isEqualTo(5);
+        assertThat(list.get(1).from()).isNull();
+        assertThat(list.get(1).text()).isNull();
+    }
+
+    @Test
+    void textListReadsSenderTimeAndMultilineText() {
+        String response = "+CMGL: 1,\"REC UNREAD\",\"+40722000111\",,\"26/10/17,12:30:00+12\"\n"
+                + "ANULEAZA\n"
+                + "17\n"
+                + "+CMGL: 2,\"REC READ\",\"+40722000112\",,\"26/10/17,12:31:00+12\"\n"
+                + "DA\n"
+                + "OK\n";
+
+        List<InboundSms> list = StoredSmsParser.parseList("emu-a", response, false);
+
+        assertThat(list).containsExactly(
+                new InboundSms("emu-a", 1, "+40722000111", "ANULEAZA\n17", SENT, 0, 1, 1),
+                new InboundSms("emu-a", 2, "+40722000112", "DA", SENT.plusSeconds(60), 0, 1, 1));
+    }
+
+    @Test
+    void readReturnsTheMessageOrNullForAnEmptySlot() {
+        String pdu = "+CMGR: 0,," + DELIVER_LENGTH + "\n" + DELIVER + "\nOK\n";
+        String text = "+CMGR: \"REC UNREAD\",\"+40722000111\",,\"26/10/17,12:30:00+12\"\nDA\nOK\n";
+
+        assertThat(StoredSmsParser.parseRead("emu-a", 4, pdu, true))
+                .isEqualTo(new InboundSms("emu-a", 4, "+40722000111", "DA 17", SENT, 0, 1, 1));
+        assertThat(StoredSmsParser.parseRead("emu-a", 4, text, false))
+                .isEqualTo(new InboundSms("emu-a", 4, "+40722000111", "DA", SENT, 0, 1, 1));
+        assertThat(StoredSmsParser.parseRead("emu-a", 4, "OK\n", true)).isNull();
+        assertThat(StoredSmsParser.parseRead("emu-a", 4, "+CMS ERROR: 321\n", false)).isNull();
+    }
+
+    @Test
+    void textTimeZoneIsInQuartersOfAnHour() {
+        assertThat(StoredSmsParser.parseTextTime("26/10/17,12:30:00+12")).isEqualTo(SENT);
+        assertThat(StoredSmsParser.parseTextTime("26/10/17,09:30:00")).isEqualTo(SENT);
+        assertThat(StoredSmsParser.parseTextTime("26/10/17,08:30:00-4")).isEqualTo(SENT);
+        assertThat(StoredSmsParser.parseTextTime("not a time")).isNull();
+        assertThat(StoredSmsParser.parseTextTime("26/13/17,12:30:00+12")).isNull();
+    }
+}